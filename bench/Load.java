@@ -0,0 +1,84 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Закрытая нагрузка: concurrency клиентов, каждый делает rounds последовательных GET base + path
+ * с заголовком X-Sharer-User-Id: 1. Печатает пропускную способность, p50/p99/max по успешным ответам
+ * и число потоков JVM цели из actuator (jvm.threads.peak, jvm.threads.live).
+ * Запуск: java [-Dpath=/users/1] bench/Load.java <base-url> <concurrency> <rounds>
+ */
+public class Load {
+    private static final String PATH = System.getProperty("path", "/users/1");
+
+    public static void main(String[] args) throws Exception {
+        String base = args[0];
+        int concurrency = Integer.parseInt(args[1]);
+        int rounds = Integer.parseInt(args[2]);
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+        /* Прогрев: JIT и пулы соединений цели */
+        run(client, base, Math.min(concurrency, 200), 3);
+        long started = System.nanoTime();
+        long[] latencies = run(client, base, concurrency, rounds);
+        double seconds = (System.nanoTime() - started) / 1e9;
+        long[] ok = Arrays.stream(latencies).filter(latency -> latency >= 0).sorted().toArray();
+        System.out.printf("concurrency=%d requests=%d ok=%d errors=%d time=%.2fs rps=%.0f p50=%dms p99=%dms max=%dms%n",
+                concurrency, latencies.length, ok.length, latencies.length - ok.length, seconds, ok.length / seconds,
+                percentile(ok, 0.5), percentile(ok, 0.99), percentile(ok, 1));
+        for (String metric : List.of("jvm.threads.peak", "jvm.threads.live")) {
+            String response = client.send(HttpRequest.newBuilder(URI.create(base + "/actuator/metrics/" + metric))
+                    .build(), HttpResponse.BodyHandlers.ofString()).body();
+            System.out.println(metric + " " + response.replaceAll(".*\"value\":([0-9.]+).*", "$1"));
+        }
+    }
+
+    /* Задержка каждого запроса в наносекундах, -1 - ошибка или статус не 200 */
+    private static long[] run(HttpClient client, String base, int concurrency, int rounds) {
+        long[] latencies = new long[concurrency * rounds];
+        AtomicInteger errors = new AtomicInteger();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int w = 0; w < concurrency; w++) {
+                int worker = w;
+                executor.submit(() -> {
+                    for (int r = 0; r < rounds; r++) {
+                        long started = System.nanoTime();
+                        int slot = worker * rounds + r;
+                        try {
+                            HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(base + PATH))
+                                    .header("X-Sharer-User-Id", "1")
+                                    .timeout(Duration.ofSeconds(60))
+                                    .build(), HttpResponse.BodyHandlers.ofString());
+                            latencies[slot] = response.statusCode() == 200 ? System.nanoTime() - started : -1;
+                            if (response.statusCode() != 200 && errors.getAndIncrement() < 3) {
+                                System.out.println("status " + response.statusCode() + " " + response.body());
+                            }
+                        } catch (Exception e) {
+                            latencies[slot] = -1;
+                            if (errors.getAndIncrement() < 3) {
+                                System.out.println("error " + e);
+                            }
+                        }
+                    }
+                });
+            }
+        }
+        return latencies;
+    }
+
+    private static long percentile(long[] sorted, double share) {
+        if (sorted.length == 0) {
+            return -1;
+        }
+        return sorted[Math.min((int) (sorted.length * share), sorted.length - 1)] / 1_000_000;
+    }
+}
@@ -0,0 +1,34 @@
+import com.sun.net.httpserver.HttpServer;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+
+/**
+ * Заглушка сервера для нагрузки на шлюз: на любой запрос через delay мс отвечает 200 и одним пользователем.
+ * Каждый запрос обслуживает виртуальный поток, так что задержка не ограничивает число одновременных ответов.
+ * Запуск: java bench/Stub.java <port> <delay-ms>
+ */
+public class Stub {
+    public static void main(String[] args) throws Exception {
+        int port = Integer.parseInt(args[0]);
+        long delay = Long.parseLong(args[1]);
+        byte[] body = "{\"id\":1,\"name\":\"user\",\"email\":\"user@mail.ru\"}".getBytes(StandardCharsets.UTF_8);
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 20_000);
+        server.createContext("/", exchange -> {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.getRequestBody().readAllBytes();
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+        System.out.println("Заглушка на порту " + port + ", задержка " + delay + " мс");
+    }
+}
@@ -0,0 +1,91 @@
+#!/bin/bash
+# Нагрузочный стенд, на котором сняты замеры режимов шлюза и сервера (async, virtual threads, coalescing).
+# Перед запуском: mvn -B package -DskipTests. Процессы пишут логи и pid в bench/out.
+#
+#   bench/run.sh stub <delay-ms>              заглушка сервера на :9191 с задержкой ответа
+#   bench/run.sh gateway [--свойство=значение]  шлюз на :8181 поверх заглушки, пул к ней 2000 соединений
+#   bench/run.sh server [--свойство=значение]   сервер на :9292 с профилем test (H2) и одним пользователем
+#   bench/run.sh load <port> <rounds> <concurrency>...   Load по очереди для каждого уровня конкурентности
+#   bench/run.sh stop-app                      остановить приложение, заглушку оставить
+#   bench/run.sh stop
+#
+# Пример - шлюз на платформенных и виртуальных потоках при задержке сервера 1 с:
+#   bench/run.sh stub 1000
+#   bench/run.sh gateway --spring.threads.virtual.enabled=false; bench/run.sh load 8181 1 1000 5000 10000; bench/run.sh stop-app
+#   bench/run.sh gateway --spring.threads.virtual.enabled=true;  bench/run.sh load 8181 1 1000 5000 10000; bench/run.sh stop
+# Параметры JVM приложений - переменная JAVA_OPTS (по умолчанию -Xmx2g).
+set -e
+BENCH=$(cd "$(dirname "$0")" && pwd)
+ROOT=$(dirname "$BENCH")
+OUT=$BENCH/out
+JAVA=${JAVA:-java}
+JAVA_OPTS=${JAVA_OPTS:--Xmx2g}
+mkdir -p "$OUT"
+
+wait_for() {
+    for _ in $(seq 90); do
+        curl -sf "localhost:$1/actuator/health" > /dev/null && return 0
+        sleep 1
+    done
+    echo "Приложение на порту $1 не поднялось, лог в $OUT" >&2
+    return 1
+}
+
+stop() {
+    for name in "$@"; do
+        if [ -f "$OUT/$name.pid" ]; then
+            kill "$(cat "$OUT/$name.pid")" 2> /dev/null || true
+            rm -f "$OUT/$name.pid"
+        fi
+    done
+}
+
+command=$1
+shift || true
+case $command in
+    stub)
+        ulimit -n 20000
+        nohup "$JAVA" -Dsun.net.httpserver.maxIdleConnections=20000 -Dsun.net.httpserver.idleInterval=120 \
+            "$BENCH/Stub.java" 9191 "${1:-1000}" > "$OUT/stub.log" 2>&1 &
+        echo $! > "$OUT/stub.pid"
+        ;;
+    gateway)
+        ulimit -n 20000
+        nohup "$JAVA" $JAVA_OPTS -jar "$ROOT"/gateway/target/shareit-gateway-*.jar --server.port=8181 \
+            --shareit-server.url=http://localhost:9191 \
+            --shareit-server.pool.max-total=2000 --shareit-server.pool.max-per-route=2000 \
+            --shareit-server.pool.lease-timeout=60000 --shareit-server.pool.connect-timeout=10000 \
+            --server.tomcat.accept-count=10000 --logging.level.root=WARN \
+            --logging.level.org.springframework.web.client.RestTemplate=WARN "$@" > "$OUT/gateway.log" 2>&1 &
+        echo $! > "$OUT/app.pid"
+        wait_for 8181
+        ;;
+    server)
+        ulimit -n 20000
+        nohup "$JAVA" $JAVA_OPTS -jar "$ROOT"/server/target/shareit-server-*.jar --server.port=9292 \
+            --spring.profiles.active=test --server.tomcat.accept-count=10000 --logging.level.root=WARN "$@" \
+            > "$OUT/server.log" 2>&1 &
+        echo $! > "$OUT/app.pid"
+        wait_for 9292
+        curl -s -XPOST localhost:9292/users -H 'Content-Type: application/json' \
+            -d '{"name":"user","email":"user@mail.ru"}' > /dev/null
+        ;;
+    load)
+        port=$1
+        rounds=$2
+        shift 2
+        for concurrency in "$@"; do
+            "$JAVA" ${LOAD_OPTS} "$BENCH/Load.java" "http://localhost:$port" "$concurrency" "$rounds"
+        done
+        ;;
+    stop-app)
+        stop app
+        ;;
+    stop)
+        stop app stub
+        ;;
+    *)
+        sed -n '2,/^# Параметры/p' "$0"
+        exit 1
+        ;;
+esac
@@ -1,6 +1,8 @@
 package ru.practicum.shareit.booking;
 
 import jakarta.validation.ValidationException;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.lang.Nullable;
 import org.springframework.web.client.RestTemplate;
 import ru.practicum.shareit.booking.dto.BookItemRequestDto;
 import ru.practicum.shareit.booking.dto.BookingState;
@@ -9,14 +11,15 @@ import org.springframework.http.ResponseEntity;
 
 import java.time.LocalDateTime;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 
 public class BookingClient extends BaseClient {
-    public BookingClient(RestTemplate rest) {
-        super(rest);
+    public BookingClient(RestTemplate rest, boolean passThrough, @Nullable WebClient webClient) {
+        super(rest, passThrough, webClient);
     }
 
-    public ResponseEntity<Object> saveBooking(BookItemRequestDto bookItemRequestDto, long userId) {
+    public CompletableFuture<ResponseEntity<Object>> saveBooking(BookItemRequestDto bookItemRequestDto, long userId) {
         if (!bookItemRequestDto.getEnd().isAfter(bookItemRequestDto.getStart()) ||
                 bookItemRequestDto.getStart().isBefore(LocalDateTime.now())) {
             throw new ValidationException("Дата начала бронирования должна быть раньше даты возврата");
@@ -24,30 +27,30 @@ public class BookingClient extends BaseClient {
         return post("", userId, bookItemRequestDto);
     }
 
-    public ResponseEntity<Object> approve(long bookingId, Boolean isApproved, long userId) {
+    public CompletableFuture<ResponseEntity<Object>> approve(long bookingId, Boolean isApproved, long userId) {
         Map<String, Object> parameters = Map.of("approved", isApproved);
         return patch("/" + bookingId + "?approved={approved}", userId, parameters, null);
     }
 
-    public ResponseEntity<Object> getBookingById(long bookingId, long userId) {
+    public CompletableFuture<ResponseEntity<Object>> getBookingById(long bookingId, long userId) {
         return get("/" + bookingId, userId);
     }
 
-    public ResponseEntity<Object> getAllByBooker(Integer from, Integer size, BookingState state, long userId) {
+    public CompletableFuture<ResponseEntity<Object>> getAllByBooker(String cursor, Integer size, BookingState state, long userId) {
         Map<String, Object> parameters = Map.of(
                 "state", state.name(),
-                "from", from,
-                "size", size
+                "size", size,
+                "cursor", cursor == null ? "" : cursor
         );
-        return get("?state={state}&from={from}&size={size}", userId, parameters);
+        return get("?state={state}&size={size}&cursor={cursor}", userId, parameters);
     }
 
-    public ResponseEntity<Object> getAllByOwner(Integer from, Integer size, BookingState state, long userId) {
+    public CompletableFuture<ResponseEntity<Object>> getAllByOwner(String cursor, Integer size, BookingState state, long userId) {
         Map<String, Object> parameters = Map.of(
                 "state", state.name(),
-                "from", from,
-                "size", size
+                "size", size,
+                "cursor", cursor == null ? "" : cursor
         );
-        return get("/owner?state={state}&from={from}&size={size}", userId, parameters);
+        return get("/owner?state={state}&size={size}&cursor={cursor}", userId, parameters);
     }
 }
\ No newline at end of file
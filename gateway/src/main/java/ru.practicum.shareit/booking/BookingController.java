@@ -1,7 +1,6 @@
 package ru.practicum.shareit.booking;
 
 import jakarta.validation.constraints.Positive;
-import jakarta.validation.constraints.PositiveOrZero;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import ru.practicum.shareit.booking.dto.BookItemRequestDto;
@@ -12,6 +11,8 @@ import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+
 
 @Controller
 @RequestMapping(path = "/bookings")
@@ -22,14 +23,14 @@ public class BookingController {
 	private final BookingClient bookingClient;
 
 	@PostMapping
-	public ResponseEntity<Object> saveNewBooking(@Validated(Create.class) @RequestBody BookItemRequestDto bookItemRequestDto,
+	public CompletableFuture<ResponseEntity<Object>> saveNewBooking(@Validated(Create.class) @RequestBody BookItemRequestDto bookItemRequestDto,
 												 @RequestHeader("X-Sharer-User-Id") long userId) {
 		log.info("POST / bookings");
 		return bookingClient.saveBooking(bookItemRequestDto, userId);
 	}
 
 	@PatchMapping("/{bookingId}")
-	public ResponseEntity<Object> approve(@PathVariable long bookingId,
+	public CompletableFuture<ResponseEntity<Object>> approve(@PathVariable long bookingId,
 										  @RequestParam(name = "approved") Boolean isApproved,
 										  @RequestHeader("X-Sharer-User-Id") long userId) {
 		log.info("PATCH / bookings / {}", bookingId);
@@ -37,31 +38,31 @@ public class BookingController {
 	}
 
 	@GetMapping("/{bookingId}")
-	public ResponseEntity<Object> getBookingById(@PathVariable long bookingId,
+	public CompletableFuture<ResponseEntity<Object>> getBookingById(@PathVariable long bookingId,
 												 @RequestHeader("X-Sharer-User-Id") long userId) {
 		log.info("Get booking {}, userId={}", bookingId, userId);
 		return bookingClient.getBookingById(bookingId, userId);
 	}
 
 	@GetMapping
-	public ResponseEntity<Object> getAllByBooker(@RequestParam(defaultValue = "1") @PositiveOrZero Integer from,
+	public CompletableFuture<ResponseEntity<Object>> getAllByBooker(@RequestParam(required = false) String cursor,
 												 @RequestParam(defaultValue = "10") @Positive Integer size,
 												 @RequestParam(name = "state", defaultValue = "ALL") String stateParam,
 												 @RequestHeader("X-Sharer-User-Id") long bookerId) {
 		BookingState state = BookingState.from(stateParam)
 				.orElseThrow(() -> new IllegalArgumentException("Unknown state: " + stateParam));
 		log.info("GET / ByBooker {}", bookerId);
-		return bookingClient.getAllByBooker(from, size, state, bookerId);
+		return bookingClient.getAllByBooker(cursor, size, state, bookerId);
 	}
 
 	@GetMapping("/owner")
-	public ResponseEntity<Object> getAllByOwner(@RequestParam(defaultValue = "1") @PositiveOrZero Integer from,
+	public CompletableFuture<ResponseEntity<Object>> getAllByOwner(@RequestParam(required = false) String cursor,
 												@RequestParam(defaultValue = "10") @Positive Integer size,
 												@RequestParam(name = "state", defaultValue = "ALL") String stateParam,
 												@RequestHeader("X-Sharer-User-Id") long ownerId) {
 		BookingState state = BookingState.from(stateParam)
 				.orElseThrow(() -> new IllegalArgumentException("Unknown state: " + stateParam));
 		log.info("GET / ByOwner / {}", ownerId);
-		return bookingClient.getAllByOwner(from, size, state, ownerId);
+		return bookingClient.getAllByOwner(cursor, size, state, ownerId);
 	}
 }
\ No newline at end of file
@@ -1,85 +1,174 @@
 package ru.practicum.shareit.client;
 
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
+import org.springframework.core.io.InputStreamResource;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpOutputMessage;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.StreamingHttpOutputMessage;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.lang.Nullable;
 import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+/**
+ * Базовый клиент сервера. В режиме pass-through (shareit-server.pass-through, по умолчанию включён)
+ * ответ сервера не разбирается: статус, заголовки и поток тела отдаются клиенту как есть,
+ * тело копируется в ответ сервлета без Jackson. Иначе ответ читается в Object и сериализуется заново.
+ * В неблокирующем режиме (shareit-server.async) запросы идут через {@link WebClient} на потоках событий
+ * Reactor Netty, а методы возвращают незавершённый CompletableFuture: Spring MVC отпускает поток
+ * Tomcat и дописывает ответ, когда сервер ответит. В блокирующих режимах future возвращается уже завершённым.
+ * GET через {@link #getShared} сливаются с одинаковыми одновременными запросами в {@link SingleFlight}:
+ * на сервер уходит один, его ответ читается в память и достаётся всем ожидающим.
+ */
 public class BaseClient {
+    /* Заголовки одного соединения, которые нельзя переносить в ответ шлюза */
+    private static final Set<String> HOP_BY_HOP = Set.of("connection", "keep-alive", "transfer-encoding",
+            "te", "trailer", "upgrade", "proxy-authenticate", "proxy-authorization");
+
     protected final RestTemplate rest;
+    private final boolean passThrough;
+    @Nullable
+    private final WebClient webClient;
+    @Nullable
+    private final SingleFlight singleFlight;
 
     public BaseClient(RestTemplate rest) {
+        this(rest, false, null);
+    }
+
+    public BaseClient(RestTemplate rest, boolean passThrough, @Nullable WebClient webClient) {
+        this(rest, passThrough, webClient, null);
+    }
+
+    public BaseClient(RestTemplate rest, boolean passThrough, @Nullable WebClient webClient,
+                      @Nullable SingleFlight singleFlight) {
         this.rest = rest;
+        this.passThrough = passThrough;
+        this.webClient = webClient;
+        this.singleFlight = singleFlight;
     }
 
-    protected ResponseEntity<Object> get(String path) {
+    protected CompletableFuture<ResponseEntity<Object>> get(String path) {
         return get(path, null, null);
     }
 
-    protected ResponseEntity<Object> get(String path, long userId) {
+    protected CompletableFuture<ResponseEntity<Object>> get(String path, long userId) {
         return get(path, userId, null);
     }
 
-    protected ResponseEntity<Object> get(String path, Long userId, @Nullable Map<String, Object> parameters) {
+    protected CompletableFuture<ResponseEntity<Object>> get(String path, Long userId, @Nullable Map<String, Object> parameters) {
         return makeAndSendRequest(HttpMethod.GET, path, userId, parameters, null);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, T body) {
+    /* Ключ - итоговый URI; userId входит в него, только если ответ сервера зависит от пользователя (perUser):
+       иначе одинаковые запросы разных пользователей тоже сливаются */
+    protected CompletableFuture<ResponseEntity<Object>> getShared(String path, long userId,
+                                                                  @Nullable Map<String, Object> parameters,
+                                                                  boolean perUser) {
+        if (singleFlight == null) {
+            return get(path, userId, parameters);
+        }
+        String key = HttpMethod.GET + " " + expand(path, parameters) + (perUser ? " " + userId : "");
+        return singleFlight.execute(key, () -> get(path, userId, parameters).thenApply(BaseClient::buffered));
+    }
+
+    protected <T> CompletableFuture<ResponseEntity<Object>> post(String path, T body) {
         return post(path, null, null, body);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, long userId, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> post(String path, long userId, T body) {
         return post(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> post(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
         return makeAndSendRequest(HttpMethod.POST, path, userId, parameters, body);
     }
 
-    protected <T> ResponseEntity<Object> put(String path, long userId, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> put(String path, long userId, T body) {
         return put(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> put(String path, long userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> put(String path, long userId, @Nullable Map<String, Object> parameters, T body) {
         return makeAndSendRequest(HttpMethod.PUT, path, userId, parameters, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> patch(String path, T body) {
         return patch(path, null, null, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, long userId) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> patch(String path, long userId) {
         return patch(path, userId, null, null);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, long userId, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> patch(String path, long userId, T body) {
         return patch(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> patch(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
         return makeAndSendRequest(HttpMethod.PATCH, path, userId, parameters, body);
     }
 
-    protected ResponseEntity<Object> delete(String path) {
+    protected CompletableFuture<ResponseEntity<Object>> delete(String path) {
         return delete(path, null, null);
     }
 
-    protected ResponseEntity<Object> delete(String path, long userId) {
+    protected CompletableFuture<ResponseEntity<Object>> delete(String path, long userId) {
         return delete(path, userId, null);
     }
 
-    protected ResponseEntity<Object> delete(String path, Long userId, @Nullable Map<String, Object> parameters) {
+    protected CompletableFuture<ResponseEntity<Object>> delete(String path, Long userId, @Nullable Map<String, Object> parameters) {
         return makeAndSendRequest(HttpMethod.DELETE, path, userId, parameters, null);
     }
 
-    private <T> ResponseEntity<Object> makeAndSendRequest(HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
+    /* Тело передаётся серверу по мере чтения (chunked), ответ сервера - так же, без разбора */
+    protected ResponseEntity<StreamingResponseBody> upload(String path, @Nullable Long userId, MediaType contentType,
+                                                           InputStream body) throws IOException {
+        ClientHttpRequest request = rest.getRequestFactory()
+                .createRequest(rest.getUriTemplateHandler().expand(path), HttpMethod.POST);
+        request.getHeaders().addAll(defaultHeaders(userId));
+        request.getHeaders().setContentType(contentType);
+        ((StreamingHttpOutputMessage) request).setBody(body::transferTo);
+        ClientHttpResponse response = request.execute();
+        MediaType responseType = response.getHeaders().getContentType();
+        return ResponseEntity.status(response.getStatusCode())
+                .contentType(responseType == null ? MediaType.APPLICATION_JSON : responseType)
+                .body(out -> {
+                    try (response; InputStream in = response.getBody()) {
+                        in.transferTo(out);
+                    }
+                });
+    }
+
+    private <T> CompletableFuture<ResponseEntity<Object>> makeAndSendRequest(HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
+        if (webClient != null) {
+            return sendAsync(method, path, userId, parameters, body);
+        }
+        if (passThrough) {
+            return CompletableFuture.completedFuture(passThrough(method, path, userId, parameters, body));
+        }
+        return CompletableFuture.completedFuture(exchange(method, path, userId, parameters, body));
+    }
+
+    private <T> ResponseEntity<Object> exchange(HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
         HttpEntity<T> requestEntity = new HttpEntity<>(body, defaultHeaders(userId));
 
         ResponseEntity<Object> shareitServerResponse;
@@ -95,6 +184,77 @@ public class BaseClient {
         return prepareGatewayResponse(shareitServerResponse);
     }
 
+    /* Запрос уходит в WebClient, поток сервлета освобождается до ответа сервера; ожидание соединения
+       и ответа не занимает потоков, ответ собирается в память и отдаётся как есть, вместе с заголовками */
+    private <T> CompletableFuture<ResponseEntity<Object>> sendAsync(HttpMethod method, String path, Long userId,
+                                                                    @Nullable Map<String, Object> parameters,
+                                                                    @Nullable T body) {
+        URI uri = expand(path, parameters);
+        WebClient.RequestBodySpec request = webClient.method(method).uri(uri)
+                .headers(headers -> {
+                    headers.addAll(defaultHeaders(userId));
+                    if (body == null) {
+                        headers.remove(HttpHeaders.CONTENT_TYPE);
+                    }
+                });
+        WebClient.RequestHeadersSpec<?> spec = body == null ? request : request.bodyValue(body);
+        return spec.exchangeToMono(response -> response.toEntity(byte[].class))
+                .map(response -> ResponseEntity.status(response.getStatusCode())
+                        .headers(withoutHopByHop(response.getHeaders()))
+                        .body((Object) (response.hasBody() ? response.getBody() : new byte[0])))
+                .onErrorMap(WebClientRequestException.class, e -> new ResourceAccessException("Ошибка обращения к серверу "
+                        + method + " " + uri + ": " + e.getMessage(),
+                        e.getCause() instanceof IOException io ? io : new IOException(e.getCause())))
+                .toFuture();
+    }
+
+    /* Тело ответа - поток соединения: его копирует в ответ сервлета ResourceHttpMessageConverter и закрывает */
+    private <T> ResponseEntity<Object> passThrough(HttpMethod method, String path, Long userId,
+                                                   @Nullable Map<String, Object> parameters, @Nullable T body) {
+        URI uri = expand(path, parameters);
+        try {
+            ClientHttpRequest request = rest.getRequestFactory().createRequest(uri, method);
+            request.getHeaders().addAll(defaultHeaders(userId));
+            if (body != null) {
+                writeBody(body, request);
+            }
+            ClientHttpResponse response = request.execute();
+            return ResponseEntity.status(response.getStatusCode())
+                    .headers(withoutHopByHop(response.getHeaders()))
+                    .body(new InputStreamResource(new ResponseBodyStream(response)));
+        } catch (IOException e) {
+            throw new ResourceAccessException("Ошибка обращения к серверу " + method + " " + uri + ": "
+                    + e.getMessage(), e);
+        }
+    }
+
+    private URI expand(String path, @Nullable Map<String, Object> parameters) {
+        return parameters != null
+                ? rest.getUriTemplateHandler().expand(path, parameters)
+                : rest.getUriTemplateHandler().expand(path);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void writeBody(Object body, HttpOutputMessage request) throws IOException {
+        for (HttpMessageConverter<?> converter : rest.getMessageConverters()) {
+            if (converter.canWrite(body.getClass(), MediaType.APPLICATION_JSON)) {
+                ((HttpMessageConverter<Object>) converter).write(body, MediaType.APPLICATION_JSON, request);
+                return;
+            }
+        }
+        throw new IllegalStateException("Нет конвертера для " + body.getClass());
+    }
+
+    private static HttpHeaders withoutHopByHop(HttpHeaders source) {
+        HttpHeaders headers = new HttpHeaders();
+        source.forEach((name, values) -> {
+            if (!HOP_BY_HOP.contains(name.toLowerCase(Locale.ROOT))) {
+                headers.addAll(name, values);
+            }
+        });
+        return headers;
+    }
+
     private HttpHeaders defaultHeaders(Long userId) {
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
@@ -118,4 +278,37 @@ public class BaseClient {
 
         return responseBuilder.build();
     }
-}
\ No newline at end of file
+
+    /* Поток pass-through читается один раз, поэтому разделяемый ответ держит тело массивом байт */
+    private static ResponseEntity<Object> buffered(ResponseEntity<Object> response) {
+        if (!(response.getBody() instanceof InputStreamResource resource)) {
+            return response;
+        }
+        try (InputStream in = resource.getInputStream()) {
+            return ResponseEntity.status(response.getStatusCode())
+                    .headers(response.getHeaders())
+                    .body(in.readAllBytes());
+        } catch (IOException e) {
+            throw new ResourceAccessException("Ошибка чтения ответа сервера: " + e.getMessage(), e);
+        }
+    }
+
+    /* Закрытие потока тела освобождает и соединение из пула */
+    private static final class ResponseBodyStream extends FilterInputStream {
+        private final ClientHttpResponse response;
+
+        private ResponseBodyStream(ClientHttpResponse response) throws IOException {
+            super(response.getBody());
+            this.response = response;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                response.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import io.netty.channel.ChannelOption;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.io.ConnectionEndpoint;
+import org.apache.hc.client5.http.io.LeaseRequest;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.netty.resources.LoopResources;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Общий пул соединений с сервером для всех клиентов шлюза. Раньше каждый клиент создавал свою фабрику
+ * с пулом по умолчанию (5 соединений на маршрут) и без тайм-аутов, и под нагрузкой потоки шлюза ждали
+ * соединения. Пределы, тайм-ауты и keep-alive задаются свойствами shareit-server.pool.*; keep-alive
+ * по умолчанию короче тайм-аута простоя Tomcat на сервере (20 с), чтобы шлюз не брал из пула соединение,
+ * уже закрытое сервером. Простаивающие и просроченные соединения закрывает фоновый поток клиента.
+ * Ленты запросов открыты часами и читаются без тайм-аута, поэтому у них отдельный пул: иначе подписчики
+ * заняли бы соединения обычных запросов. Метрики пулов (httpcomponents.httpclient.pool.*, в том числе
+ * число ожидающих соединения) и время получения соединения (shareit.gateway.pool.lease) видны в actuator.
+ * При shareit-server.async=true создаётся ещё и WebClient на Reactor Netty с теми же пределами и тайм-аутами:
+ * ожидание соединения и ответа в нём не занимает потоков, все запросы обслуживают
+ * shareit-server.async.io-threads потоков событий (по умолчанию по числу ядер). Метрики его пула -
+ * reactor.netty.connection.provider.*.
+ */
+@Configuration
+public class HttpClientConfig {
+
+    @Value("${shareit-server.pool.max-total:200}")
+    private int maxTotal;
+
+    @Value("${shareit-server.pool.max-per-route:200}")
+    private int maxPerRoute;
+
+    @Value("${shareit-server.pool.max-streams:1000}")
+    private int maxStreams;
+
+    @Value("${shareit-server.pool.connect-timeout:2000}")
+    private long connectTimeout;
+
+    @Value("${shareit-server.pool.read-timeout:30000}")
+    private long readTimeout;
+
+    @Value("${shareit-server.pool.lease-timeout:5000}")
+    private long leaseTimeout;
+
+    @Value("${shareit-server.pool.keep-alive:15000}")
+    private long keepAlive;
+
+    @Value("${shareit-server.pool.idle-eviction:10000}")
+    private long idleEviction;
+
+    @Value("${shareit-server.async.io-threads:0}")
+    private int ioThreads;
+
+    @Bean
+    @Primary
+    public ClientHttpRequestFactory serverRequestFactory(MeterRegistry registry) {
+        return new HttpComponentsClientHttpRequestFactory(httpClient("server", maxTotal, maxPerRoute,
+                Timeout.ofMilliseconds(readTimeout), registry));
+    }
+
+    @Bean
+    public ClientHttpRequestFactory streamRequestFactory(MeterRegistry registry) {
+        return new HttpComponentsClientHttpRequestFactory(httpClient("stream", maxStreams, maxStreams,
+                Timeout.DISABLED, registry));
+    }
+
+    /* Соединения с сервером - одного маршрута, поэтому предел пула - меньший из двух. Ожидающих соединения
+       не ограничивает очередь: их ограничивает lease-timeout, как в блокирующем пуле */
+    @Bean(destroyMethod = "dispose")
+    @ConditionalOnProperty(name = "shareit-server.async", havingValue = "true")
+    public ConnectionProvider serverConnectionProvider() {
+        return ConnectionProvider.builder("server")
+                .maxConnections(Math.min(maxTotal, maxPerRoute))
+                .pendingAcquireMaxCount(-1)
+                .pendingAcquireTimeout(Duration.ofMillis(leaseTimeout))
+                .maxIdleTime(Duration.ofMillis(keepAlive))
+                .evictInBackground(Duration.ofMillis(idleEviction))
+                .metrics(true)
+                .build();
+    }
+
+    @Bean(destroyMethod = "dispose")
+    @ConditionalOnProperty(name = "shareit-server.async", havingValue = "true")
+    public LoopResources serverLoopResources() {
+        return LoopResources.create("server-io", ioThreads > 0 ? ioThreads : LoopResources.DEFAULT_IO_WORKER_COUNT,
+                true);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "shareit-server.async", havingValue = "true")
+    public WebClient serverWebClient(WebClient.Builder builder, ConnectionProvider serverConnectionProvider,
+                                     LoopResources serverLoopResources) {
+        HttpClient httpClient = HttpClient.create(serverConnectionProvider)
+                .runOn(serverLoopResources)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout)
+                .responseTimeout(Duration.ofMillis(readTimeout));
+        return builder.clientConnector(new ReactorClientHttpConnector(httpClient)).build();
+    }
+
+    private RequestConfig requestConfig(Timeout responseTimeout) {
+        return RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.ofMilliseconds(leaseTimeout))
+                .setResponseTimeout(responseTimeout)
+                .setDefaultKeepAlive(keepAlive, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    private CloseableHttpClient httpClient(String pool, int total, int perRoute, Timeout responseTimeout,
+                                           MeterRegistry registry) {
+        InstrumentedConnectionManager connectionManager = new InstrumentedConnectionManager(
+                Timer.builder("shareit.gateway.pool.lease")
+                        .tag("pool", pool)
+                        .description("Время ожидания соединения из пула")
+                        .publishPercentileHistogram()
+                        .register(registry), Math.min(total, perRoute));
+        connectionManager.setMaxTotal(total);
+        connectionManager.setDefaultMaxPerRoute(perRoute);
+        connectionManager.setDefaultConnectionConfig(ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.ofMilliseconds(connectTimeout))
+                .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                .build());
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, pool).bindTo(registry);
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig(responseTimeout))
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofMilliseconds(idleEviction))
+                .build();
+    }
+
+    /* Пул, замеряющий время от запроса соединения до его выдачи, включая ожидание в очереди. HttpClient 5.3
+       ждёт соединение внутри synchronized-метода, и виртуальный поток занял бы поток-носитель, пока пул исчерпан.
+       Поэтому очередь вынесена в семафор на число соединений маршрута (шлюз ходит только на сервер): ждут на нём,
+       а до synchronized доходят, когда соединение уже есть. Разрешение возвращается при освобождении соединения */
+    static final class InstrumentedConnectionManager extends PoolingHttpClientConnectionManager {
+        private final Timer leaseTimer;
+        private final Semaphore permits;
+
+        InstrumentedConnectionManager(Timer leaseTimer, int connections) {
+            this.leaseTimer = leaseTimer;
+            this.permits = new Semaphore(connections, true);
+        }
+
+        @Override
+        public LeaseRequest lease(String id, HttpRoute route, Timeout requestTimeout, Object state) {
+            long started = System.nanoTime();
+            if (!acquire(requestTimeout)) {
+                leaseTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                return new LeaseRequest() {
+                    @Override
+                    public ConnectionEndpoint get(Timeout timeout) throws TimeoutException {
+                        throw new TimeoutException("Нет свободного соединения за " + requestTimeout);
+                    }
+
+                    @Override
+                    public boolean cancel() {
+                        return false;
+                    }
+                };
+            }
+            LeaseRequest lease;
+            try {
+                lease = super.lease(id, route, requestTimeout, state);
+            } catch (RuntimeException e) {
+                permits.release();
+                throw e;
+            }
+            /* Разрешение переходит к соединению или возвращается ровно один раз: при неудачном get или при отмене
+               запроса до выдачи соединения */
+            AtomicBoolean settled = new AtomicBoolean();
+            return new LeaseRequest() {
+                @Override
+                public ConnectionEndpoint get(Timeout timeout)
+                        throws InterruptedException, ExecutionException, TimeoutException {
+                    boolean leased = false;
+                    try {
+                        ConnectionEndpoint endpoint = lease.get(timeout);
+                        leased = true;
+                        settled.set(true);
+                        return endpoint;
+                    } finally {
+                        if (!leased && settled.compareAndSet(false, true)) {
+                            permits.release();
+                        }
+                        leaseTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                    }
+                }
+
+                @Override
+                public boolean cancel() {
+                    boolean cancelled = lease.cancel();
+                    if (cancelled && settled.compareAndSet(false, true)) {
+                        permits.release();
+                    }
+                    return cancelled;
+                }
+            };
+        }
+
+        @Override
+        public void release(ConnectionEndpoint endpoint, Object state, TimeValue keepAlive) {
+            try {
+                super.release(endpoint, state, keepAlive);
+            } finally {
+                permits.release();
+            }
+        }
+
+        private boolean acquire(Timeout timeout) {
+            try {
+                if (Timeout.isPositive(timeout)) {
+                    return permits.tryAcquire(timeout.toMilliseconds(), TimeUnit.MILLISECONDS);
+                }
+                permits.acquire();
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Слияние одинаковых одновременных GET-запросов к серверу: пока запрос с данным ключом выполняется,
+ * остальные вызовы с тем же ключом не идут на сервер, а получают его результат, в том числе ошибку.
+ * Запись живёт в таблице только до ответа сервера, кэшем она не является. Таблица ограничена
+ * shareit-server.coalescing.max-in-flight ключами: сверх предела запросы уходят на сервер без слияния.
+ * Каждый вызов получает свою копию future, поэтому отмена одного ожидающего не затрагивает остальных.
+ * Доля слитых запросов - gauge shareit.gateway.coalescing.collapse_ratio.
+ */
+@Component
+public class SingleFlight {
+    private final Map<String, CompletableFuture<ResponseEntity<Object>>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final boolean enabled;
+    private final int maxInFlight;
+
+    private final Counter leaders;
+    private final Counter joined;
+    private final Counter bypassed;
+
+    public SingleFlight(MeterRegistry registry,
+                        @Value("${shareit-server.coalescing.enabled:true}") boolean enabled,
+                        @Value("${shareit-server.coalescing.max-in-flight:10000}") int maxInFlight) {
+        this.enabled = enabled;
+        this.maxInFlight = maxInFlight;
+        leaders = Counter.builder("shareit.gateway.coalescing.requests").tag("result", "leader")
+                .description("GET-запросы, отправленные на сервер и разделённые с ожидающими").register(registry);
+        joined = Counter.builder("shareit.gateway.coalescing.requests").tag("result", "joined")
+                .description("GET-запросы, получившие ответ уже выполняющегося запроса").register(registry);
+        bypassed = Counter.builder("shareit.gateway.coalescing.requests").tag("result", "bypassed")
+                .description("GET-запросы, отправленные без слияния из-за заполненной таблицы").register(registry);
+        Gauge.builder("shareit.gateway.coalescing.in_flight", size, AtomicInteger::get)
+                .description("Ключи, по которым сейчас выполняется запрос").register(registry);
+        Gauge.builder("shareit.gateway.coalescing.collapse_ratio", this, SingleFlight::collapseRatio)
+                .description("Доля GET-запросов, не дошедших до сервера").register(registry);
+    }
+
+    public CompletableFuture<ResponseEntity<Object>> execute(String key,
+                                                             Supplier<CompletableFuture<ResponseEntity<Object>>> call) {
+        if (!enabled) {
+            return call.get();
+        }
+        CompletableFuture<ResponseEntity<Object>> running = inFlight.get(key);
+        if (running != null) {
+            joined.increment();
+            return running.copy();
+        }
+        if (size.incrementAndGet() > maxInFlight) {
+            size.decrementAndGet();
+            bypassed.increment();
+            return call.get();
+        }
+        CompletableFuture<ResponseEntity<Object>> promise = new CompletableFuture<>();
+        running = inFlight.putIfAbsent(key, promise);
+        if (running != null) {
+            size.decrementAndGet();
+            joined.increment();
+            return running.copy();
+        }
+        leaders.increment();
+        /* Ключ снимается до того, как ответ увидят ожидающие: новый вызов после ответа идёт на сервер */
+        try {
+            call.get().whenComplete((response, error) -> {
+                release(key, promise);
+                if (error != null) {
+                    promise.completeExceptionally(error);
+                } else {
+                    promise.complete(response);
+                }
+            });
+        } catch (RuntimeException e) {
+            release(key, promise);
+            promise.completeExceptionally(e);
+        }
+        return promise.copy();
+    }
+
+    public double collapseRatio() {
+        double total = leaders.count() + joined.count() + bypassed.count();
+        return total == 0 ? 0 : joined.count() / total;
+    }
+
+    private void release(String key, CompletableFuture<ResponseEntity<Object>> promise) {
+        if (inFlight.remove(key, promise)) {
+            size.decrementAndGet();
+        }
+    }
+}
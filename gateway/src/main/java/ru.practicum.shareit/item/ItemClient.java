@@ -1,33 +1,50 @@
 package ru.practicum.shareit.item;
 
+import jakarta.validation.ValidationException;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.http.MediaType;
+import org.springframework.lang.Nullable;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.SingleFlight;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import org.springframework.http.ResponseEntity;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 //@Service
 public class ItemClient extends BaseClient {
 
-    public ItemClient(RestTemplate rest) {
-        super(rest);
+    public ItemClient(RestTemplate rest, boolean passThrough, @Nullable WebClient webClient,
+                      SingleFlight singleFlight) {
+        super(rest, passThrough, webClient, singleFlight);
     }
 
-    public ResponseEntity<Object> saveNewItem(ItemDto itemDto, long userId) {
+    public CompletableFuture<ResponseEntity<Object>> saveNewItem(ItemDto itemDto, long userId) {
         return post("", userId, itemDto);
     }
 
-    public ResponseEntity<Object> updateItem(long itemId, ItemDto itemDto, long userId) {
+    public ResponseEntity<StreamingResponseBody> importItems(InputStream body, MediaType contentType, long userId)
+            throws IOException {
+        return upload("/bulk", userId, contentType, body);
+    }
+
+    public CompletableFuture<ResponseEntity<Object>> updateItem(long itemId, ItemDto itemDto, long userId) {
         return patch("/" + itemId, userId, itemDto);
     }
 
-    public ResponseEntity<Object> getItemById(long itemId, long userId) {
-        return get("/" + itemId, userId);
+    /* Владелец видит в ответе бронирования, поэтому ключ слияния включает пользователя */
+    public CompletableFuture<ResponseEntity<Object>> getItemById(long itemId, long userId) {
+        return getShared("/" + itemId, userId, null, true);
     }
 
-    public ResponseEntity<Object> getItemsByOwner(Integer from, Integer size, long userId) {
+    public CompletableFuture<ResponseEntity<Object>> getItemsByOwner(Integer from, Integer size, long userId) {
         Map<String, Object> parameters = Map.of(
                 "from", from,
                 "size", size
@@ -35,16 +52,45 @@ public class ItemClient extends BaseClient {
         return get("?from={from}&size={size}", userId, parameters);
     }
 
-    public ResponseEntity<Object> getItemBySearch(Integer from, Integer size, String text, long userId) {
+    public CompletableFuture<ResponseEntity<Object>> getItemBySearch(Integer from, Integer size, String text, long userId) {
         Map<String, Object> parameters = Map.of(
                 "text", text,
                 "from", from,
                 "size", size
         );
-        return get("/search?text={text}&from={from}&size={size}", userId, parameters);
+        return getShared("/search?text={text}&from={from}&size={size}", userId, parameters, false);
+    }
+
+    public CompletableFuture<ResponseEntity<Object>> searchAvailableItems(String text, LocalDateTime start, LocalDateTime end,
+                                                                          Integer size, String cursor, long userId) {
+        if (!end.isAfter(start)) {
+            throw new ValidationException("Дата начала должна быть раньше даты окончания");
+        }
+        Map<String, Object> parameters = Map.of(
+                "text", text,
+                "start", start,
+                "end", end,
+                "size", size,
+                "cursor", cursor == null ? "" : cursor
+        );
+        return getShared("/search/available?text={text}&start={start}&end={end}&size={size}&cursor={cursor}",
+                userId, parameters, false);
+    }
+
+    public CompletableFuture<ResponseEntity<Object>> getAvailability(long itemId, LocalDateTime from, LocalDateTime to, String unit,
+                                                                     long userId) {
+        if (!to.isAfter(from)) {
+            throw new ValidationException("Начало периода должно быть раньше его конца");
+        }
+        Map<String, Object> parameters = Map.of(
+                "from", from,
+                "to", to,
+                "unit", unit
+        );
+        return getShared("/" + itemId + "/availability?from={from}&to={to}&unit={unit}", userId, parameters, false);
     }
 
-    public ResponseEntity<Object> saveNewComment(long itemId, CommentDto commentDto, long userId) {
+    public CompletableFuture<ResponseEntity<Object>> saveNewComment(long itemId, CommentDto commentDto, long userId) {
         return post("/" + itemId + "/comment", userId, commentDto);
     }
 }
\ No newline at end of file
@@ -1,11 +1,14 @@
 package ru.practicum.shareit.item;
 
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.web.util.DefaultUriBuilderFactory;
+import ru.practicum.shareit.client.SingleFlight;
 
 @Configuration
 public class ItemClientConfig {
@@ -15,14 +18,18 @@ public class ItemClientConfig {
     @Value("${shareit-server.url}")
     private String serverUrl;
 
+    @Value("${shareit-server.pass-through:true}")
+    private boolean passThrough;
+
     @Bean
-    public ItemClient itemClient(RestTemplateBuilder builder) {
+    public ItemClient itemClient(RestTemplateBuilder builder, ClientHttpRequestFactory requestFactory,
+                                 ObjectProvider<WebClient> webClient, SingleFlight singleFlight) {
         var restTemplate = builder
                 .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory())
+                .requestFactory(() -> requestFactory)
                 .build();
 
-        ItemClient client = new ItemClient(restTemplate);
+        ItemClient client = new ItemClient(restTemplate, passThrough, webClient.getIfAvailable(), singleFlight);
         return client;
     }
 }
@@ -8,12 +8,20 @@ import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.utils.Create;
 import ru.practicum.shareit.utils.Update;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
 
 @Validated
 @Slf4j
@@ -24,51 +32,84 @@ public class ItemController {
     private final ItemClient itemClient;
 
     @PostMapping
-    public ResponseEntity<Object> saveNewItem(@Validated(Create.class) @RequestBody ItemDto itemDto,
-                                              @RequestHeader("X-Sharer-User-Id") long userId) {
+    public CompletableFuture<ResponseEntity<Object>> saveNewItem(@Validated(Create.class) @RequestBody ItemDto itemDto,
+                                                                 @RequestHeader("X-Sharer-User-Id") long userId) {
         log.info("POST / items {} / user {}", itemDto.getName(), userId);
         return itemClient.saveNewItem(itemDto, userId);
     }
 
+    /* Строки проверяет сервер, шлюз только передаёт тело потоком, не загружая его в память */
+    @PostMapping(path = "/bulk", consumes = {"application/x-ndjson", "text/csv"})
+    public ResponseEntity<StreamingResponseBody> importItems(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                             @RequestHeader("X-Sharer-User-Id") long userId,
+                                                             HttpServletRequest request) throws IOException {
+        log.info("POST / items / bulk {} / user {}", contentType, userId);
+        return itemClient.importItems(request.getInputStream(), contentType, userId);
+    }
+
     @PatchMapping("/{itemId}")
-    public ResponseEntity<Object> updateItem(@PathVariable long itemId,
-                                             @Validated(Update.class) @RequestBody ItemDto itemDto,
-                                             @RequestHeader("X-Sharer-User-Id") long userId) {
+    public CompletableFuture<ResponseEntity<Object>> updateItem(@PathVariable long itemId,
+                                                                @Validated(Update.class) @RequestBody ItemDto itemDto,
+                                                                @RequestHeader("X-Sharer-User-Id") long userId) {
         log.info("PATCH / items {} / user {}", itemId, userId);
         return itemClient.updateItem(itemId, itemDto, userId);
     }
 
     @GetMapping("/{itemId}")
-    public ResponseEntity<Object> getItemById(@PathVariable long itemId,
-                                              @RequestHeader("X-Sharer-User-Id") long userId) {
+    public CompletableFuture<ResponseEntity<Object>> getItemById(@PathVariable long itemId,
+                                                                 @RequestHeader("X-Sharer-User-Id") long userId) {
         log.info("GET / items {} / user {}", itemId, userId);
         return itemClient.getItemById(itemId, userId);
     }
 
     @GetMapping
-    public ResponseEntity<Object> getItemsByOwner(@RequestParam(defaultValue = "1") @PositiveOrZero Integer from,
-                                                  @RequestParam(defaultValue = "10") @Positive Integer size,
-                                                  @RequestHeader("X-Sharer-User-Id") long userId) {
+    public CompletableFuture<ResponseEntity<Object>> getItemsByOwner(@RequestParam(defaultValue = "1") @PositiveOrZero Integer from,
+                                                                     @RequestParam(defaultValue = "10") @Positive Integer size,
+                                                                     @RequestHeader("X-Sharer-User-Id") long userId) {
         log.info("GET / items / user {}", userId);
         return itemClient.getItemsByOwner(from, size, userId);
     }
 
     @GetMapping("/search")
-    public ResponseEntity<Object> getItemBySearch(@RequestParam(defaultValue = "1") @PositiveOrZero Integer from,
-                                                  @RequestParam(defaultValue = "10") @Positive Integer size,
-                                                  @RequestParam String text,
-                                                  @RequestHeader("X-Sharer-User-Id") long userId) {
+    public CompletableFuture<ResponseEntity<Object>> getItemBySearch(@RequestParam(defaultValue = "0") @PositiveOrZero Integer from,
+                                                                     @RequestParam(defaultValue = "10") @Positive Integer size,
+                                                                     @RequestParam String text,
+                                                                     @RequestHeader("X-Sharer-User-Id") long userId) {
         log.info("GET / search / {}", text);
         if (text.isBlank()) {
-            return new ResponseEntity<>(new ArrayList<>(), HttpStatus.OK);
+            return CompletableFuture.completedFuture(new ResponseEntity<>(new ArrayList<>(), HttpStatus.OK));
         }
         return itemClient.getItemBySearch(from, size, text, userId);
     }
 
+    @GetMapping("/search/available")
+    public CompletableFuture<ResponseEntity<Object>> searchAvailableItems(@RequestParam String text,
+                                                                          @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+                                                                          @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+                                                                          @RequestParam(defaultValue = "10") @Positive Integer size,
+                                                                          @RequestParam(required = false) String cursor,
+                                                                          @RequestHeader("X-Sharer-User-Id") long userId) {
+        log.info("GET / search / {} / {} - {}", text, start, end);
+        if (text.isBlank()) {
+            return CompletableFuture.completedFuture(new ResponseEntity<>(new ArrayList<>(), HttpStatus.OK));
+        }
+        return itemClient.searchAvailableItems(text, start, end, size, cursor, userId);
+    }
+
+    @GetMapping("/{itemId}/availability")
+    public CompletableFuture<ResponseEntity<Object>> getAvailability(@PathVariable long itemId,
+                                                                     @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                                     @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                                     @RequestParam(defaultValue = "HOURS") String unit,
+                                                                     @RequestHeader("X-Sharer-User-Id") long userId) {
+        log.info("GET / items {} / availability {} - {}", itemId, from, to);
+        return itemClient.getAvailability(itemId, from, to, unit, userId);
+    }
+
     @PostMapping("/{itemId}/comment")
-    public ResponseEntity<Object> saveNewComment(@PathVariable long itemId,
-                                                 @Validated(Create.class) @RequestBody CommentDto commentDto,
-                                                 @RequestHeader("X-Sharer-User-Id") long userId) {
+    public CompletableFuture<ResponseEntity<Object>> saveNewComment(@PathVariable long itemId,
+                                                                    @Validated(Create.class) @RequestBody CommentDto commentDto,
+                                                                    @RequestHeader("X-Sharer-User-Id") long userId) {
         log.info("POST / comment / item {}", itemId);
         return itemClient.saveNewComment(itemId, commentDto, userId);
     }
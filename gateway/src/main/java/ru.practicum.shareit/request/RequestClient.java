@@ -1,34 +1,106 @@
 package ru.practicum.shareit.request;
 
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 import ru.practicum.shareit.client.BaseClient;
 import ru.practicum.shareit.request.dto.RequestDto;
 import org.springframework.http.ResponseEntity;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 public class RequestClient extends BaseClient {
-    public RequestClient(RestTemplate rest) {
-        super(rest);
+    private final ClientHttpRequestFactory streamFactory;
+    private final Executor streamExecutor;
+    private final long streamTimeout;
+
+    public RequestClient(RestTemplate rest, boolean passThrough, @Nullable WebClient webClient,
+                         ClientHttpRequestFactory streamFactory, Executor streamExecutor, long streamTimeout) {
+        super(rest, passThrough, webClient);
+        this.streamFactory = streamFactory;
+        this.streamExecutor = streamExecutor;
+        this.streamTimeout = streamTimeout;
     }
 
-    public ResponseEntity<Object> saveRequest(RequestDto requestDto, long userId) {
+    public CompletableFuture<ResponseEntity<Object>> saveRequest(RequestDto requestDto, long userId) {
         return post("", userId, requestDto);
     }
 
-    public ResponseEntity<Object> getRequestsByRequestor(long userId) {
+    public CompletableFuture<ResponseEntity<Object>> getRequestsByRequestor(long userId) {
         return get("", userId);
     }
 
-    public ResponseEntity<Object> getAllRequests(Integer from, Integer size, long userId) {
+    public CompletableFuture<ResponseEntity<Object>> getAllRequests(String cursor, Integer size, long userId) {
         Map<String, Object> parameters = Map.of(
-                "from", from,
-                "size", size
+                "size", size,
+                "cursor", cursor == null ? "" : cursor
         );
-        return get("/all?from={from}&size={size}", userId, parameters);
+        return get("/all?size={size}&cursor={cursor}", userId, parameters);
+    }
+
+    /* Поток событий сервера передаётся клиенту по мере поступления, без разбора и буферизации;
+       соединение берётся из отдельного пула лент без тайм-аута чтения. Тайм-аут и поток копирования
+       у ленты свои, общие настройки асинхронных ответов MVC её не касаются */
+    public ResponseEntity<ResponseBodyEmitter> getRequestStream(long userId, @Nullable String lastEventId)
+            throws IOException {
+        ClientHttpRequest request = streamFactory
+                .createRequest(rest.getUriTemplateHandler().expand("/stream"), HttpMethod.GET);
+        request.getHeaders().setAccept(List.of(MediaType.TEXT_EVENT_STREAM));
+        request.getHeaders().set("X-Sharer-User-Id", String.valueOf(userId));
+        if (lastEventId != null) {
+            request.getHeaders().set("Last-Event-ID", lastEventId);
+        }
+        ClientHttpResponse response = request.execute();
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            try (response) {
+                ResponseBodyEmitter emitter = new ResponseBodyEmitter();
+                emitter.send(StreamUtils.copyToByteArray(response.getBody()), MediaType.APPLICATION_JSON);
+                emitter.complete();
+                return ResponseEntity.status(response.getStatusCode())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(emitter);
+            }
+        }
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(streamTimeout);
+        /* При тайм-ауте или отключении клиента закрытое соединение прерывает чтение в потоке копирования */
+        emitter.onCompletion(response::close);
+        emitter.onTimeout(response::close);
+        emitter.onError(e -> response.close());
+        streamExecutor.execute(() -> relay(response, emitter));
+        return ResponseEntity.ok()
+                .contentType(MediaType.TEXT_EVENT_STREAM)
+                .body(emitter);
     }
 
-    public ResponseEntity<Object> getRequestById(long requestId, long userId) {
+    public CompletableFuture<ResponseEntity<Object>> getRequestById(long requestId, long userId) {
         return get("/" + requestId, userId);
     }
-}
\ No newline at end of file
+
+    /* Ошибка записи или чтения означает, что одна из сторон отключилась: лента просто завершается,
+       и клиент переподключается с Last-Event-ID */
+    private static void relay(ClientHttpResponse response, ResponseBodyEmitter emitter) {
+        try (response; InputStream in = response.getBody()) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                emitter.send(Arrays.copyOf(buffer, read), MediaType.TEXT_EVENT_STREAM);
+            }
+        } catch (IOException | IllegalStateException ignored) {
+            /* соединение уже закрыто */
+        }
+        emitter.complete();
+    }
+}
@@ -1,10 +1,14 @@
 package ru.practicum.shareit.request;
 
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 
 @Configuration
@@ -15,14 +19,34 @@ public class RequestClientConfig {
     @Value("${shareit-server.url}")
     private String serverUrl;
 
+    @Value("${shareit-server.pass-through:true}")
+    private boolean passThrough;
+
+    @Value("${shareit.request.stream.timeout:1800000}")
+    private long streamTimeout;
+
+    @Value("${shareit-server.pool.max-streams:1000}")
+    private int maxStreams;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
     @Bean
-    public RequestClient requestClient(RestTemplateBuilder builder) {
+    public RequestClient requestClient(RestTemplateBuilder builder, ClientHttpRequestFactory requestFactory,
+                                       ObjectProvider<WebClient> webClient,
+                                       @Qualifier("streamRequestFactory") ClientHttpRequestFactory streamFactory) {
         var restTemplate = builder
                 .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory())
+                .requestFactory(() -> requestFactory)
                 .build();
 
-        RequestClient client = new RequestClient(restTemplate);
+        /* Каждая открытая лента занимает поток, читающий ответ сервера; потоков не больше, чем соединений пула лент */
+        SimpleAsyncTaskExecutor streamExecutor = new SimpleAsyncTaskExecutor("request-stream-");
+        streamExecutor.setVirtualThreads(virtualThreads);
+        streamExecutor.setConcurrencyLimit(maxStreams);
+
+        RequestClient client = new RequestClient(restTemplate, passThrough, webClient.getIfAvailable(), streamFactory,
+                streamExecutor, streamTimeout);
         return client;
     }
 }
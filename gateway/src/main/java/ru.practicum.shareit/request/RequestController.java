@@ -1,14 +1,18 @@
 package ru.practicum.shareit.request;
 
 import jakarta.validation.constraints.Positive;
-import jakarta.validation.constraints.PositiveOrZero;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import ru.practicum.shareit.request.dto.RequestDto;
 import ru.practicum.shareit.utils.Create;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 @Validated
 @Slf4j
@@ -19,29 +23,37 @@ public class RequestController {
     private final RequestClient requestClient;
 
     @PostMapping
-    public ResponseEntity<Object> saveNewRequest(@Validated(Create.class) @RequestBody RequestDto requestDto,
-                                                 @RequestHeader("X-Sharer-User-Id") long userId) {
+    public CompletableFuture<ResponseEntity<Object>> saveNewRequest(@Validated(Create.class) @RequestBody RequestDto requestDto,
+                                                                    @RequestHeader("X-Sharer-User-Id") long userId) {
         log.info("POST / requests {} / user {}", requestDto.getDescription(), userId);
         return requestClient.saveRequest(requestDto, userId);
     }
 
     @GetMapping
-    public ResponseEntity<Object> getRequestsByRequestor(@RequestHeader("X-Sharer-User-Id") long userId) {
+    public CompletableFuture<ResponseEntity<Object>> getRequestsByRequestor(@RequestHeader("X-Sharer-User-Id") long userId) {
         log.info("GET / requests / requestor {}", userId);
         return requestClient.getRequestsByRequestor(userId);
     }
 
     @GetMapping("/all")
-    public ResponseEntity<Object> getAllRequests(@RequestParam(defaultValue = "1") @PositiveOrZero Integer from,
-                                                 @RequestParam(defaultValue = "10") @Positive Integer size,
-                                                 @RequestHeader("X-Sharer-User-Id") long userId) {
+    public CompletableFuture<ResponseEntity<Object>> getAllRequests(@RequestParam(required = false) String cursor,
+                                                                    @RequestParam(defaultValue = "10") @Positive Integer size,
+                                                                    @RequestHeader("X-Sharer-User-Id") long userId) {
         log.info("GET / requests");
-        return requestClient.getAllRequests(from, size, userId);
+        return requestClient.getAllRequests(cursor, size, userId);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<ResponseBodyEmitter> getRequestStream(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                                  @RequestHeader(value = "Last-Event-ID", required = false)
+                                                                  String lastEventId) throws IOException {
+        log.info("GET / requests / stream / user {} / last event {}", userId, lastEventId);
+        return requestClient.getRequestStream(userId, lastEventId);
     }
 
     @GetMapping("/{requestId}")
-    public ResponseEntity<Object> getRequestById(@PathVariable long requestId,
-                                                 @RequestHeader("X-Sharer-User-Id") long userId) {
+    public CompletableFuture<ResponseEntity<Object>> getRequestById(@PathVariable long requestId,
+                                                                    @RequestHeader("X-Sharer-User-Id") long userId) {
         log.info("GET / request {} / user {}", requestId, userId);
         return requestClient.getRequestById(requestId, userId);
     }
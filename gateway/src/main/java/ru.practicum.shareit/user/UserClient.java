@@ -1,32 +1,45 @@
 package ru.practicum.shareit.user;
 
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.http.MediaType;
+import org.springframework.lang.Nullable;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.shareit.client.BaseClient;
 import ru.practicum.shareit.user.dto.UserDto;
 import org.springframework.http.ResponseEntity;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+
 public class UserClient extends BaseClient {
-    public UserClient(RestTemplate rest) {
-        super(rest);
+    public UserClient(RestTemplate rest, boolean passThrough, @Nullable WebClient webClient) {
+        super(rest, passThrough, webClient);
     }
 
-    public ResponseEntity<Object> getAllUsers() {
+    public CompletableFuture<ResponseEntity<Object>> getAllUsers() {
         return get("");
     }
 
-    public ResponseEntity<Object> getUserById(long userId) {
+    public CompletableFuture<ResponseEntity<Object>> getUserById(long userId) {
         return get("/" + userId);
     }
 
-    public ResponseEntity<Object> saveNewUser(UserDto userDto) {
+    public CompletableFuture<ResponseEntity<Object>> saveNewUser(UserDto userDto) {
         return post("", userDto);
     }
 
-    public ResponseEntity<Object> updateUser(long userId, UserDto userDto) {
+    public ResponseEntity<StreamingResponseBody> importUsers(InputStream body, MediaType contentType)
+            throws IOException {
+        return upload("/bulk", null, contentType, body);
+    }
+
+    public CompletableFuture<ResponseEntity<Object>> updateUser(long userId, UserDto userDto) {
         return patch("/" + userId, userId, userDto);
     }
 
-    public ResponseEntity<Object> deleteUser(long userId) {
+    public CompletableFuture<ResponseEntity<Object>> deleteUser(long userId) {
         return delete("/" + userId);
     }
 }
\ No newline at end of file
@@ -1,10 +1,12 @@
 package ru.practicum.shareit.user;
 
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 
 @Configuration
@@ -15,14 +17,18 @@ public class UserClientConfig {
     @Value("${shareit-server.url}")
     private String serverUrl;
 
+    @Value("${shareit-server.pass-through:true}")
+    private boolean passThrough;
+
     @Bean
-    public UserClient userClient(RestTemplateBuilder builder) {
+    public UserClient userClient(RestTemplateBuilder builder, ClientHttpRequestFactory requestFactory,
+                                 ObjectProvider<WebClient> webClient) {
         var restTemplate = builder
                 .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory())
+                .requestFactory(() -> requestFactory)
                 .build();
 
-        UserClient client = new UserClient(restTemplate);
+        UserClient client = new UserClient(restTemplate, passThrough, webClient.getIfAvailable());
         return client;
     }
 }
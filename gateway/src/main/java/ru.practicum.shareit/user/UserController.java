@@ -1,13 +1,20 @@
 package ru.practicum.shareit.user;
 
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.utils.Create;
 import ru.practicum.shareit.utils.Update;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @RequiredArgsConstructor
@@ -17,32 +24,40 @@ public class UserController {
     private final UserClient userClient;
 
     @GetMapping
-    public ResponseEntity<Object> getAllUsers() {
+    public CompletableFuture<ResponseEntity<Object>> getAllUsers() {
         log.info("GET / users");
         return userClient.getAllUsers();
     }
 
     @GetMapping("/{userId}")
-    public ResponseEntity<Object> getUserById(@PathVariable long userId) {
+    public CompletableFuture<ResponseEntity<Object>> getUserById(@PathVariable long userId) {
         log.info("GET / users / {}", userId);
         return userClient.getUserById(userId);
     }
 
     @PostMapping
-    public ResponseEntity<Object> saveNewUser(@Validated(Create.class) @RequestBody UserDto userDto) {
+    public CompletableFuture<ResponseEntity<Object>> saveNewUser(@Validated(Create.class) @RequestBody UserDto userDto) {
         log.info("POST / users / {} / {}", userDto.getName(), userDto.getEmail());
         return userClient.saveNewUser(userDto);
     }
 
+    /* Строки проверяет сервер, шлюз только передаёт тело потоком, не загружая его в память */
+    @PostMapping(path = "/bulk", consumes = {"application/x-ndjson", "text/csv"})
+    public ResponseEntity<StreamingResponseBody> importUsers(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                             HttpServletRequest request) throws IOException {
+        log.info("POST / users / bulk {}", contentType);
+        return userClient.importUsers(request.getInputStream(), contentType);
+    }
+
     @PatchMapping("/{userId}")
-    public ResponseEntity<Object> updateUser(@PathVariable long userId,
-                                             @Validated(Update.class) @RequestBody UserDto userDto) {
+    public CompletableFuture<ResponseEntity<Object>> updateUser(@PathVariable long userId,
+                                                                @Validated(Update.class) @RequestBody UserDto userDto) {
         log.info("PATCH / users / {}", userId);
         return userClient.updateUser(userId, userDto);
     }
 
     @DeleteMapping("/{userId}")
-    public ResponseEntity<Object> deleteUser(@PathVariable long userId) {
+    public CompletableFuture<ResponseEntity<Object>> deleteUser(@PathVariable long userId) {
         log.info("DELETE / users / {}", userId);
         return userClient.deleteUser(userId);
     }
@@ -0,0 +1,67 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.io.ConnectionEndpoint;
+import org.apache.hc.client5.http.io.LeaseRequest;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InstrumentedConnectionManagerTest {
+    private static final HttpRoute ROUTE = new HttpRoute(new HttpHost("localhost", 9090));
+    private static final Timeout TIMEOUT = Timeout.ofMilliseconds(200);
+
+    private final HttpClientConfig.InstrumentedConnectionManager connectionManager =
+            new HttpClientConfig.InstrumentedConnectionManager(
+                    Timer.builder("lease").register(new SimpleMeterRegistry()), 2);
+
+    @AfterEach
+    void tearDown() {
+        connectionManager.close();
+    }
+
+    /* Пул уже семафора: второе разрешение выдано, а соединения в пуле нет, и запрос можно отменить до get */
+    @Test
+    void cancelledLeaseReturnsPermit() throws Exception {
+        connectionManager.setDefaultMaxPerRoute(1);
+        ConnectionEndpoint first = connectionManager.lease("1", ROUTE, TIMEOUT, null).get(TIMEOUT);
+        LeaseRequest waiting = connectionManager.lease("2", ROUTE, TIMEOUT, null);
+
+        assertThat(waiting.cancel()).isTrue();
+        assertThat(waiting.cancel()).isFalse();
+        connectionManager.release(first, null, TimeValue.ZERO_MILLISECONDS);
+        connectionManager.setDefaultMaxPerRoute(2);
+
+        ConnectionEndpoint second = connectionManager.lease("3", ROUTE, TIMEOUT, null).get(TIMEOUT);
+        ConnectionEndpoint third = connectionManager.lease("4", ROUTE, TIMEOUT, null).get(TIMEOUT);
+        assertThat(second).isNotNull();
+        assertThat(third).isNotNull();
+    }
+
+    @Test
+    void failedLeaseReturnsPermitOnce() throws Exception {
+        connectionManager.setDefaultMaxPerRoute(1);
+        ConnectionEndpoint first = connectionManager.lease("1", ROUTE, TIMEOUT, null).get(TIMEOUT);
+        LeaseRequest waiting = connectionManager.lease("2", ROUTE, TIMEOUT, null);
+
+        assertThatThrownBy(() -> waiting.get(TIMEOUT)).isInstanceOf(TimeoutException.class);
+        waiting.cancel();
+        connectionManager.release(first, null, TimeValue.ZERO_MILLISECONDS);
+
+        /* Лишнее разрешение пропустило бы третий запрос мимо семафора */
+        connectionManager.setDefaultMaxPerRoute(3);
+        connectionManager.lease("3", ROUTE, TIMEOUT, null).get(TIMEOUT);
+        connectionManager.lease("4", ROUTE, TIMEOUT, null).get(TIMEOUT);
+        assertThatThrownBy(() -> connectionManager.lease("5", ROUTE, TIMEOUT, null).get(TIMEOUT))
+                .isInstanceOf(TimeoutException.class);
+    }
+}
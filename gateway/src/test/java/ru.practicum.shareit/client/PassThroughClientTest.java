@@ -0,0 +1,126 @@
+package ru.practicum.shareit.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.converter.ResourceHttpMessageConverter;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.DefaultUriBuilderFactory;
+import ru.practicum.shareit.user.UserClient;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Режим pass-through на заглушке сервера: статус, заголовки и тело ответа передаются как есть,
+ * а после записи тела в ответ шлюза соединение возвращается в пул.
+ */
+class PassThroughClientTest {
+    private static final String USER = "{\"id\":1,\"name\":\"user\",\"email\":\"user@mail.ru\"}";
+    private static final String NOT_FOUND = "{\"error\":\"Пользователь 2 не найден\"}";
+
+    private HttpServer server;
+    private PoolingHttpClientConnectionManager connectionManager;
+    private CloseableHttpClient httpClient;
+    private UserClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/users", this::handle);
+        server.start();
+        connectionManager = new PoolingHttpClientConnectionManager();
+        httpClient = HttpClients.custom().setConnectionManager(connectionManager).build();
+        RestTemplate rest = new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+        rest.setUriTemplateHandler(new DefaultUriBuilderFactory(
+                "http://localhost:" + server.getAddress().getPort() + "/users"));
+        client = new UserClient(rest, true, null);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        httpClient.close();
+        server.stop(0);
+    }
+
+    @Test
+    void successfulResponseIsRelayedAsIs() throws IOException {
+        ResponseEntity<Object> response = client.getUserById(1).join();
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_TYPE)).isEqualTo("application/json");
+        assertThat(response.getHeaders().getFirst("X-Server")).isEqualTo("stub");
+        assertThat(response.getHeaders()).doesNotContainKey(HttpHeaders.TRANSFER_ENCODING);
+        assertThat(write(response)).isEqualTo(USER);
+    }
+
+    @Test
+    void errorResponseKeepsStatusAndBody() throws IOException {
+        ResponseEntity<Object> response = client.getUserById(2).join();
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(write(response)).isEqualTo(NOT_FOUND);
+    }
+
+    @Test
+    void emptyBodyIsRelayedAsEmpty() throws IOException {
+        ResponseEntity<Object> response = client.deleteUser(3).join();
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(write(response)).isEmpty();
+    }
+
+    @Test
+    void connectionReturnsToPoolAfterBodyIsWritten() throws IOException {
+        write(client.getUserById(1).join());
+        write(client.getUserById(2).join());
+        write(client.deleteUser(3).join());
+        write(client.saveNewUser(UserDto.builder().name("user").email("user@mail.ru").build()).join());
+
+        assertThat(connectionManager.getTotalStats().getLeased()).isZero();
+        assertThat(connectionManager.getTotalStats().getAvailable()).isEqualTo(1);
+    }
+
+    /* Тело пишет в ответ шлюза тот же конвертер, что и Spring MVC; он же закрывает поток */
+    private static String write(ResponseEntity<Object> response) throws IOException {
+        assertThat(response.getBody()).isInstanceOf(InputStreamResource.class);
+        MockHttpOutputMessage out = new MockHttpOutputMessage();
+        new ResourceHttpMessageConverter().write((InputStreamResource) response.getBody(), null, out);
+        return out.getBodyAsString(StandardCharsets.UTF_8);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        exchange.getRequestBody().readAllBytes();
+        String path = exchange.getRequestURI().getPath();
+        exchange.getResponseHeaders().set("X-Server", "stub");
+        if ("DELETE".equals(exchange.getRequestMethod())) {
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+            return;
+        }
+        exchange.getResponseHeaders().set(HttpHeaders.CONTENT_TYPE, "application/json");
+        boolean found = !path.endsWith("/2");
+        byte[] body = (found ? USER : NOT_FOUND).getBytes(StandardCharsets.UTF_8);
+        /* Длина 0 - ответ chunked, заголовок Transfer-Encoding шлюз переносить не должен */
+        exchange.sendResponseHeaders(found ? 200 : 404, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+    private static final ResponseEntity<Object> RESPONSE = ResponseEntity.ok("item");
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final SingleFlight singleFlight = new SingleFlight(registry, true, 2);
+    private final AtomicInteger calls = new AtomicInteger();
+    private final CompletableFuture<ResponseEntity<Object>> upstream = new CompletableFuture<>();
+
+    /* Ответ сервера придёт, только когда тест завершит upstream */
+    private final Supplier<CompletableFuture<ResponseEntity<Object>>> call = () -> {
+        calls.incrementAndGet();
+        return upstream;
+    };
+
+    @Test
+    void concurrentCallersShareOneUpstreamCall() throws Exception {
+        int callers = 32;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<CompletableFuture<ResponseEntity<Object>>>> submitted = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < callers; i++) {
+                submitted.add(executor.submit(() -> {
+                    start.await();
+                    return singleFlight.execute("GET /items/1", call);
+                }));
+            }
+            start.countDown();
+            List<CompletableFuture<ResponseEntity<Object>>> results = new ArrayList<>();
+            for (Future<CompletableFuture<ResponseEntity<Object>>> future : submitted) {
+                results.add(future.get());
+            }
+            upstream.complete(RESPONSE);
+
+            for (CompletableFuture<ResponseEntity<Object>> result : results) {
+                assertThat(result.join()).isSameAs(RESPONSE);
+            }
+        }
+        assertThat(calls).hasValue(1);
+        assertThat(count("leader")).isEqualTo(1);
+        assertThat(count("joined")).isEqualTo(callers - 1);
+    }
+
+    @Test
+    void errorReachesEveryWaiter() {
+        CompletableFuture<ResponseEntity<Object>> first = singleFlight.execute("GET /items/1", call);
+        CompletableFuture<ResponseEntity<Object>> second = singleFlight.execute("GET /items/1", call);
+        IllegalStateException error = new IllegalStateException("Сервер недоступен");
+
+        upstream.completeExceptionally(error);
+
+        assertThatThrownBy(first::join).isInstanceOf(CompletionException.class).hasCause(error);
+        assertThatThrownBy(second::join).isInstanceOf(CompletionException.class).hasCause(error);
+        assertThat(calls).hasValue(1);
+        assertThat(inFlight()).isZero();
+    }
+
+    @Test
+    void callsOverMaxInFlightBypassCoalescing() {
+        singleFlight.execute("GET /items/1", call);
+        singleFlight.execute("GET /items/2", call);
+
+        singleFlight.execute("GET /items/3", call);
+        singleFlight.execute("GET /items/3", call);
+
+        assertThat(calls).hasValue(4);
+        assertThat(count("bypassed")).isEqualTo(2);
+        assertThat(inFlight()).isEqualTo(2);
+        upstream.complete(RESPONSE);
+        assertThat(inFlight()).isZero();
+    }
+
+    @Test
+    void keyIsReleasedAfterCompletion() {
+        singleFlight.execute("GET /items/1", call);
+        upstream.complete(RESPONSE);
+
+        assertThat(inFlight()).isZero();
+        assertThat(singleFlight.execute("GET /items/1", call).join()).isSameAs(RESPONSE);
+        assertThat(calls).hasValue(2);
+        assertThat(count("joined")).isZero();
+    }
+
+    @Test
+    void keyIsReleasedWhenSupplierThrows() {
+        IllegalStateException error = new IllegalStateException("Нет соединения");
+
+        CompletableFuture<ResponseEntity<Object>> failed = singleFlight.execute("GET /items/1", () -> {
+            throw error;
+        });
+
+        assertThatThrownBy(failed::join).isInstanceOf(CompletionException.class).hasCause(error);
+        assertThat(inFlight()).isZero();
+        singleFlight.execute("GET /items/1", call);
+        assertThat(calls).hasValue(1);
+        assertThat(count("leader")).isEqualTo(2);
+    }
+
+    @Test
+    void cancellingOneWaiterDoesNotCancelOthers() {
+        CompletableFuture<ResponseEntity<Object>> cancelled = singleFlight.execute("GET /items/1", call);
+        CompletableFuture<ResponseEntity<Object>> waiting = singleFlight.execute("GET /items/1", call);
+
+        cancelled.cancel(true);
+        upstream.complete(RESPONSE);
+
+        assertThat(cancelled).isCancelled();
+        assertThat(upstream).isNotCancelled();
+        assertThat(waiting.join()).isSameAs(RESPONSE);
+    }
+
+    @Test
+    void gaugesReturnToExpectedValues() {
+        assertThat(collapseRatio()).isZero();
+        singleFlight.execute("GET /items/1", call);
+        singleFlight.execute("GET /items/1", call);
+        singleFlight.execute("GET /items/1", call);
+        singleFlight.execute("GET /items/2", call);
+
+        assertThat(inFlight()).isEqualTo(2);
+        upstream.complete(RESPONSE);
+
+        assertThat(inFlight()).isZero();
+        assertThat(collapseRatio()).isEqualTo(0.5);
+        assertThat(singleFlight.collapseRatio()).isEqualTo(0.5);
+    }
+
+    @Test
+    void disabledSingleFlightCallsServerEveryTime() {
+        SingleFlight disabled = new SingleFlight(new SimpleMeterRegistry(), false, 2);
+
+        disabled.execute("GET /items/1", call);
+        disabled.execute("GET /items/1", call);
+
+        assertThat(calls).hasValue(2);
+    }
+
+    private double count(String result) {
+        return registry.get("shareit.gateway.coalescing.requests").tag("result", result).counter().count();
+    }
+
+    private double inFlight() {
+        return registry.get("shareit.gateway.coalescing.in_flight").gauge().value();
+    }
+
+    private double collapseRatio() {
+        return registry.get("shareit.gateway.coalescing.collapse_ratio").gauge().value();
+    }
+}
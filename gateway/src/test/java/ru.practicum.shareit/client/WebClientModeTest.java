@@ -0,0 +1,114 @@
+package ru.practicum.shareit.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.DefaultUriBuilderFactory;
+import ru.practicum.shareit.user.UserClient;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Неблокирующий режим на заглушке сервера: ответ приходит через WebClient, статус, заголовки и тело
+ * передаются как есть, тело запроса уходит серверу в JSON.
+ */
+class WebClientModeTest {
+    private static final String USER = "{\"id\":1,\"name\":\"user\",\"email\":\"user@mail.ru\"}";
+    private static final String NOT_FOUND = "{\"error\":\"Пользователь 2 не найден\"}";
+
+    private HttpServer server;
+    private UserClient client;
+    private volatile String received;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/users", this::handle);
+        server.start();
+        RestTemplate rest = new RestTemplate();
+        rest.setUriTemplateHandler(new DefaultUriBuilderFactory(
+                "http://localhost:" + server.getAddress().getPort() + "/users"));
+        client = new UserClient(rest, true, WebClient.create());
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void responseIsRelayedAsIs() {
+        ResponseEntity<Object> response = client.getUserById(1).join();
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getFirst("X-Server")).isEqualTo("stub");
+        assertThat(response.getHeaders()).doesNotContainKey(HttpHeaders.TRANSFER_ENCODING);
+        assertThat(new String((byte[]) response.getBody(), StandardCharsets.UTF_8)).isEqualTo(USER);
+    }
+
+    @Test
+    void errorResponseKeepsStatusAndBody() {
+        ResponseEntity<Object> response = client.getUserById(2).join();
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(new String((byte[]) response.getBody(), StandardCharsets.UTF_8)).isEqualTo(NOT_FOUND);
+    }
+
+    @Test
+    void emptyBodyIsRelayedAsEmpty() {
+        ResponseEntity<Object> response = client.deleteUser(3).join();
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat((byte[]) response.getBody()).isEmpty();
+    }
+
+    @Test
+    void requestBodyIsSentAsJson() {
+        client.saveNewUser(UserDto.builder().name("user").email("user@mail.ru").build()).join();
+
+        assertThat(received).contains("\"name\":\"user\"", "\"email\":\"user@mail.ru\"");
+    }
+
+    @Test
+    void unreachableServerIsResourceAccessError() {
+        server.stop(0);
+
+        assertThatThrownBy(() -> client.getUserById(1).join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(ResourceAccessException.class);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        received = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        String path = exchange.getRequestURI().getPath();
+        exchange.getResponseHeaders().set("X-Server", "stub");
+        if ("DELETE".equals(exchange.getRequestMethod())) {
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+            return;
+        }
+        exchange.getResponseHeaders().set(HttpHeaders.CONTENT_TYPE, "application/json");
+        boolean found = !path.endsWith("/2");
+        byte[] body = (found ? USER : NOT_FOUND).getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(found ? 200 : 404, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -1,12 +1,15 @@
 package ru.practicum.shareit.booking.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingDtoOut;
+import ru.practicum.shareit.booking.dto.BookingDtoPage;
 import ru.practicum.shareit.booking.service.BookingService;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.page.CursorCodec;
 
 import java.util.List;
 
@@ -34,14 +37,27 @@ public class BookingController {
     }
 
     @GetMapping
-    public List<BookingDtoOut> getAllByBookerId(@RequestParam(name = "state", defaultValue = "ALL") String state,
-                                                @RequestHeader("X-Sharer-User-Id") long bookerId) throws ValidationException, NotFoundException {
-        return bookingService.getAllByBookerId(state, bookerId);
+    public ResponseEntity<List<BookingDtoOut>> getAllByBookerId(@RequestParam(name = "state", defaultValue = "ALL") String state,
+                                                                @RequestParam(defaultValue = "10") Integer size,
+                                                                @RequestParam(required = false) String cursor,
+                                                                @RequestHeader("X-Sharer-User-Id") long bookerId) throws ValidationException, NotFoundException {
+        return toResponse(bookingService.getAllByBookerId(state, bookerId, size, cursor));
     }
 
     @GetMapping("/owner")
-    public List<BookingDtoOut> getAllByOwnerId(@RequestParam(name = "state", defaultValue = "ALL") String state,
-                                               @RequestHeader("X-Sharer-User-Id") long ownerId) throws ValidationException, NotFoundException {
-        return bookingService.getAllByOwnerId(ownerId, state);
+    public ResponseEntity<List<BookingDtoOut>> getAllByOwnerId(@RequestParam(name = "state", defaultValue = "ALL") String state,
+                                                               @RequestParam(defaultValue = "10") Integer size,
+                                                               @RequestParam(required = false) String cursor,
+                                                               @RequestHeader("X-Sharer-User-Id") long ownerId) throws ValidationException, NotFoundException {
+        return toResponse(bookingService.getAllByOwnerId(ownerId, state, size, cursor));
+    }
+
+    /* Токен следующей страницы передаётся в заголовке, тело ответа остаётся списком */
+    private static ResponseEntity<List<BookingDtoOut>> toResponse(BookingDtoPage page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNext() != null) {
+            response.header(CursorCodec.NEXT_CURSOR_HEADER, page.getNext());
+        }
+        return response.body(page.getBookings());
     }
 }
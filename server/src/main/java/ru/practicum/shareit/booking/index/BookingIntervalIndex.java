@@ -0,0 +1,192 @@
+package ru.practicum.shareit.booking.index;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.enums.Statuses;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Индекс активных (WAITING и APPROVED) бронирований по вещам для проверки пересечения дат за O(log n).
+ * Дерево вещи загружается из базы при первом обращении. Все операции с вещью выполняются под её
+ * блокировкой из {@link #lockFor(Long)}: блокировки распределены по полосам, чтобы бронирования
+ * разных вещей не ждали друг друга. Индекс локален для процесса. Раз в shareit.booking.interval.sweep-interval
+ * мс фоновый поток убирает из деревьев закончившиеся бронирования, как их не загрузил бы и запрос к базе,
+ * а деревья вещей, к которым не обращались дольше shareit.booking.interval.idle-timeout мс, выгружает.
+ * Тайм-аут простоя намного длиннее транзакции, поэтому выгружается только дерево, в котором нет
+ * добавленных, но ещё не зафиксированных бронирований.
+ */
+@Slf4j
+@Component
+public class BookingIntervalIndex {
+    private static final List<Statuses> ACTIVE = List.of(Statuses.WAITING, Statuses.APPROVED);
+    private static final int STRIPES = 64;
+
+    private final BookingRepository bookingRepository;
+    private final long idleTimeoutNanos;
+    private final Map<Long, ItemTree> trees = new ConcurrentHashMap<>();
+    private final Lock[] stripes = createStripes();
+    private ScheduledExecutorService sweeper;
+
+    /* Дерево вещи и время последнего обращения к нему; оба меняются только под блокировкой вещи */
+    private static final class ItemTree {
+        final IntervalTree tree;
+        long lastUsed;
+
+        ItemTree(IntervalTree tree) {
+            this.tree = tree;
+        }
+    }
+
+    @Autowired
+    public BookingIntervalIndex(BookingRepository bookingRepository,
+                                @Value("${shareit.booking.interval.idle-timeout:600000}") long idleTimeout,
+                                @Value("${shareit.booking.interval.sweep-interval:60000}") long sweepInterval) {
+        this(bookingRepository, idleTimeout);
+        if (sweepInterval > 0) {
+            sweeper = Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform().name("booking-interval-sweeper").daemon(true).factory());
+            sweeper.scheduleWithFixedDelay(this::sweep, sweepInterval, sweepInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    BookingIntervalIndex(BookingRepository bookingRepository, long idleTimeout) {
+        this.bookingRepository = bookingRepository;
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeout);
+    }
+
+    private static Lock[] createStripes() {
+        Lock[] locks = new Lock[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        return locks;
+    }
+
+    public Lock lockFor(Long itemId) {
+        return stripes[Math.floorMod(Long.hashCode(itemId), stripes.length)];
+    }
+
+    public boolean hasOverlap(Long itemId, LocalDateTime start, LocalDateTime end, Long excludeBookingId) {
+        return tree(itemId).overlaps(start, end, excludeBookingId == null ? Long.MIN_VALUE : excludeBookingId);
+    }
+
+    /* Добавляет бронирование; при откате транзакции запись убирается */
+    public void add(Booking booking) {
+        tree(booking.getItem().getId()).insert(booking.getId(), booking.getStart(), booking.getEnd());
+        afterRollback(() -> discard(booking));
+    }
+
+    /* Убирает бронирование; при откате транзакции запись возвращается */
+    public void remove(Booking booking) {
+        if (tree(booking.getItem().getId()).remove(booking.getId(), booking.getStart())) {
+            afterRollback(() -> restore(booking));
+        }
+    }
+
+    int size() {
+        return trees.size();
+    }
+
+    /* Вызывается под блокировкой вещи, поэтому загрузка одного дерева не выполняется дважды */
+    private IntervalTree tree(Long itemId) {
+        ItemTree entry = trees.get(itemId);
+        if (entry == null) {
+            entry = new ItemTree(load(itemId));
+            trees.put(itemId, entry);
+        }
+        entry.lastUsed = System.nanoTime();
+        return entry.tree;
+    }
+
+    /* Занятую блокировку вещи не ждёт: её дерево используется сейчас и будет обработано в следующий раз */
+    void sweep() {
+        long now = System.nanoTime();
+        LocalDateTime moment = LocalDateTime.now();
+        int evicted = 0;
+        int pruned = 0;
+        for (Map.Entry<Long, ItemTree> entry : trees.entrySet()) {
+            Lock lock = lockFor(entry.getKey());
+            if (!lock.tryLock()) {
+                continue;
+            }
+            try {
+                ItemTree item = entry.getValue();
+                if (now - item.lastUsed >= idleTimeoutNanos) {
+                    trees.remove(entry.getKey(), item);
+                    evicted++;
+                } else {
+                    pruned += item.tree.removeEndedBy(moment);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        log.debug("Индекс бронирований: выгружено деревьев {}, удалено закончившихся бронирований {}",
+                evicted, pruned);
+    }
+
+    private IntervalTree load(Long itemId) {
+        IntervalTree tree = new IntervalTree();
+        for (Booking booking : bookingRepository.findAllByItemIdAndStatusInAndEndAfter(itemId, ACTIVE,
+                LocalDateTime.now())) {
+            tree.insert(booking.getId(), booking.getStart(), booking.getEnd());
+        }
+        return tree;
+    }
+
+    private void discard(Booking booking) {
+        withLock(booking, () -> tree(booking.getItem().getId()).remove(booking.getId(), booking.getStart()));
+    }
+
+    private void restore(Booking booking) {
+        withLock(booking, () -> tree(booking.getItem().getId())
+                .insert(booking.getId(), booking.getStart(), booking.getEnd()));
+    }
+
+    private void withLock(Booking booking, Runnable action) {
+        Lock lock = lockFor(booking.getItem().getId());
+        lock.lock();
+        try {
+            action.run();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void afterRollback(Runnable compensation) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    compensation.run();
+                }
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+    }
+}
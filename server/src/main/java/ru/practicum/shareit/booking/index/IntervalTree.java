@@ -0,0 +1,191 @@
+package ru.practicum.shareit.booking.index;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * AVL-дерево полуоткрытых интервалов [start, end), упорядоченных по (start, id).
+ * Каждый узел хранит максимальный конец в своём поддереве, поэтому проверка пересечения
+ * отбрасывает поддеревья, которые заведомо закончились раньше начала запроса.
+ * Класс не потокобезопасен: доступ к дереву синхронизирует {@link BookingIntervalIndex}.
+ */
+public class IntervalTree {
+    private Node root;
+    private int size;
+
+    private static final class Node {
+        final long id;
+        final LocalDateTime start;
+        final LocalDateTime end;
+        LocalDateTime maxEnd;
+        int height = 1;
+        Node left;
+        Node right;
+
+        Node(long id, LocalDateTime start, LocalDateTime end) {
+            this.id = id;
+            this.start = start;
+            this.end = end;
+            this.maxEnd = end;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void insert(long id, LocalDateTime start, LocalDateTime end) {
+        root = insert(root, new Node(id, start, end));
+    }
+
+    public boolean remove(long id, LocalDateTime start) {
+        int before = size;
+        root = remove(root, id, start);
+        return size < before;
+    }
+
+    /* Удаляет интервалы, закончившиеся не позже moment, и возвращает их число */
+    public int removeEndedBy(LocalDateTime moment) {
+        List<Node> ended = new ArrayList<>();
+        collectEnded(root, moment, ended);
+        for (Node node : ended) {
+            root = remove(root, node.id, node.start);
+        }
+        return ended.size();
+    }
+
+    /* Есть ли интервал, пересекающийся с [start, end), кроме интервала с идентификатором excludeId */
+    public boolean overlaps(LocalDateTime start, LocalDateTime end, long excludeId) {
+        return overlaps(root, start, end, excludeId);
+    }
+
+    private boolean overlaps(Node node, LocalDateTime start, LocalDateTime end, long excludeId) {
+        if (node == null || !node.maxEnd.isAfter(start)) {
+            return false;
+        }
+        if (overlaps(node.left, start, end, excludeId)) {
+            return true;
+        }
+        if (!node.start.isBefore(end)) {
+            return false;
+        }
+        if (node.end.isAfter(start) && node.id != excludeId) {
+            return true;
+        }
+        return overlaps(node.right, start, end, excludeId);
+    }
+
+    private static void collectEnded(Node node, LocalDateTime moment, List<Node> ended) {
+        if (node == null) {
+            return;
+        }
+        collectEnded(node.left, moment, ended);
+        if (!node.end.isAfter(moment)) {
+            ended.add(node);
+        }
+        collectEnded(node.right, moment, ended);
+    }
+
+    private Node insert(Node node, Node inserted) {
+        if (node == null) {
+            size++;
+            return inserted;
+        }
+        int cmp = compare(inserted.start, inserted.id, node);
+        if (cmp < 0) {
+            node.left = insert(node.left, inserted);
+        } else if (cmp > 0) {
+            node.right = insert(node.right, inserted);
+        } else {
+            return node;
+        }
+        return balance(node);
+    }
+
+    private Node remove(Node node, long id, LocalDateTime start) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(start, id, node);
+        if (cmp < 0) {
+            node.left = remove(node.left, id, start);
+        } else if (cmp > 0) {
+            node.right = remove(node.right, id, start);
+        } else {
+            size--;
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            size++;
+            successor.right = remove(node.right, successor.id, successor.start);
+            successor.left = node.left;
+            return balance(successor);
+        }
+        return balance(node);
+    }
+
+    private static int compare(LocalDateTime start, long id, Node node) {
+        int cmp = start.compareTo(node.start);
+        return cmp != 0 ? cmp : Long.compare(id, node.id);
+    }
+
+    private static Node balance(Node node) {
+        update(node);
+        int factor = height(node.left) - height(node.right);
+        if (factor > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (factor < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        LocalDateTime maxEnd = node.end;
+        if (node.left != null && node.left.maxEnd.isAfter(maxEnd)) {
+            maxEnd = node.left.maxEnd;
+        }
+        if (node.right != null && node.right.maxEnd.isAfter(maxEnd)) {
+            maxEnd = node.right.maxEnd;
+        }
+        node.maxEnd = maxEnd;
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+}
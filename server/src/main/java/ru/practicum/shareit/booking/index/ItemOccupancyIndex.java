@@ -0,0 +1,143 @@
+package ru.practicum.shareit.booking.index;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.enums.Statuses;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Календарь занятости вещей по подтверждённым бронированиям: по одному биту на час.
+ * Битовая карта вещи строится из базы при первом запросе календаря и дальше обновляется
+ * только при подтверждении бронирования, после коммита транзакции. В памяти держится не больше
+ * shareit.booking.occupancy.max-items карт: при переполнении вытесняется та, что дольше всех не читалась.
+ */
+@Component
+public class ItemOccupancyIndex {
+    private static final long SLOT_SECONDS = ChronoUnit.HOURS.getDuration().getSeconds();
+
+    private final BookingRepository bookingRepository;
+    private final Map<Long, OccupancyBitmap> bitmaps;
+    /* Число отметок о подтверждении: по нему загрузка узнаёт, что могла пропустить бронирование */
+    private final AtomicLong marks = new AtomicLong();
+
+    public ItemOccupancyIndex(BookingRepository bookingRepository,
+                              @Value("${shareit.booking.occupancy.max-items:10000}") int maxItems) {
+        this.bookingRepository = bookingRepository;
+        this.bitmaps = Collections.synchronizedMap(new LinkedHashMap<Long, OccupancyBitmap>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, OccupancyBitmap> eldest) {
+                return size() > maxItems;
+            }
+        });
+    }
+
+    /* Отмечает бронирование в календаре после успешного коммита */
+    public void markApproved(Booking booking) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            mark(booking);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                mark(booking);
+            }
+        });
+    }
+
+    /* Свободные промежутки вещи в [from, to), с точностью до часа или дня */
+    public List<ItemAvailabilityDto> getFreeSlots(Long itemId, LocalDateTime from, LocalDateTime to,
+                                                  ChronoUnit unit) {
+        OccupancyBitmap bitmap = bitmap(itemId);
+        long step = unit.getDuration().getSeconds() / SLOT_SECONDS;
+        long first = slot(from.truncatedTo(unit));
+        long last = slot(to.truncatedTo(unit)) + (to.truncatedTo(unit).isBefore(to) ? step : 0);
+
+        List<ItemAvailabilityDto> free = new ArrayList<>();
+        long period = first;
+        while (period < last) {
+            long busy = bitmap.nextSet(period, last);
+            if (busy < 0) {
+                free.add(new ItemAvailabilityDto(time(period), time(last)));
+                break;
+            }
+            long busyPeriod = first + Math.floorDiv(busy - first, step) * step;
+            if (busyPeriod > period) {
+                free.add(new ItemAvailabilityDto(time(period), time(busyPeriod)));
+            }
+            long clear = bitmap.nextClear(busy, last);
+            if (clear < 0) {
+                break;
+            }
+            period = first + Math.floorDiv(clear - first + step - 1, step) * step;
+        }
+        return free;
+    }
+
+    /* Счётчик растёт раньше поиска карты: загрузка, которая его не заметила, уже положила карту в кэш */
+    private void mark(Booking booking) {
+        marks.incrementAndGet();
+        OccupancyBitmap bitmap = bitmaps.get(booking.getItem().getId());
+        if (bitmap != null) {
+            set(bitmap, booking);
+        }
+    }
+
+    /*
+     * Карта строится вне блокировки кэша, чтобы запрос к базе не держал его. Если за время загрузки
+     * подтвердили какое-то бронирование, карта могла его не увидеть: она используется для этого
+     * запроса, но из кэша убирается, и следующий запрос загрузит её заново
+     */
+    private OccupancyBitmap bitmap(Long itemId) {
+        OccupancyBitmap bitmap = bitmaps.get(itemId);
+        if (bitmap != null) {
+            return bitmap;
+        }
+        long seen = marks.get();
+        OccupancyBitmap loaded = load(itemId);
+        OccupancyBitmap existing = bitmaps.putIfAbsent(itemId, loaded);
+        if (existing != null) {
+            return existing;
+        }
+        if (marks.get() != seen) {
+            bitmaps.remove(itemId, loaded);
+        }
+        return loaded;
+    }
+
+    private OccupancyBitmap load(Long itemId) {
+        OccupancyBitmap bitmap = new OccupancyBitmap();
+        for (Booking booking : bookingRepository.findAllByItemIdAndStatus(itemId, Statuses.APPROVED)) {
+            set(bitmap, booking);
+        }
+        return bitmap;
+    }
+
+    private static void set(OccupancyBitmap bitmap, Booking booking) {
+        long start = slot(booking.getStart());
+        long end = slot(booking.getEnd().truncatedTo(ChronoUnit.HOURS));
+        bitmap.set(start, booking.getEnd().truncatedTo(ChronoUnit.HOURS).isBefore(booking.getEnd()) ? end + 1 : end);
+    }
+
+    private static long slot(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), SLOT_SECONDS);
+    }
+
+    private static LocalDateTime time(long slot) {
+        return LocalDateTime.ofEpochSecond(slot * SLOT_SECONDS, 0, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,145 @@
+package ru.practicum.shareit.booking.index;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Разреженный битовый набор занятых слотов в духе roaring bitmap: номер слота делится на старшую часть
+ * (ключ контейнера) и младшие 10 бит (позиция в контейнере из 16 long). Пустые контейнеры не хранятся,
+ * полностью занятые заменяются общим контейнером {@link #FULL}, поэтому длинные бронирования почти
+ * не занимают памяти. Методы синхронизированы: запись идёт после коммита, чтение - из запросов.
+ */
+public class OccupancyBitmap {
+    private static final int CONTAINER_BITS = 10;
+    private static final int CONTAINER_SIZE = 1 << CONTAINER_BITS;
+    private static final int WORDS = CONTAINER_SIZE / Long.SIZE;
+    private static final long[] FULL = filled();
+
+    private final TreeMap<Long, long[]> containers = new TreeMap<>();
+
+    private static long[] filled() {
+        long[] words = new long[WORDS];
+        Arrays.fill(words, -1L);
+        return words;
+    }
+
+    /* Отмечает занятыми слоты [from, to) */
+    public synchronized void set(long from, long to) {
+        long slot = from;
+        while (slot < to) {
+            long key = slot >> CONTAINER_BITS;
+            long containerEnd = (key + 1) << CONTAINER_BITS;
+            int lo = (int) (slot - (key << CONTAINER_BITS));
+            int hi = (int) (Math.min(to, containerEnd) - (key << CONTAINER_BITS));
+            long[] words = containers.get(key);
+            if (words != FULL) {
+                if (lo == 0 && hi == CONTAINER_SIZE) {
+                    containers.put(key, FULL);
+                } else {
+                    if (words == null) {
+                        words = new long[WORDS];
+                        containers.put(key, words);
+                    }
+                    setRange(words, lo, hi);
+                    if (isFull(words)) {
+                        containers.put(key, FULL);
+                    }
+                }
+            }
+            slot = containerEnd;
+        }
+    }
+
+    /* Первый занятый слот в [from, to) или -1, если все слоты свободны */
+    public synchronized long nextSet(long from, long to) {
+        long slot = from;
+        while (slot < to) {
+            Map.Entry<Long, long[]> entry = containers.ceilingEntry(slot >> CONTAINER_BITS);
+            if (entry == null) {
+                return -1;
+            }
+            long base = entry.getKey() << CONTAINER_BITS;
+            int lo = (int) Math.max(slot - base, 0);
+            if (base + lo >= to) {
+                return -1;
+            }
+            int found = nextSetInContainer(entry.getValue(), lo);
+            if (found >= 0 && base + found < to) {
+                return base + found;
+            }
+            if (found >= 0) {
+                return -1;
+            }
+            slot = base + CONTAINER_SIZE;
+        }
+        return -1;
+    }
+
+    /* Первый свободный слот в [from, to) или -1, если все слоты заняты */
+    public synchronized long nextClear(long from, long to) {
+        long slot = from;
+        while (slot < to) {
+            long key = slot >> CONTAINER_BITS;
+            long base = key << CONTAINER_BITS;
+            long[] words = containers.get(key);
+            if (words == null) {
+                return slot;
+            }
+            int found = nextClearInContainer(words, (int) (slot - base));
+            if (found >= 0) {
+                return base + found < to ? base + found : -1;
+            }
+            slot = base + CONTAINER_SIZE;
+        }
+        return -1;
+    }
+
+    private static void setRange(long[] words, int from, int to) {
+        for (int bit = from; bit < to; ) {
+            int word = bit >>> 6;
+            int wordEnd = Math.min(to, (word + 1) << 6);
+            int count = wordEnd - bit;
+            long mask = count == Long.SIZE ? -1L : ((1L << count) - 1) << (bit & 63);
+            words[word] |= mask;
+            bit = wordEnd;
+        }
+    }
+
+    private static boolean isFull(long[] words) {
+        for (long word : words) {
+            if (word != -1L) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int nextSetInContainer(long[] words, int from) {
+        int word = from >>> 6;
+        long bits = words[word] & (-1L << (from & 63));
+        while (true) {
+            if (bits != 0) {
+                return (word << 6) + Long.numberOfTrailingZeros(bits);
+            }
+            if (++word == WORDS) {
+                return -1;
+            }
+            bits = words[word];
+        }
+    }
+
+    private static int nextClearInContainer(long[] words, int from) {
+        int word = from >>> 6;
+        long bits = ~words[word] & (-1L << (from & 63));
+        while (true) {
+            if (bits != 0) {
+                return (word << 6) + Long.numberOfTrailingZeros(bits);
+            }
+            if (++word == WORDS) {
+                return -1;
+            }
+            bits = ~words[word];
+        }
+    }
+}
@@ -19,7 +19,8 @@ import java.time.LocalDateTime;
 public class Booking {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bookings_seq")
+    @SequenceGenerator(name = "bookings_seq", sequenceName = "bookings_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "start_date", nullable = false)
@@ -38,5 +39,21 @@ public class Booking {
 
     @Enumerated(EnumType.STRING)
     private Statuses status;
+
+    /* Копия item.owner.id, чтобы запросы владельца не соединяли bookings с items */
+    @ToString.Exclude
+    @Column(name = "owner_id")
+    private Long ownerId;
+
+    public Booking(Long id, LocalDateTime start, LocalDateTime end, Item item, User booker, Statuses status) {
+        this(id, start, end, item, booker, status, null);
+    }
+
+    @PrePersist
+    private void fillOwnerId() {
+        if (ownerId == null && item != null && item.getOwner() != null) {
+            ownerId = item.getOwner().getId();
+        }
+    }
 }
 
@@ -1,74 +1,167 @@
 package ru.practicum.shareit.booking.repository;
 
-import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.enums.Statuses;
-import ru.practicum.shareit.item.model.Item;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
 
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, Long> {
-    List<Booking> findAllByBookerId(Long bookerId, Sort start);
+    /* Списки бронирований постранично по ключу (start, id): ?2 и ?3 - последняя строка предыдущей страницы */
+    @Query("SELECT b FROM Booking b " +
+            "WHERE b.booker.id = ?1 " +
+            "AND (b.start < ?2 OR (b.start = ?2 AND b.id < ?3)) " +
+            "ORDER BY b.start DESC, b.id DESC")
+    List<Booking> findAllByBookerId(Long bookerId, LocalDateTime start, Long id, Limit limit);
 
     @Query("SELECT b FROM Booking b " +
             "WHERE b.booker.id = ?1 " +
-            "AND current_timestamp BETWEEN b.start AND b.end")
-    List<Booking> findAllCurrentByBookerId(Long bookerId, Sort start);
+            "AND current_timestamp BETWEEN b.start AND b.end " +
+            "AND (b.start < ?2 OR (b.start = ?2 AND b.id < ?3)) " +
+            "ORDER BY b.start DESC, b.id DESC")
+    List<Booking> findAllCurrentByBookerId(Long bookerId, LocalDateTime start, Long id, Limit limit);
 
     @Query("SELECT b FROM Booking b " +
             "WHERE b.booker.id = ?1 " +
-            "AND current_timestamp > b.end")
-    List<Booking> findAllPastByBookerId(Long brokerId, Sort start);
+            "AND current_timestamp > b.end " +
+            "AND (b.start < ?2 OR (b.start = ?2 AND b.id < ?3)) " +
+            "ORDER BY b.start DESC, b.id DESC")
+    List<Booking> findAllPastByBookerId(Long brokerId, LocalDateTime start, Long id, Limit limit);
 
     @Query("SELECT b FROM Booking b " +
             "WHERE b.booker.id = ?1 " +
-            "AND current_timestamp < b.start")
-    List<Booking> findAllFutureByBookerId(Long bookerId, Sort start);
+            "AND current_timestamp < b.start " +
+            "AND (b.start < ?2 OR (b.start = ?2 AND b.id < ?3)) " +
+            "ORDER BY b.start DESC, b.id DESC")
+    List<Booking> findAllFutureByBookerId(Long bookerId, LocalDateTime start, Long id, Limit limit);
 
-    List<Booking> findAllByBookerIdAndStatus(Long bookerId, Statuses bookingStatus, Sort start);
+    @Query("SELECT b FROM Booking b " +
+            "WHERE b.booker.id = ?1 " +
+            "AND b.status = ?2 " +
+            "AND (b.start < ?3 OR (b.start = ?3 AND b.id < ?4)) " +
+            "ORDER BY b.start DESC, b.id DESC")
+    List<Booking> findAllByBookerIdAndStatus(Long bookerId, Statuses bookingStatus,
+                                             LocalDateTime start, Long id, Limit limit);
 
+    /* Отклонённые бронирования арендатора всегда шли по убыванию end, поэтому у них ключ (end, id) */
     @Query("SELECT b FROM Booking b " +
-            "WHERE b.item.owner.id = ?1")
-    List<Booking> findAllByOwnerId(Long ownerId, Sort start);
+            "WHERE b.booker.id = ?1 " +
+            "AND b.status = ?2 " +
+            "AND (b.end < ?3 OR (b.end = ?3 AND b.id < ?4)) " +
+            "ORDER BY b.end DESC, b.id DESC")
+    List<Booking> findAllByBookerIdAndStatusOrderByEnd(Long bookerId, Statuses bookingStatus,
+                                                       LocalDateTime end, Long id, Limit limit);
 
     @Query("SELECT b FROM Booking b " +
-            "WHERE b.item.owner.id = ?1 " +
-            "AND current_timestamp BETWEEN b.start AND b.end")
-    List<Booking> findAllCurrentByOwnerId(Long ownerId, Sort start);
+            "WHERE b.ownerId = ?1 " +
+            "AND (b.start < ?2 OR (b.start = ?2 AND b.id < ?3)) " +
+            "ORDER BY b.start DESC, b.id DESC")
+    List<Booking> findAllByOwnerId(Long ownerId, LocalDateTime start, Long id, Limit limit);
 
     @Query("SELECT b FROM Booking b " +
-            "WHERE b.item.owner.id = ?1 " +
-            "AND current_timestamp > b.end")
-    List<Booking> findAllPastByOwnerId(Long ownerId, Sort start);
+            "WHERE b.ownerId = ?1 " +
+            "AND current_timestamp BETWEEN b.start AND b.end " +
+            "AND (b.start < ?2 OR (b.start = ?2 AND b.id < ?3)) " +
+            "ORDER BY b.start DESC, b.id DESC")
+    List<Booking> findAllCurrentByOwnerId(Long ownerId, LocalDateTime start, Long id, Limit limit);
 
     @Query("SELECT b FROM Booking b " +
-            "WHERE b.item.owner.id = ?1 " +
-            "AND current_timestamp < b.start")
-    List<Booking> findAllFutureByOwnerId(Long ownerId, Sort start);
+            "WHERE b.ownerId = ?1 " +
+            "AND current_timestamp > b.end " +
+            "AND (b.start < ?2 OR (b.start = ?2 AND b.id < ?3)) " +
+            "ORDER BY b.start DESC, b.id DESC")
+    List<Booking> findAllPastByOwnerId(Long ownerId, LocalDateTime start, Long id, Limit limit);
 
+    @Query("SELECT b FROM Booking b " +
+            "WHERE b.ownerId = ?1 " +
+            "AND current_timestamp < b.start " +
+            "AND (b.start < ?2 OR (b.start = ?2 AND b.id < ?3)) " +
+            "ORDER BY b.start DESC, b.id DESC")
+    List<Booking> findAllFutureByOwnerId(Long ownerId, LocalDateTime start, Long id, Limit limit);
+
+    @Query("SELECT b FROM Booking b " +
+            "WHERE b.ownerId = ?1 " +
+            "AND b.status = ?2 " +
+            "AND (b.start < ?3 OR (b.start = ?3 AND b.id < ?4)) " +
+            "ORDER BY b.start DESC, b.id DESC")
+    List<Booking> findAllByOwnerIdAndStatus(Long ownerId, Statuses bookingStatus,
+                                            LocalDateTime start, Long id, Limit limit);
+
+    /* Те же выборки владельца через вещь: нужны, пока BookingOwnerBackfill не заполнил owner_id у старых строк */
     @Query("SELECT b FROM Booking b " +
             "WHERE b.item.owner.id = ?1 " +
-            "AND b.status = ?2")
-    List<Booking> findAllByOwnerIdAndStatus(Long ownerId, Statuses bookingStatus, Sort start);
+            "AND (b.start < ?2 OR (b.start = ?2 AND b.id < ?3)) " +
+            "ORDER BY b.start DESC, b.id DESC")
+    List<Booking> findAllByItemOwnerId(Long ownerId, LocalDateTime start, Long id, Limit limit);
 
-    Optional<Booking> findFirstByItemIdAndStartLessThanEqualAndStatus(Long itemId, LocalDateTime localDateTime,
-                                                                      Statuses bookingStatus, Sort end);
+    @Query("SELECT b FROM Booking b " +
+            "WHERE b.item.owner.id = ?1 " +
+            "AND current_timestamp BETWEEN b.start AND b.end " +
+            "AND (b.start < ?2 OR (b.start = ?2 AND b.id < ?3)) " +
+            "ORDER BY b.start DESC, b.id DESC")
+    List<Booking> findAllCurrentByItemOwnerId(Long ownerId, LocalDateTime start, Long id, Limit limit);
 
-    Optional<Booking> findFirstByItemIdAndStartAfterAndStatus(Long itemId, LocalDateTime localDateTime,
-                                                              Statuses bookingStatus, Sort end);
+    @Query("SELECT b FROM Booking b " +
+            "WHERE b.item.owner.id = ?1 " +
+            "AND current_timestamp > b.end " +
+            "AND (b.start < ?2 OR (b.start = ?2 AND b.id < ?3)) " +
+            "ORDER BY b.start DESC, b.id DESC")
+    List<Booking> findAllPastByItemOwnerId(Long ownerId, LocalDateTime start, Long id, Limit limit);
 
-    List<Booking> findByItemInAndStartLessThanEqualAndStatus(List<Item> items, LocalDateTime thisMoment,
-                                                             Statuses approved, Sort end);
+    @Query("SELECT b FROM Booking b " +
+            "WHERE b.item.owner.id = ?1 " +
+            "AND current_timestamp < b.start " +
+            "AND (b.start < ?2 OR (b.start = ?2 AND b.id < ?3)) " +
+            "ORDER BY b.start DESC, b.id DESC")
+    List<Booking> findAllFutureByItemOwnerId(Long ownerId, LocalDateTime start, Long id, Limit limit);
 
-    List<Booking> findByItemInAndStartAfterAndStatus(List<Item> items, LocalDateTime thisMoment,
-                                                     Statuses approved, Sort end);
+    @Query("SELECT b FROM Booking b " +
+            "WHERE b.item.owner.id = ?1 " +
+            "AND b.status = ?2 " +
+            "AND (b.start < ?3 OR (b.start = ?3 AND b.id < ?4)) " +
+            "ORDER BY b.start DESC, b.id DESC")
+    List<Booking> findAllByItemOwnerIdAndStatus(Long ownerId, Statuses bookingStatus,
+                                                LocalDateTime start, Long id, Limit limit);
+
+    /* Последнее начавшееся бронирование каждой вещи (с наибольшим end); при равных end строк может быть несколько */
+    @Query("SELECT b FROM Booking b JOIN FETCH b.booker " +
+            "WHERE b.item.id IN ?1 AND b.status = ?3 AND b.start <= ?2 " +
+            "AND b.end = (SELECT max(l.end) FROM Booking l " +
+            "WHERE l.item.id = b.item.id AND l.status = ?3 AND l.start <= ?2) " +
+            "ORDER BY b.id")
+    List<Booking> findLastByItemIdIn(Collection<Long> itemIds, LocalDateTime moment, Statuses status);
+
+    /* Ближайшее будущее бронирование каждой вещи (с наименьшим end); при равных end строк может быть несколько */
+    @Query("SELECT b FROM Booking b JOIN FETCH b.booker " +
+            "WHERE b.item.id IN ?1 AND b.status = ?3 AND b.start > ?2 " +
+            "AND b.end = (SELECT min(n.end) FROM Booking n " +
+            "WHERE n.item.id = b.item.id AND n.status = ?3 AND n.start > ?2) " +
+            "ORDER BY b.id")
+    List<Booking> findNextByItemIdIn(Collection<Long> itemIds, LocalDateTime moment, Statuses status);
+
+    List<Booking> findAllByItemIdAndStatus(Long itemId, Statuses status);
+
+    List<Booking> findAllByItemIdAndStatusInAndEndAfter(Long itemId, Collection<Statuses> statuses,
+                                                         LocalDateTime end);
 
     Boolean existsByBookerIdAndItemIdAndEndBefore(Long bookerId, Long itemId, LocalDateTime localDateTime);
-}
 
+    /* Меняет статус, только если он всё ещё expected; возвращает число изменённых строк (0 или 1) */
+    @Modifying
+    @Query("UPDATE Booking b SET b.status = ?3 WHERE b.id = ?1 AND b.status = ?2")
+    int compareAndSetStatus(Long bookingId, Statuses expected, Statuses status);
+
+    /* Заполняет owner_id не более чем у batchSize старых бронирований, возвращает число обновлённых строк */
+    @Modifying
+    @Query(value = "UPDATE bookings SET owner_id = (SELECT items.owner_id FROM items WHERE items.id = bookings.item_id) " +
+            "WHERE id IN (SELECT b.id FROM bookings b JOIN items i ON i.id = b.item_id " +
+            "WHERE b.owner_id IS NULL AND i.owner_id IS NOT NULL LIMIT ?1)", nativeQuery = true)
+    int backfillOwnerIds(int batchSize);
+}
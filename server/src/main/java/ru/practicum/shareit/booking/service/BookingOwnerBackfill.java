@@ -0,0 +1,69 @@
+package ru.practicum.shareit.booking.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Заполняет bookings.owner_id у бронирований, созданных до появления колонки.
+ * Каждая пачка обновляется в отдельной короткой транзакции, чтобы не держать блокировки на всей таблице.
+ * Заполнение идёт в фоновом потоке и не задерживает старт; пока оно не закончено, isPending() возвращает
+ * true и запросы владельца ищут бронирования через вещь, а не по owner_id.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookingOwnerBackfill {
+    private final BookingRepository bookingRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("booking-owner-backfill").daemon(true).factory());
+    private volatile boolean pending = true;
+
+    @Value("${shareit.booking.owner-backfill.batch-size:1000}")
+    private int batchSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        executor.execute(() -> {
+            try {
+                run();
+            } catch (RuntimeException e) {
+                log.error("Не удалось заполнить owner_id бронирований, запросы владельца остаются на соединении с вещами", e);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    public boolean isPending() {
+        return pending;
+    }
+
+    public void run() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        long total = 0;
+        int updated;
+        do {
+            updated = transaction.execute(status -> bookingRepository.backfillOwnerIds(batchSize));
+            total += updated;
+        } while (updated == batchSize);
+        pending = false;
+        if (total > 0) {
+            log.info("Заполнен owner_id у {} бронирований", total);
+        }
+    }
+}
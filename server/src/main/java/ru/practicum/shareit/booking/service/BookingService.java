@@ -2,11 +2,10 @@ package ru.practicum.shareit.booking.service;
 
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingDtoOut;
+import ru.practicum.shareit.booking.dto.BookingDtoPage;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
 
-import java.util.List;
-
 public interface BookingService {
     BookingDtoOut create(BookingDto bookingDto, Long userId) throws ValidationException, NotFoundException;
 
@@ -14,8 +13,10 @@ public interface BookingService {
 
     BookingDtoOut getBookingById(Long bookingId, Long userId) throws ValidationException, NotFoundException;
 
-    List<BookingDtoOut> getAllByBookerId(String subState, Long bookerId) throws NotFoundException, ValidationException;
+    BookingDtoPage getAllByBookerId(String subState, Long bookerId, Integer size, String cursor)
+            throws NotFoundException, ValidationException;
 
-    List<BookingDtoOut> getAllByOwnerId(Long ownerId, String state) throws NotFoundException, ValidationException;
+    BookingDtoPage getAllByOwnerId(Long ownerId, String state, Integer size, String cursor)
+            throws NotFoundException, ValidationException;
 }
 
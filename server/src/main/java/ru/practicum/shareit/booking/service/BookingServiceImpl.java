@@ -3,11 +3,15 @@ package ru.practicum.shareit.booking.service;
 import org.springframework.transaction.annotation.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import ru.practicum.shareit.page.KeysetCursor;
 import ru.practicum.shareit.booking.dto.BookingDtoOut;
+import ru.practicum.shareit.booking.dto.BookingDtoPage;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.index.BookingIntervalIndex;
+import ru.practicum.shareit.booking.index.ItemOccupancyIndex;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.repository.BookingRepository;
 import ru.practicum.shareit.enums.States;
@@ -19,12 +23,11 @@ import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
 import java.time.LocalDateTime;
-import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
-import static org.springframework.data.domain.Sort.Direction.DESC;
-
 @Slf4j
 @Service
 @RequiredArgsConstructor
@@ -32,6 +35,9 @@ public class BookingServiceImpl implements BookingService {
     private final BookingRepository bookingRepository;
     private final UserRepository userRepository;
     private final ItemRepository itemRepository;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final ItemOccupancyIndex itemOccupancyIndex;
+    private final BookingOwnerBackfill ownerBackfill;
 
     @Transactional
     @Override
@@ -48,12 +54,22 @@ public class BookingServiceImpl implements BookingService {
                 bookingDto.getStart().isBefore(LocalDateTime.now())) {
             throw new ValidationException("Дата бронирования не может быть раньше даты возврата");
         }
-        Booking booking = new Booking();
-        booking.setItem(item);
-        booking.setBooker(booker);
-        bookingRepository.save(BookingMapper.toBooking(bookingDto, booking));
-        log.info("Бронирование с идентификатором {} создано", booking.getId());
-        return BookingMapper.toBookingDtoOut(booking);
+        Lock lock = bookingIntervalIndex.lockFor(item.getId());
+        lock.lock();
+        try {
+            if (bookingIntervalIndex.hasOverlap(item.getId(), bookingDto.getStart(), bookingDto.getEnd(), null)) {
+                throw new ValidationException("Вещь уже забронирована на эти даты");
+            }
+            Booking booking = new Booking();
+            booking.setItem(item);
+            booking.setBooker(booker);
+            bookingRepository.save(BookingMapper.toBooking(bookingDto, booking));
+            bookingIntervalIndex.add(booking);
+            log.info("Бронирование с идентификатором {} создано", booking.getId());
+            return BookingMapper.toBookingDtoOut(booking);
+        } finally {
+            lock.unlock();
+        }
     }
 
     @Transactional
@@ -68,9 +84,28 @@ public class BookingServiceImpl implements BookingService {
         if (!booking.getItem().getOwner().getId().equals(userId)) {
             throw new ValidationException("Бронь может подтврдить только собственник");
         }
-        Statuses newBookingStatus = isApproved ? Statuses.APPROVED : Statuses.REJECTED;
-        booking.setStatus(newBookingStatus);
-        return BookingMapper.toBookingDtoOut(booking);
+        Lock lock = bookingIntervalIndex.lockFor(item.getId());
+        lock.lock();
+        try {
+            if (isApproved && bookingIntervalIndex.hasOverlap(item.getId(), booking.getStart(), booking.getEnd(),
+                    booking.getId())) {
+                throw new ValidationException("Вещь уже забронирована на эти даты");
+            }
+            Statuses newBookingStatus = isApproved ? Statuses.APPROVED : Statuses.REJECTED;
+            /* Статус выше прочитан до блокировки: из двух одновременных решений по брони проходит одно */
+            if (bookingRepository.compareAndSetStatus(booking.getId(), Statuses.WAITING, newBookingStatus) == 0) {
+                throw new ValidationException("Товар уже забронирован");
+            }
+            booking.setStatus(newBookingStatus);
+            if (isApproved) {
+                itemOccupancyIndex.markApproved(booking);
+            } else {
+                bookingIntervalIndex.remove(booking);
+            }
+            return BookingMapper.toBookingDtoOut(booking);
+        } finally {
+            lock.unlock();
+        }
 
     }
 
@@ -88,77 +123,124 @@ public class BookingServiceImpl implements BookingService {
 
     @Transactional(readOnly = true)
     @Override
-    public List<BookingDtoOut> getAllByBookerId(String state, Long bookerId) throws NotFoundException, ValidationException {
+    public BookingDtoPage getAllByBookerId(String state, Long bookerId, Integer size, String cursor)
+            throws NotFoundException, ValidationException {
         States bookingState = States.valueOf(state);
         User booker = getUser(bookerId);
-        Collection<Booking> bookings;
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        Limit limit = pageLimit(size);
+        List<Booking> bookings;
 
         switch (bookingState) {
             case ALL:
-                bookings = bookingRepository.findAllByBookerId(booker.getId(), Sort.by(DESC, "start"));
+                bookings = bookingRepository.findAllByBookerId(booker.getId(),
+                        after.getTime(), after.getId(), limit);
                 break;
             case CURRENT:
                 bookings = bookingRepository.findAllCurrentByBookerId(booker.getId(),
-                        Sort.by(Sort.Direction.DESC, "start"));
+                        after.getTime(), after.getId(), limit);
                 break;
             case PAST:
                 bookings = bookingRepository.findAllPastByBookerId(booker.getId(),
-                        Sort.by(Sort.Direction.DESC, "start"));
+                        after.getTime(), after.getId(), limit);
                 break;
             case FUTURE:
                 bookings = bookingRepository.findAllFutureByBookerId(booker.getId(),
-                        Sort.by(Sort.Direction.DESC, "start"));
+                        after.getTime(), after.getId(), limit);
                 break;
             case WAITING:
                 bookings = bookingRepository.findAllByBookerIdAndStatus(booker.getId(),
-                        Statuses.WAITING, Sort.by(Sort.Direction.DESC, "start"));
+                        Statuses.WAITING, after.getTime(), after.getId(), limit);
                 break;
             case REJECTED:
-                bookings = bookingRepository.findAllByBookerIdAndStatus(booker.getId(),
-                        Statuses.REJECTED, Sort.by(DESC, "end"));
-                break;
+                bookings = bookingRepository.findAllByBookerIdAndStatusOrderByEnd(booker.getId(),
+                        Statuses.REJECTED, after.getTime(), after.getId(), limit);
+                return toPage(bookings, size, Booking::getEnd);
             default:
                 throw new ValidationException("Неизвестный параметр");
         }
-        return bookings.stream().map(BookingMapper::toBookingDtoOut).collect(Collectors.toList());
+        return toPage(bookings, size, Booking::getStart);
     }
 
     @Transactional(readOnly = true)
     @Override
-    public List<BookingDtoOut> getAllByOwnerId(Long ownerId, String state) throws NotFoundException, ValidationException {
+    public BookingDtoPage getAllByOwnerId(Long ownerId, String state, Integer size, String cursor)
+            throws NotFoundException, ValidationException {
         States bookingState = States.valueOf(state);
         User owner = getUser(ownerId);
-        Collection<Booking> bookings;
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        Limit limit = pageLimit(size);
+        /* До конца заполнения owner_id старые бронирования находятся только через вещь */
+        boolean byItem = ownerBackfill.isPending();
+        List<Booking> bookings;
 
         switch (bookingState) {
             case ALL:
-                bookings = bookingRepository.findAllByOwnerId(owner.getId(),
-                        Sort.by(Sort.Direction.DESC, "start"));
+                bookings = byItem
+                        ? bookingRepository.findAllByItemOwnerId(owner.getId(),
+                        after.getTime(), after.getId(), limit)
+                        : bookingRepository.findAllByOwnerId(owner.getId(),
+                        after.getTime(), after.getId(), limit);
                 break;
             case CURRENT:
-                bookings = bookingRepository.findAllCurrentByOwnerId(owner.getId(),
-                        Sort.by(Sort.Direction.DESC, "start"));
+                bookings = byItem
+                        ? bookingRepository.findAllCurrentByItemOwnerId(owner.getId(),
+                        after.getTime(), after.getId(), limit)
+                        : bookingRepository.findAllCurrentByOwnerId(owner.getId(),
+                        after.getTime(), after.getId(), limit);
                 break;
             case PAST:
-                bookings = bookingRepository.findAllPastByOwnerId(owner.getId(),
-                        Sort.by(Sort.Direction.DESC, "start"));
+                bookings = byItem
+                        ? bookingRepository.findAllPastByItemOwnerId(owner.getId(),
+                        after.getTime(), after.getId(), limit)
+                        : bookingRepository.findAllPastByOwnerId(owner.getId(),
+                        after.getTime(), after.getId(), limit);
                 break;
             case FUTURE:
-                bookings = bookingRepository.findAllFutureByOwnerId(owner.getId(),
-                        Sort.by(Sort.Direction.DESC, "start"));
+                bookings = byItem
+                        ? bookingRepository.findAllFutureByItemOwnerId(owner.getId(),
+                        after.getTime(), after.getId(), limit)
+                        : bookingRepository.findAllFutureByOwnerId(owner.getId(),
+                        after.getTime(), after.getId(), limit);
                 break;
             case WAITING:
-                bookings = bookingRepository.findAllByOwnerIdAndStatus(owner.getId(),
-                        Statuses.WAITING, Sort.by(Sort.Direction.DESC, "start"));
+                bookings = byItem
+                        ? bookingRepository.findAllByItemOwnerIdAndStatus(owner.getId(),
+                        Statuses.WAITING, after.getTime(), after.getId(), limit)
+                        : bookingRepository.findAllByOwnerIdAndStatus(owner.getId(),
+                        Statuses.WAITING, after.getTime(), after.getId(), limit);
                 break;
             case REJECTED:
-                bookings = bookingRepository.findAllByOwnerIdAndStatus(owner.getId(),
-                        Statuses.REJECTED, Sort.by(Sort.Direction.DESC, "start"));
+                bookings = byItem
+                        ? bookingRepository.findAllByItemOwnerIdAndStatus(owner.getId(),
+                        Statuses.REJECTED, after.getTime(), after.getId(), limit)
+                        : bookingRepository.findAllByOwnerIdAndStatus(owner.getId(),
+                        Statuses.REJECTED, after.getTime(), after.getId(), limit);
                 break;
             default:
                 throw new ValidationException("Неизвестный параметр");
         }
-        return bookings.stream().map(BookingMapper::toBookingDtoOut).collect(Collectors.toList());
+        return toPage(bookings, size, Booking::getStart);
+    }
+
+    /* Запрашиваем на одну строку больше, чтобы узнать, есть ли следующая страница */
+    private Limit pageLimit(Integer size) throws ValidationException {
+        if (size == null || size <= 0) {
+            throw new ValidationException("Размер страницы должен быть положительным");
+        }
+        return Limit.of(size + 1);
+    }
+
+    /* sortKey - время, по которому отсортирована страница: start, а у отклонённых бронирований арендатора end */
+    private BookingDtoPage toPage(List<Booking> bookings, Integer size, Function<Booking, LocalDateTime> sortKey) {
+        String next = null;
+        if (bookings.size() > size) {
+            bookings = bookings.subList(0, size);
+            Booking last = bookings.get(size - 1);
+            next = new KeysetCursor(sortKey.apply(last), last.getId()).encode();
+        }
+        return new BookingDtoPage(bookings.stream().map(BookingMapper::toBookingDtoOut).collect(Collectors.toList()),
+                next);
     }
 
     @Transactional(readOnly = true)
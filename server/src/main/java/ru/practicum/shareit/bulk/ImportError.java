@@ -0,0 +1,14 @@
+package ru.practicum.shareit.bulk;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/* Строка файла импорта, которую не удалось сохранить; line - номер строки начиная с 1 */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportError {
+    private long line;
+    private String message;
+}
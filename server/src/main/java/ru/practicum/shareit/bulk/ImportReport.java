@@ -0,0 +1,33 @@
+package ru.practicum.shareit.bulk;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/* Итог импорта: errors содержит не больше maxErrors первых ошибок, failed - полное их число */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportReport {
+    private long imported;
+    private long failed;
+    private List<ImportError> errors;
+
+    public static ImportReport empty() {
+        return new ImportReport(0, 0, new ArrayList<>());
+    }
+
+    public void addImported(long count) {
+        imported += count;
+    }
+
+    public void addError(long line, String message, int maxErrors) {
+        failed++;
+        if (errors.size() < maxErrors) {
+            errors.add(new ImportError(line, message));
+        }
+    }
+}
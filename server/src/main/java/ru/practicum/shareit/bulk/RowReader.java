@@ -0,0 +1,183 @@
+package ru.practicum.shareit.bulk;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.http.MediaType;
+import ru.practicum.shareit.exception.ValidationException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Читает строки файла импорта по одной, не загружая файл целиком. NDJSON - один JSON-объект на строку,
+ * CSV - строка заголовка и по объекту на строку; колонки идут в любом порядке, имена без учёта регистра,
+ * значения в кавычках могут содержать запятые, кавычка внутри удваивается. Строку CSV в объект переводит
+ * функция вызывающего: она получает значения по именам колонок (пустые - null) и сообщает о плохом
+ * значении через IllegalArgumentException. Ошибка разбора относится к своей строке и не прерывает чтение.
+ */
+public abstract class RowReader<T> {
+    public static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    public static final MediaType CSV = MediaType.parseMediaType("text/csv");
+
+    /* Строка файла: либо разобранный объект, либо текст ошибки */
+    public record Row<T>(long line, T value, String error) {
+    }
+
+    private final BufferedReader reader;
+    private long line;
+
+    private RowReader(InputStream body) {
+        this.reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+    }
+
+    public static <T> RowReader<T> of(MediaType contentType, InputStream body, ObjectMapper mapper, Class<T> type,
+                                      List<String> requiredColumns, Function<Map<String, String>, T> csvRow)
+            throws ValidationException {
+        if (contentType != null && NDJSON.includes(contentType)) {
+            return new NdjsonReader<>(body, mapper, type);
+        }
+        if (contentType != null && CSV.includes(contentType)) {
+            return new CsvReader<>(body, requiredColumns, csvRow);
+        }
+        throw new ValidationException("Поддерживаются только application/x-ndjson и text/csv");
+    }
+
+    /* Следующая непустая строка или null в конце файла */
+    public Row<T> next() throws IOException, ValidationException {
+        String text;
+        while ((text = reader.readLine()) != null) {
+            line++;
+            if (!text.isBlank()) {
+                return parse(line, text);
+            }
+        }
+        return null;
+    }
+
+    abstract Row<T> parse(long line, String text) throws ValidationException;
+
+    private static final class NdjsonReader<T> extends RowReader<T> {
+        private final ObjectMapper mapper;
+        private final Class<T> type;
+
+        private NdjsonReader(InputStream body, ObjectMapper mapper, Class<T> type) {
+            super(body);
+            this.mapper = mapper;
+            this.type = type;
+        }
+
+        @Override
+        Row<T> parse(long line, String text) {
+            try {
+                return new Row<>(line, mapper.readValue(text, type), null);
+            } catch (JsonProcessingException e) {
+                return new Row<>(line, null, "Некорректный JSON: " + e.getOriginalMessage());
+            }
+        }
+    }
+
+    private static final class CsvReader<T> extends RowReader<T> {
+        private final List<String> requiredColumns;
+        private final Function<Map<String, String>, T> csvRow;
+
+        private List<String> header;
+
+        private CsvReader(InputStream body, List<String> requiredColumns, Function<Map<String, String>, T> csvRow) {
+            super(body);
+            this.requiredColumns = requiredColumns;
+            this.csvRow = csvRow;
+        }
+
+        /* Первая непустая строка - заголовок: parse запоминает колонки и возвращает null */
+        @Override
+        public Row<T> next() throws IOException, ValidationException {
+            if (header == null) {
+                super.next();
+                if (header == null) {
+                    return null;
+                }
+            }
+            return super.next();
+        }
+
+        @Override
+        Row<T> parse(long line, String text) throws ValidationException {
+            List<String> fields = split(text);
+            if (header == null) {
+                readHeader(fields);
+                return null;
+            }
+            if (fields == null) {
+                return new Row<>(line, null, "Незакрытая кавычка");
+            }
+            if (fields.size() != header.size()) {
+                return new Row<>(line, null, String.format("Ожидалось колонок: %d, получено: %d",
+                        header.size(), fields.size()));
+            }
+            Map<String, String> values = new HashMap<>();
+            for (int i = 0; i < fields.size(); i++) {
+                values.put(header.get(i), StringUtils.trimToNull(fields.get(i)));
+            }
+            try {
+                return new Row<>(line, csvRow.apply(values), null);
+            } catch (IllegalArgumentException e) {
+                return new Row<>(line, null, e.getMessage());
+            }
+        }
+
+        private void readHeader(List<String> fields) throws ValidationException {
+            if (fields == null) {
+                throw new ValidationException("Некорректный заголовок CSV");
+            }
+            List<String> columns = fields.stream().map(field -> field.trim().toLowerCase(Locale.ROOT)).toList();
+            for (String column : requiredColumns) {
+                if (!columns.contains(column.toLowerCase(Locale.ROOT))) {
+                    throw new ValidationException("В заголовке CSV нет колонки " + column);
+                }
+            }
+            header = columns;
+        }
+
+        /* Разбивает строку по запятым с учётом кавычек; null, если кавычка не закрыта */
+        private static List<String> split(String text) {
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (quoted) {
+                    if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        quoted = false;
+                    } else {
+                        field.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            if (quoted) {
+                return null;
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+}
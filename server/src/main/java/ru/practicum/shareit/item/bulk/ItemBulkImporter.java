@@ -0,0 +1,173 @@
+package ru.practicum.shareit.item.bulk;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.bulk.ImportReport;
+import ru.practicum.shareit.bulk.RowReader;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
+import ru.practicum.shareit.request.matching.ItemRequestMatcher;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Массовый импорт вещей одного владельца. Строки читаются из потока по одной и проверяются сразу,
+ * корректные копятся в пачку по shareit.item.bulk.chunk-size строк. Каждая пачка сохраняется в своей
+ * транзакции: вставки уходят в базу пакетами JDBC (hibernate.jdbc.batch_size), запросы пачки
+ * проверяются одним IN-запросом. Если пачка не сохранилась, ошибкой помечаются все её строки,
+ * а уже сохранённые пачки остаются в базе.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ItemBulkImporter {
+    private static final List<String> CSV_COLUMNS = List.of("name", "description", "available");
+
+    private final ItemRepository itemRepository;
+    private final UserRepository userRepository;
+    private final ItemRequestRepository itemRequestRepository;
+    private final ItemSearchEngine itemSearchEngine;
+    private final ItemRequestMatcher itemRequestMatcher;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+
+    @Value("${shareit.item.bulk.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${shareit.item.bulk.max-errors:1000}")
+    private int maxErrors;
+
+    public ImportReport importItems(Long ownerId, MediaType contentType, InputStream body)
+            throws NotFoundException, ValidationException {
+        if (!userRepository.existsById(ownerId)) {
+            throw new NotFoundException("Пользователь с таким ID не найден!");
+        }
+        RowReader<ItemDto> reader = RowReader.of(contentType, body, objectMapper, ItemDto.class, CSV_COLUMNS,
+                ItemBulkImporter::fromCsv);
+        ImportReport report = ImportReport.empty();
+        List<RowReader.Row<ItemDto>> chunk = new ArrayList<>(chunkSize);
+        try {
+            RowReader.Row<ItemDto> row;
+            while ((row = reader.next()) != null) {
+                String error = row.error() != null ? row.error() : validate(row.value());
+                if (error != null) {
+                    report.addError(row.line(), error, maxErrors);
+                    continue;
+                }
+                chunk.add(row);
+                if (chunk.size() == chunkSize) {
+                    save(ownerId, chunk, report);
+                    chunk.clear();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        save(ownerId, chunk, report);
+        log.info("Импорт вещей пользователя {}: сохранено {}, с ошибками {}", ownerId, report.getImported(),
+                report.getFailed());
+        return report;
+    }
+
+    /* Колонки name, description, available, requestId; available - только true или false */
+    private static ItemDto fromCsv(Map<String, String> values) {
+        String available = values.get("available");
+        if (available != null && !available.equalsIgnoreCase("true") && !available.equalsIgnoreCase("false")) {
+            throw new IllegalArgumentException("available должно быть true или false");
+        }
+        String requestId = values.get("requestid");
+        Long request;
+        try {
+            request = requestId == null ? null : Long.valueOf(requestId);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("requestId должен быть числом");
+        }
+        return new ItemDto(values.get("name"), values.get("description"),
+                available == null ? null : Boolean.valueOf(available), request);
+    }
+
+    private static String validate(ItemDto item) {
+        if (StringUtils.isBlank(item.getName())) {
+            return "Название не может быть пустым";
+        }
+        if (StringUtils.isBlank(item.getDescription())) {
+            return "Описание не может быть пустым";
+        }
+        if (item.getAvailable() == null) {
+            return "Не указана доступность вещи";
+        }
+        return null;
+    }
+
+    private void save(Long ownerId, List<RowReader.Row<ItemDto>> chunk, ImportReport report) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        List<RowReader.Row<ItemDto>> rejected = new ArrayList<>();
+        try {
+            Integer saved = new TransactionTemplate(transactionManager).execute(status -> {
+                User owner = userRepository.getReferenceById(ownerId);
+                Set<Long> requestIds = chunk.stream()
+                        .map(row -> row.value().getRequestId())
+                        .filter(id -> id != null)
+                        .collect(Collectors.toSet());
+                Map<Long, ItemRequest> requests = itemRequestRepository.findAllById(requestIds).stream()
+                        .collect(Collectors.toMap(ItemRequest::getId, Function.identity()));
+                List<Item> items = new ArrayList<>(chunk.size());
+                for (RowReader.Row<ItemDto> row : chunk) {
+                    Long requestId = row.value().getRequestId();
+                    if (requestId != null && !requests.containsKey(requestId)) {
+                        rejected.add(row);
+                        continue;
+                    }
+                    Item item = ItemMapper.toItem(row.value());
+                    item.setOwner(owner);
+                    item.setRequest(requestId == null ? null : requests.get(requestId));
+                    items.add(item);
+                }
+                itemRepository.saveAll(items);
+                for (Item item : items) {
+                    itemSearchEngine.index(item);
+                    itemRequestMatcher.itemSaved(item);
+                }
+                return items.size();
+            });
+            report.addImported(saved);
+            for (RowReader.Row<ItemDto> row : rejected) {
+                report.addError(row.line(), String.format("Запрос с id %d не найден", row.value().getRequestId()),
+                        maxErrors);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Пачка импорта вещей со строки {} не сохранена: {}", chunk.get(0).line(), e.getMessage());
+            for (RowReader.Row<ItemDto> row : chunk) {
+                report.addError(row.line(), "Не удалось сохранить: " + e.getMostSpecificCause().getMessage(),
+                        maxErrors);
+            }
+        }
+    }
+}
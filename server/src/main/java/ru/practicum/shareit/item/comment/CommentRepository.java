@@ -1,16 +1,17 @@
 package ru.practicum.shareit.item.comment;
 
-import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
-import ru.practicum.shareit.item.model.Item;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface CommentRepository extends JpaRepository<Comment, Integer> {
     List<Comment> findAllByItemId(Long itemId);
 
-    List<Comment> findByItemIn(List<Item> allByOwnerId, Sort created);
+    @Query("select c from Comment c join fetch c.author where c.item.id in ?1 order by c.created, c.id")
+    List<Comment> findAllByItemIdIn(Collection<Long> itemIds);
 }
 
@@ -1,16 +1,27 @@
 package ru.practicum.shareit.item.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.bulk.ImportReport;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.item.comment.dto.CommentDto;
 import ru.practicum.shareit.item.comment.dto.CommentDtoOut;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoOut;
+import ru.practicum.shareit.item.dto.ItemDtoPage;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.page.CursorCodec;
 
+import java.io.InputStream;
+import java.time.LocalDateTime;
 import java.util.Collection;
+import java.util.List;
 
 @RestController("ServerItemController")
 @RequiredArgsConstructor
@@ -25,6 +36,14 @@ public class ItemController {
         return itemService.create(userId, itemDto);
     }
 
+    /* Тело читается потоком: NDJSON или CSV, по вещи на строку */
+    @PostMapping(path = "/bulk", consumes = {"application/x-ndjson", "text/csv"})
+    public ImportReport importItems(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                        @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                        InputStream body) throws NotFoundException, ValidationException {
+        return itemService.importItems(userId, contentType, body);
+    }
+
     @PatchMapping("/{itemId}")
     public ItemDtoOut update(@PathVariable Long itemId, @RequestBody ItemDto itemDto,
                              @RequestHeader("X-Sharer-User-Id") Long ownerId) throws ValidationException, NotFoundException {
@@ -42,8 +61,35 @@ public class ItemController {
     }
 
     @GetMapping("/search")
-    public Collection<ItemDtoOut> geItemBySearch(@RequestParam String text) {
-        return itemService.searchItemByText(text);
+    public Collection<ItemDtoOut> geItemBySearch(@RequestParam String text,
+                                                 @RequestParam(defaultValue = "0") Integer from,
+                                                 @RequestParam(defaultValue = "10") Integer size)
+            throws ValidationException {
+        return itemService.searchItemByText(text, from, size);
+    }
+
+    @GetMapping("/search/available")
+    public ResponseEntity<List<ItemDtoOut>> searchAvailableItems(@RequestParam String text,
+                                                                 @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+                                                                 @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+                                                                 @RequestParam(defaultValue = "10") Integer size,
+                                                                 @RequestParam(required = false) String cursor)
+            throws ValidationException {
+        ItemDtoPage page = itemService.searchAvailableItems(text, start, end, size, cursor);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNext() != null) {
+            response.header(CursorCodec.NEXT_CURSOR_HEADER, page.getNext());
+        }
+        return response.body(page.getItems());
+    }
+
+    @GetMapping("/{itemId}/availability")
+    public List<ItemAvailabilityDto> getAvailability(@PathVariable Long itemId,
+                                                     @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                     @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                     @RequestParam(defaultValue = "HOURS") String unit)
+            throws ValidationException, NotFoundException {
+        return itemService.getAvailability(itemId, from, to, unit);
     }
 
     @PostMapping("/{itemId}/comment")
@@ -0,0 +1,57 @@
+package ru.practicum.shareit.item.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Строка плоской выборки карточки вещи: вещь, владелец, последнее и следующее подтверждённые
+ * бронирования и один отзыв. Вещь без отзывов даёт одну строку с пустыми полями отзыва.
+ */
+public interface ItemDetailsView {
+    Long getItemId();
+
+    String getItemName();
+
+    String getItemDescription();
+
+    Boolean getItemAvailable();
+
+    Long getRequestId();
+
+    Long getOwnerId();
+
+    String getOwnerName();
+
+    String getOwnerEmail();
+
+    Long getLastId();
+
+    LocalDateTime getLastStart();
+
+    LocalDateTime getLastEnd();
+
+    Long getLastBookerId();
+
+    String getLastBookerName();
+
+    String getLastBookerEmail();
+
+    Long getNextId();
+
+    LocalDateTime getNextStart();
+
+    LocalDateTime getNextEnd();
+
+    Long getNextBookerId();
+
+    String getNextBookerName();
+
+    String getNextBookerEmail();
+
+    Long getCommentId();
+
+    String getCommentText();
+
+    String getCommentAuthorName();
+
+    LocalDateTime getCommentCreated();
+}
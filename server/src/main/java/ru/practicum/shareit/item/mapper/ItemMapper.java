@@ -3,12 +3,20 @@ package ru.practicum.shareit.item.mapper;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.dto.BookingDtoOut;
+import ru.practicum.shareit.enums.Statuses;
+import ru.practicum.shareit.item.comment.dto.CommentDtoOut;
+import ru.practicum.shareit.item.dto.ItemDetailsView;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoName;
 import ru.practicum.shareit.item.dto.ItemDtoOut;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.mapper.UserMapper;
 
+import java.util.ArrayList;
+import java.util.List;
+
 
 @Component
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
@@ -45,5 +53,38 @@ public class ItemMapper {
                 item.getOwner().getId()
         );
     }
-}
 
+    /* Собирает карточку вещи из строк плоской выборки; бронирования показываются только владельцу */
+    public static ItemDtoOut toItemDto(List<ItemDetailsView> rows, boolean withBookings) {
+        ItemDetailsView first = rows.get(0);
+        UserDto owner = new UserDto(first.getOwnerId(), first.getOwnerName(), first.getOwnerEmail());
+        ItemDtoOut itemDtoOut = new ItemDtoOut(first.getItemId(), first.getItemName(), first.getItemDescription(),
+                first.getItemAvailable(), owner, first.getRequestId());
+        if (withBookings && first.getLastId() != null) {
+            itemDtoOut.setLastBooking(new BookingDtoOut(first.getLastId(), first.getLastStart(), first.getLastEnd(),
+                    copyOf(itemDtoOut),
+                    new UserDto(first.getLastBookerId(), first.getLastBookerName(), first.getLastBookerEmail()),
+                    Statuses.APPROVED));
+        }
+        if (withBookings && first.getNextId() != null) {
+            itemDtoOut.setNextBooking(new BookingDtoOut(first.getNextId(), first.getNextStart(), first.getNextEnd(),
+                    copyOf(itemDtoOut),
+                    new UserDto(first.getNextBookerId(), first.getNextBookerName(), first.getNextBookerEmail()),
+                    Statuses.APPROVED));
+        }
+        List<CommentDtoOut> comments = new ArrayList<>();
+        for (ItemDetailsView row : rows) {
+            if (row.getCommentId() != null) {
+                comments.add(new CommentDtoOut(row.getCommentId(), row.getCommentText(), row.getCommentAuthorName(),
+                        row.getCommentCreated()));
+            }
+        }
+        itemDtoOut.setComments(comments);
+        return itemDtoOut;
+    }
+
+    private static ItemDtoOut copyOf(ItemDtoOut item) {
+        return new ItemDtoOut(item.getId(), item.getName(), item.getDescription(), item.getAvailable(),
+                item.getOwner(), item.getRequestId());
+    }
+}
@@ -1,22 +1,97 @@
 package ru.practicum.shareit.item.repository;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.item.dto.ItemDetailsView;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.ItemSearchView;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface ItemRepository extends JpaRepository<Item, Long> {
+    @EntityGraph(attributePaths = {"owner", "request", "request.requestor"})
     List<Item> findAllByOwnerId(Long userId);
 
+    /*
+     * Поиск подстроки без индекса, пока TrigramItemSearchEngine строит свой: ?1 - текст в нижнем регистре,
+     * где %, _ и ! экранированы символом !. Вещи с id больше ?2 по возрастанию id, как в индексе
+     */
+    @Query("select i.id from Item i " +
+            "where i.available = true and i.id > ?2 " +
+            "and (lower(i.name) like concat('%', ?1, '%') escape '!' " +
+            "or lower(i.description) like concat('%', ?1, '%') escape '!') " +
+            "order by i.id")
+    List<Long> findAvailableIdsContaining(String text, long afterId, Limit limit);
+
+    /* Вещи из кандидатов поиска без подтверждённых бронирований, пересекающих [start, end), по возрастанию id */
     @Query("select i from Item i " +
-            "where i.available = true " +
-            "and (lower(i.name) like lower(concat('%', ?1, '%')) " +
-            "or lower(i.description) like lower(concat('%', ?1, '%')))")
-    List<Item> findItems(String text);
+            "where i.id in ?1 " +
+            "and i.available = true " +
+            "and not exists (select b.id from Booking b " +
+            "where b.item.id = i.id " +
+            "and b.status = ru.practicum.shareit.enums.Statuses.APPROVED " +
+            "and b.start < ?3 and b.end > ?2) " +
+            "order by i.id")
+    List<Item> findAvailableAmong(Collection<Long> ids, LocalDateTime start, LocalDateTime end);
+
+    /* Только для Postgres: колонка search_vector и её GIN-индекс создаются в schema-postgresql.sql */
+    @Query(value = "SELECT i.id FROM items i, plainto_tsquery('simple', ?1) q " +
+            "WHERE i.available AND i.search_vector @@ q " +
+            "ORDER BY ts_rank(i.search_vector, q) DESC, i.id " +
+            "LIMIT ?3 OFFSET ?2", nativeQuery = true)
+    List<Long> searchAvailableIds(String text, int from, int size);
+
+    @Query(value = "SELECT i.id FROM items i " +
+            "WHERE i.available AND i.id > ?2 AND i.search_vector @@ plainto_tsquery('simple', ?1) " +
+            "ORDER BY i.id " +
+            "LIMIT ?3", nativeQuery = true)
+    List<Long> searchAvailableIdsAfter(String text, long afterId, int limit);
+
+    @Query("select i.id as id, i.name as name, i.description as description, i.available as available " +
+            "from Item i")
+    Stream<ItemSearchView> streamSearchViews();
+
+    /* Карточка вещи за один запрос; последнее и следующее бронирования выбираются оконной функцией */
+    @Query(value = "SELECT i.id AS itemId, i.name AS itemName, i.description AS itemDescription, " +
+            "i.available AS itemAvailable, i.request_id AS requestId, " +
+            "o.id AS ownerId, o.name AS ownerName, o.email AS ownerEmail, " +
+            "lb.id AS lastId, lb.start_date AS lastStart, lb.end_date AS lastEnd, " +
+            "lu.id AS lastBookerId, lu.name AS lastBookerName, lu.email AS lastBookerEmail, " +
+            "nb.id AS nextId, nb.start_date AS nextStart, nb.end_date AS nextEnd, " +
+            "nu.id AS nextBookerId, nu.name AS nextBookerName, nu.email AS nextBookerEmail, " +
+            "c.id AS commentId, c.text AS commentText, a.name AS commentAuthorName, c.created AS commentCreated " +
+            "FROM items i " +
+            "JOIN users o ON o.id = i.owner_id " +
+            "LEFT JOIN (SELECT b.id, b.start_date, b.end_date, b.booker_id, " +
+            "ROW_NUMBER() OVER (ORDER BY b.end_date DESC, b.id) AS rn FROM bookings b " +
+            "WHERE b.item_id = ?1 AND b.status = 'APPROVED' AND b.start_date <= ?2) lb ON lb.rn = 1 " +
+            "LEFT JOIN users lu ON lu.id = lb.booker_id " +
+            "LEFT JOIN (SELECT b.id, b.start_date, b.end_date, b.booker_id, " +
+            "ROW_NUMBER() OVER (ORDER BY b.end_date, b.id) AS rn FROM bookings b " +
+            "WHERE b.item_id = ?1 AND b.status = 'APPROVED' AND b.start_date > ?2) nb ON nb.rn = 1 " +
+            "LEFT JOIN users nu ON nu.id = nb.booker_id " +
+            "LEFT JOIN comments c ON c.item_id = i.id " +
+            "LEFT JOIN users a ON a.id = c.author_id " +
+            "WHERE i.id = ?1 " +
+            "ORDER BY c.created, c.id", nativeQuery = true)
+    List<ItemDetailsView> findItemDetails(Long itemId, LocalDateTime moment);
 
     List<Item> findAllByRequestId(Long requestId);
-}
 
+    /* Вещи для страницы запросов одним запросом; связи подгружаются сразу, чтобы EAGER не давал N+1 */
+    @EntityGraph(attributePaths = {"owner", "request", "request.requestor"})
+    List<Item> findAllByRequestIdIn(Collection<Long> requestIds);
+
+    @EntityGraph(attributePaths = {"owner", "request", "request.requestor"})
+    List<Item> findAllByIdIn(Collection<Long> ids);
+
+    @Query("select i.id from Item i where i.id > ?1 order by i.id")
+    List<Long> findIdsAfter(Long id, Limit limit);
+}
@@ -0,0 +1,222 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Инвертированный индекс в памяти процесса для H2, где нет tsvector. Слова разбираются так же,
+ * как конфигурация 'simple' в Postgres: нижний регистр, без стемминга. Релевантность - сумма tf * idf
+ * по словам запроса. Индекс строится потоковым чтением таблицы при старте и дальше обновляется
+ * из ItemServiceImpl после фиксации транзакции.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnExpression("'${shareit.item.search.mode:substring}' == 'fulltext' "
+        + "and '${spring.sql.init.platform:h2}' != 'postgresql'")
+public class InMemoryItemSearchEngine implements ItemSearchEngine {
+    private final ItemRepository itemRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    /* Списки слов упорядочены по id вещи: постраничный поиск начинает с afterId, а не со всего списка */
+    private final Map<String, NavigableMap<Long, Integer>> postings = new HashMap<>();
+    private final Map<Long, Document> documents = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private record Document(Map<String, Integer> terms, boolean available) {
+    }
+
+    private record Hit(long id, double score) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        Integer indexed = transaction.execute(status -> {
+            int count = 0;
+            try (Stream<ItemSearchView> items = itemRepository.streamSearchViews()) {
+                for (ItemSearchView item : (Iterable<ItemSearchView>) items::iterator) {
+                    put(item.getId(), document(item.getName(), item.getDescription(), item.getAvailable()));
+                    count++;
+                }
+            }
+            return count;
+        });
+        log.info("Поисковый индекс вещей построен: {} вещей", indexed);
+    }
+
+    /* Документ снимается с вещи сразу, а в индекс попадает после фиксации: другие запросы не видят незафиксированную вещь */
+    @Override
+    public void index(Item item) {
+        Long id = item.getId();
+        Document document = document(item.getName(), item.getDescription(), item.getAvailable());
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            put(id, document);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                put(id, document);
+            }
+        });
+    }
+
+    @Override
+    public List<Long> search(String text, int from, int size) {
+        Set<String> words = new LinkedHashSet<>(tokenize(text));
+        if (words.isEmpty() || size <= 0) {
+            return Collections.emptyList();
+        }
+        lock.readLock().lock();
+        try {
+            List<NavigableMap<Long, Integer>> lists = postings(words);
+            if (lists.isEmpty()) {
+                return Collections.emptyList();
+            }
+            double total = documents.size();
+            /* Куча из from + size лучших результатов, в вершине - худший из них */
+            Comparator<Hit> byRank = Comparator.comparingDouble(Hit::score).reversed().thenComparingLong(Hit::id);
+            PriorityQueue<Hit> top = new PriorityQueue<>(byRank.reversed());
+            int limit = from + size;
+            candidates:
+            for (Map.Entry<Long, Integer> candidate : lists.get(0).entrySet()) {
+                Long id = candidate.getKey();
+                if (!documents.get(id).available()) {
+                    continue;
+                }
+                double score = 0;
+                for (NavigableMap<Long, Integer> list : lists) {
+                    Integer frequency = list.get(id);
+                    if (frequency == null) {
+                        continue candidates;
+                    }
+                    score += frequency * Math.log(1 + total / list.size());
+                }
+                top.add(new Hit(id, score));
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+            List<Hit> hits = new ArrayList<>(top);
+            hits.sort(byRank);
+            return hits.stream().skip(from).map(Hit::id).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /* Кратчайший список читается с первого id после afterId; остальные проверяются поиском в дереве */
+    @Override
+    public List<Long> searchAfter(String text, long afterId, int limit) {
+        Set<String> words = new LinkedHashSet<>(tokenize(text));
+        if (words.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        lock.readLock().lock();
+        try {
+            List<NavigableMap<Long, Integer>> lists = postings(words);
+            if (lists.isEmpty()) {
+                return Collections.emptyList();
+            }
+            List<Long> ids = new ArrayList<>(limit);
+            candidates:
+            for (Long id : lists.get(0).tailMap(afterId, false).keySet()) {
+                if (!documents.get(id).available()) {
+                    continue;
+                }
+                for (int i = 1; i < lists.size(); i++) {
+                    if (!lists.get(i).containsKey(id)) {
+                        continue candidates;
+                    }
+                }
+                ids.add(id);
+                if (ids.size() == limit) {
+                    break;
+                }
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /* Списки слов запроса от короткого к длинному; пустой результат, если какого-то слова нет в индексе */
+    private List<NavigableMap<Long, Integer>> postings(Set<String> words) {
+        List<NavigableMap<Long, Integer>> lists = new ArrayList<>();
+        for (String word : words) {
+            NavigableMap<Long, Integer> list = postings.get(word);
+            if (list == null) {
+                return Collections.emptyList();
+            }
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(Map::size));
+        return lists;
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    private static Document document(String name, String description, Boolean available) {
+        Map<String, Integer> terms = new HashMap<>();
+        for (String word : tokenize(name)) {
+            terms.merge(word, 1, Integer::sum);
+        }
+        for (String word : tokenize(description)) {
+            terms.merge(word, 1, Integer::sum);
+        }
+        return new Document(terms, Boolean.TRUE.equals(available));
+    }
+
+    /* Заменяет документ вещи (null - удаляет) */
+    private void put(Long id, Document document) {
+        lock.writeLock().lock();
+        try {
+            Document previous = document == null ? documents.remove(id) : documents.put(id, document);
+            if (previous != null) {
+                for (String word : previous.terms().keySet()) {
+                    NavigableMap<Long, Integer> list = postings.get(word);
+                    list.remove(id);
+                    if (list.isEmpty()) {
+                        postings.remove(word);
+                    }
+                }
+            }
+            if (document != null) {
+                document.terms().forEach((word, frequency) ->
+                        postings.computeIfAbsent(word, key -> new TreeMap<>()).put(id, frequency));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
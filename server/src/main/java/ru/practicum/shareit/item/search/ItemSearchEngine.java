@@ -0,0 +1,21 @@
+package ru.practicum.shareit.item.search;
+
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.List;
+
+/**
+ * Поиск доступных вещей по названию и описанию. Реализацию задаёт свойство shareit.item.search.mode:
+ * substring (по умолчанию) - поиск подстроки, fulltext - полнотекстовый поиск по словам.
+ */
+public interface ItemSearchEngine {
+    /* Идентификаторы подходящих доступных вещей в порядке, который задаёт реализация */
+    List<Long> search(String text, int from, int size);
+
+    /* Не больше limit идентификаторов подходящих доступных вещей с id больше afterId, по возрастанию id:
+       кандидаты для выдачи, которая идёт по id и дальше фильтруется запросом к базе */
+    List<Long> searchAfter(String text, long afterId, int limit);
+
+    /* Обновляет вещь в индексе после создания или изменения */
+    void index(Item item);
+}
@@ -0,0 +1,12 @@
+package ru.practicum.shareit.item.search;
+
+/* Поля вещи, которые нужны для построения поискового индекса */
+public interface ItemSearchView {
+    Long getId();
+
+    String getName();
+
+    String getDescription();
+
+    Boolean getAvailable();
+}
@@ -0,0 +1,52 @@
+package ru.practicum.shareit.item.search;
+
+import java.util.Arrays;
+
+/**
+ * Отсортированный список идентификаторов вещей на примитивном long[] без упаковки в Long.
+ * Не потокобезопасен: доступ синхронизирует владеющий индекс.
+ */
+class LongPostings {
+    private long[] ids = new long[4];
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    long get(int index) {
+        return ids[index];
+    }
+
+    void add(long id) {
+        int position = Arrays.binarySearch(ids, 0, size, id);
+        if (position >= 0) {
+            return;
+        }
+        position = -position - 1;
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+        }
+        System.arraycopy(ids, position, ids, position + 1, size - position);
+        ids[position] = id;
+        size++;
+    }
+
+    void remove(long id) {
+        int position = Arrays.binarySearch(ids, 0, size, id);
+        if (position < 0) {
+            return;
+        }
+        System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+        size--;
+        if (size < ids.length / 4 && ids.length > 4) {
+            ids = Arrays.copyOf(ids, Math.max(size * 2, 4));
+        }
+    }
+
+    /* Поиск id начиная с позиции from; возвращает позицию первого элемента не меньше id */
+    int seek(long id, int from) {
+        int position = Arrays.binarySearch(ids, from, size, id);
+        return position >= 0 ? position : -position - 1;
+    }
+}
@@ -0,0 +1,35 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.List;
+
+/**
+ * Поиск по колонке items.search_vector и GIN-индексу из schema-postgresql.sql.
+ * Колонка вычисляемая, поэтому база обновляет её сама при каждом изменении вещи.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnExpression("'${shareit.item.search.mode:substring}' == 'fulltext' "
+        + "and '${spring.sql.init.platform:h2}' == 'postgresql'")
+public class PostgresItemSearchEngine implements ItemSearchEngine {
+    private final ItemRepository itemRepository;
+
+    @Override
+    public List<Long> search(String text, int from, int size) {
+        return itemRepository.searchAvailableIds(text, from, size);
+    }
+
+    @Override
+    public List<Long> searchAfter(String text, long afterId, int limit) {
+        return itemRepository.searchAvailableIdsAfter(text, afterId, limit);
+    }
+
+    @Override
+    public void index(Item item) {
+    }
+}
@@ -0,0 +1,239 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Поиск подстроки без учёта регистра в названии или описании доступной вещи - та же семантика,
+ * что у прежнего LIKE '%text%'. В индексе для каждой триграммы хранится отсортированный long[]
+ * идентификаторов вещей. Списки триграмм запроса пересекаются, начиная с самого короткого, и каждый
+ * кандидат проверяется по тексту, поэтому просматриваются только вещи со всеми триграммами запроса.
+ * Запросы короче трёх символов проверяются перебором. Индекс строится потоковым чтением таблицы
+ * при старте и обновляется из ItemServiceImpl после фиксации транзакции.
+ * Пока индекс не построен, поиск идёт запросом LIKE к базе с тем же порядком выдачи.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shareit.item.search.mode", havingValue = "substring", matchIfMissing = true)
+public class TrigramItemSearchEngine implements ItemSearchEngine {
+    private final ItemRepository itemRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    private final Map<Long, LongPostings> postings = new HashMap<>();
+    private final NavigableMap<Long, Document> documents = new TreeMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean ready;
+
+    private record Document(String name, String description) {
+        boolean contains(String text) {
+            return name.contains(text) || description.contains(text);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        Integer indexed = transaction.execute(status -> {
+            int count = 0;
+            try (Stream<ItemSearchView> items = itemRepository.streamSearchViews()) {
+                for (ItemSearchView item : (Iterable<ItemSearchView>) items::iterator) {
+                    put(item.getId(), document(item.getName(), item.getDescription(), item.getAvailable()));
+                    count++;
+                }
+            }
+            return count;
+        });
+        ready = true;
+        log.info("Триграммный индекс вещей построен: {} вещей, {} триграмм", indexed, postings.size());
+    }
+
+    /* Документ снимается с вещи сразу, а в индекс попадает после фиксации: другие запросы не видят незафиксированную вещь */
+    @Override
+    public void index(Item item) {
+        Long id = item.getId();
+        Document document = document(item.getName(), item.getDescription(), item.getAvailable());
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            put(id, document);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                put(id, document);
+            }
+        });
+    }
+
+    @Override
+    public List<Long> search(String text, int from, int size) {
+        String query = normalize(text);
+        if (query.isEmpty() || size <= 0) {
+            return Collections.emptyList();
+        }
+        if (!ready) {
+            return searchDatabase(query, Long.MIN_VALUE, from, size);
+        }
+        lock.readLock().lock();
+        try {
+            return query.length() < 3 ? scan(query, Long.MIN_VALUE, from, size)
+                    : intersect(query, Long.MIN_VALUE, from, size);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /* Списки триграмм и документы упорядочены по id, поэтому выдача после afterId начинается с поиска позиции */
+    @Override
+    public List<Long> searchAfter(String text, long afterId, int limit) {
+        String query = normalize(text);
+        if (query.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        if (!ready) {
+            return searchDatabase(query, afterId, 0, limit);
+        }
+        lock.readLock().lock();
+        try {
+            return query.length() < 3 ? scan(query, afterId, 0, limit) : intersect(query, afterId, 0, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Long> searchDatabase(String query, long afterId, int from, int size) {
+        String pattern = query.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+        List<Long> ids = itemRepository.findAvailableIdsContaining(pattern, afterId, Limit.of(from + size));
+        return ids.size() <= from ? Collections.emptyList() : ids.subList(from, ids.size());
+    }
+
+    private List<Long> intersect(String query, long afterId, int from, int size) {
+        List<LongPostings> lists = new ArrayList<>();
+        for (long trigram : trigrams(query)) {
+            LongPostings list = postings.get(trigram);
+            if (list == null) {
+                return Collections.emptyList();
+            }
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(LongPostings::size));
+        LongPostings shortest = lists.get(0);
+        int[] positions = new int[lists.size()];
+        List<Long> found = new ArrayList<>(size);
+        int skipped = 0;
+        int start = shortest.seek(afterId, 0);
+        if (start < shortest.size() && shortest.get(start) == afterId) {
+            start++;
+        }
+        candidates:
+        for (int i = start; i < shortest.size() && found.size() < size; i++) {
+            long id = shortest.get(i);
+            for (int j = 1; j < lists.size(); j++) {
+                LongPostings list = lists.get(j);
+                positions[j] = list.seek(id, positions[j]);
+                if (positions[j] == list.size()) {
+                    break candidates;
+                }
+                if (list.get(positions[j]) != id) {
+                    continue candidates;
+                }
+            }
+            if (documents.get(id).contains(query)) {
+                if (skipped < from) {
+                    skipped++;
+                } else {
+                    found.add(id);
+                }
+            }
+        }
+        return found;
+    }
+
+    private List<Long> scan(String query, long afterId, int from, int size) {
+        List<Long> found = new ArrayList<>(size);
+        int skipped = 0;
+        for (Map.Entry<Long, Document> entry : documents.tailMap(afterId, false).entrySet()) {
+            if (found.size() == size) {
+                break;
+            }
+            if (entry.getValue().contains(query)) {
+                if (skipped < from) {
+                    skipped++;
+                } else {
+                    found.add(entry.getKey());
+                }
+            }
+        }
+        return found;
+    }
+
+    /* В индекс попадают только доступные вещи: недоступные поиск не возвращает */
+    private static Document document(String name, String description, Boolean available) {
+        if (!Boolean.TRUE.equals(available)) {
+            return null;
+        }
+        return new Document(normalize(name), normalize(description));
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    /* Триграмма упаковывается в long по 16 бит на символ */
+    private static Set<Long> trigrams(String text) {
+        Set<Long> trigrams = new HashSet<>();
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            trigrams.add(((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2));
+        }
+        return trigrams;
+    }
+
+    /* Заменяет документ вещи (null - удаляет) */
+    private void put(Long id, Document document) {
+        lock.writeLock().lock();
+        try {
+            Document previous = document == null ? documents.remove(id) : documents.put(id, document);
+            if (previous != null) {
+                for (long trigram : trigrams(previous)) {
+                    LongPostings list = postings.get(trigram);
+                    list.remove(id);
+                    if (list.size() == 0) {
+                        postings.remove(trigram);
+                    }
+                }
+            }
+            if (document != null) {
+                for (long trigram : trigrams(document)) {
+                    postings.computeIfAbsent(trigram, key -> new LongPostings()).add(id);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static Set<Long> trigrams(Document document) {
+        Set<Long> trigrams = trigrams(document.name());
+        trigrams.addAll(trigrams(document.description()));
+        return trigrams;
+    }
+}
@@ -1,13 +1,20 @@
 package ru.practicum.shareit.item.service;
 
+import org.springframework.http.MediaType;
+import ru.practicum.shareit.bulk.ImportReport;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.item.comment.dto.CommentDto;
 import ru.practicum.shareit.item.comment.dto.CommentDtoOut;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoOut;
+import ru.practicum.shareit.item.dto.ItemDtoPage;
 
+import java.io.InputStream;
+import java.time.LocalDateTime;
 import java.util.Collection;
+import java.util.List;
 
 public interface ItemService {
     ItemDtoOut create(Long userId, ItemDto itemDto) throws NotFoundException;
@@ -20,9 +27,18 @@ public interface ItemService {
 
     Collection<ItemDtoOut> getItemByUser(Long userId) throws NotFoundException;
 
-    Collection<ItemDtoOut> searchItemByText(String text);
+    Collection<ItemDtoOut> searchItemByText(String text, Integer from, Integer size) throws ValidationException;
+
+    ItemDtoPage searchAvailableItems(String text, LocalDateTime start, LocalDateTime end, Integer size, String cursor)
+            throws ValidationException;
+
+    List<ItemAvailabilityDto> getAvailability(Long itemId, LocalDateTime from, LocalDateTime to, String unit)
+            throws ValidationException, NotFoundException;
 
     CommentDtoOut addComment(Long itemId, CommentDto commentDto, Long userId) throws ValidationException, NotFoundException;
 
+    ImportReport importItems(Long ownerId, MediaType contentType, InputStream body)
+            throws NotFoundException, ValidationException;
+
 }
 
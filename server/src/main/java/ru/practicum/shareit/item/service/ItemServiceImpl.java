@@ -2,43 +2,62 @@ package ru.practicum.shareit.item.service;
 
 import lombok.RequiredArgsConstructor;
 import org.apache.commons.lang3.StringUtils;
-import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.index.ItemOccupancyIndex;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
+import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.bulk.ImportReport;
 import ru.practicum.shareit.enums.Statuses;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.item.bulk.ItemBulkImporter;
 import ru.practicum.shareit.item.comment.Comment;
 import ru.practicum.shareit.item.comment.CommentMapper;
 import ru.practicum.shareit.item.comment.CommentRepository;
 import ru.practicum.shareit.item.comment.dto.CommentDto;
 import ru.practicum.shareit.item.comment.dto.CommentDtoOut;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
+import ru.practicum.shareit.item.dto.ItemDetailsView;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoOut;
+import ru.practicum.shareit.item.dto.ItemDtoPage;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
+import ru.practicum.shareit.page.CursorCodec;
+import ru.practicum.shareit.request.matching.ItemRequestMatcher;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
+import java.io.InputStream;
 import java.time.LocalDateTime;
+import java.time.Period;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
 
 import static java.util.stream.Collectors.toList;
-import static org.springframework.data.domain.Sort.Direction.ASC;
-import static org.springframework.data.domain.Sort.Direction.DESC;
 
 @Service
 @RequiredArgsConstructor
 public class ItemServiceImpl implements ItemService {
+    private static final Period AVAILABILITY_MAX_PERIOD = Period.ofYears(1);
+    /* Наименьшая пачка кандидатов поиска, которую проверяет на занятость один запрос к базе */
+    private static final int AVAILABLE_SEARCH_BATCH = 100;
+
     private final ItemRepository itemRepository;
     private final UserRepository userRepository;
     private final CommentRepository commentRepository;
     private final BookingRepository bookingRepository;
     private final ItemRequestRepository itemRequestRepository;
+    private final ItemOccupancyIndex itemOccupancyIndex;
+    private final ItemSearchEngine itemSearchEngine;
+    private final ItemRequestMatcher itemRequestMatcher;
+    private final ItemBulkImporter itemBulkImporter;
 
 
     @Transactional
@@ -53,14 +72,20 @@ public class ItemServiceImpl implements ItemService {
             item.setRequest(itemRequestRepository.findById(requestId).orElseThrow(() ->
                     new NotFoundException(String.format("Запрос с id %d не найден", requestId))));
         }
-        return ItemMapper.toItemDto(itemRepository.save(item));
+        Item savedItem = itemRepository.save(item);
+        itemSearchEngine.index(savedItem);
+        itemRequestMatcher.itemSaved(savedItem);
+        return ItemMapper.toItemDto(savedItem);
     }
 
     @Transactional(readOnly = true)
     @Override
     public ItemDtoOut getItemById(Long itemId, Long userId) throws NotFoundException {
-        return itemRepository.findById(itemId).map(item -> commentsAndBooking(item, userId)).orElseThrow(() ->
-                new NotFoundException(String.format("id %s не найден", itemId)));
+        List<ItemDetailsView> rows = itemRepository.findItemDetails(itemId, LocalDateTime.now());
+        if (rows.isEmpty()) {
+            throw new NotFoundException(String.format("id %s не найден", itemId));
+        }
+        return ItemMapper.toItemDto(rows, rows.get(0).getOwnerId().equals(userId));
     }
 
     @Transactional
@@ -82,6 +107,8 @@ public class ItemServiceImpl implements ItemService {
         if (newItem.getAvailable() != null) {
             item.setAvailable(newItem.getAvailable());
         }
+        itemSearchEngine.index(item);
+        itemRequestMatcher.itemSaved(item);
         return ItemMapper.toItemDto(item);
     }
 
@@ -103,21 +130,117 @@ public class ItemServiceImpl implements ItemService {
         return Collections.emptyList();
     }
 
+    /* Бронирования и отзывы всех вещей загружаются тремя запросами, независимо от числа вещей */
     private Collection<ItemDtoOut> itemsDtoList(Collection<Item> items) {
         List<Long> itemsIds = items.stream().map(Item::getId).toList();
+        LocalDateTime timeNow = LocalDateTime.now();
+        Map<Long, Booking> lastBookings = firstByItem(bookingRepository
+                .findLastByItemIdIn(itemsIds, timeNow, Statuses.APPROVED));
+        Map<Long, Booking> nextBookings = firstByItem(bookingRepository
+                .findNextByItemIdIn(itemsIds, timeNow, Statuses.APPROVED));
+        Map<Long, List<CommentDtoOut>> comments = new HashMap<>();
+        for (Comment comment : commentRepository.findAllByItemIdIn(itemsIds)) {
+            comments.computeIfAbsent(comment.getItem().getId(), id -> new ArrayList<>())
+                    .add(CommentMapper.toCommentDtoOut(comment));
+        }
 
         Collection<ItemDtoOut> itemsList = new ArrayList<>();
-        for (Item item : items) itemsList.add(ItemMapper.toItemDto(item));
+        for (Item item : items) {
+            ItemDtoOut itemDtoOut = ItemMapper.toItemDto(item);
+            Booking lastBooking = lastBookings.get(item.getId());
+            Booking nextBooking = nextBookings.get(item.getId());
+            itemDtoOut.setLastBooking(lastBooking == null ? null : BookingMapper.toBookingDtoOut(lastBooking));
+            itemDtoOut.setNextBooking(nextBooking == null ? null : BookingMapper.toBookingDtoOut(nextBooking));
+            itemDtoOut.setComments(comments.getOrDefault(item.getId(), new ArrayList<>()));
+            itemsList.add(itemDtoOut);
+        }
         return itemsList;
     }
 
+    private static Map<Long, Booking> firstByItem(List<Booking> bookings) {
+        Map<Long, Booking> byItem = new HashMap<>();
+        for (Booking booking : bookings) {
+            byItem.putIfAbsent(booking.getItem().getId(), booking);
+        }
+        return byItem;
+    }
+
     @Transactional(readOnly = true)
     @Override
-    public Collection<ItemDtoOut> searchItemByText(String text) {
+    public Collection<ItemDtoOut> searchItemByText(String text, Integer from, Integer size)
+            throws ValidationException {
+        if (from == null || from < 0 || size == null || size <= 0) {
+            throw new ValidationException("Некорректные параметры страницы");
+        }
         if (StringUtils.isBlank(text)) {
             return Collections.emptyList();
         }
-        return itemRepository.findItems(text).stream().map(ItemMapper::toItemDto).collect(toList());
+        List<Long> ids = itemSearchEngine.search(text, from, size);
+        Map<Long, Item> items = new HashMap<>();
+        for (Item item : itemRepository.findAllById(ids)) {
+            items.put(item.getId(), item);
+        }
+        /* findAllById не сохраняет порядок, а он задаёт релевантность */
+        return ids.stream().map(items::get).filter(Objects::nonNull).map(ItemMapper::toItemDto).collect(toList());
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public ItemDtoPage searchAvailableItems(String text, LocalDateTime start, LocalDateTime end, Integer size,
+                                            String cursor) throws ValidationException {
+        if (!start.isBefore(end)) {
+            throw new ValidationException("Дата начала должна быть раньше даты окончания");
+        }
+        if (size == null || size <= 0) {
+            throw new ValidationException("Размер страницы должен быть положительным");
+        }
+        if (StringUtils.isBlank(text)) {
+            return new ItemDtoPage(Collections.emptyList(), null);
+        }
+        /* Кандидатов по тексту даёт поисковый индекс в порядке id, база отсеивает занятые на период вещи.
+           Одна лишняя строка показывает, есть ли следующая страница */
+        int batch = Math.max(size + 1, AVAILABLE_SEARCH_BATCH);
+        long afterId = afterId(cursor);
+        List<Item> items = new ArrayList<>(size + 1);
+        while (items.size() <= size) {
+            List<Long> candidates = itemSearchEngine.searchAfter(text, afterId, batch);
+            if (candidates.isEmpty()) {
+                break;
+            }
+            items.addAll(itemRepository.findAvailableAmong(candidates, start, end));
+            if (candidates.size() < batch) {
+                break;
+            }
+            afterId = candidates.get(candidates.size() - 1);
+        }
+        String next = null;
+        if (items.size() > size) {
+            items = items.subList(0, size);
+            next = CursorCodec.encode(items.get(size - 1).getId());
+        }
+        return new ItemDtoPage(items.stream().map(ItemMapper::toItemDto).collect(toList()), next);
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public List<ItemAvailabilityDto> getAvailability(Long itemId, LocalDateTime from, LocalDateTime to, String unit)
+            throws ValidationException, NotFoundException {
+        ChronoUnit slotUnit;
+        try {
+            slotUnit = ChronoUnit.valueOf(unit);
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Неизвестная единица календаря: " + unit);
+        }
+        if (slotUnit != ChronoUnit.HOURS && slotUnit != ChronoUnit.DAYS) {
+            throw new ValidationException("Неизвестная единица календаря: " + unit);
+        }
+        if (!from.isBefore(to) || from.plus(AVAILABILITY_MAX_PERIOD).isBefore(to)) {
+            throw new ValidationException("Период календаря должен быть непустым и не длиннее года");
+        }
+        if (!itemRepository.existsById(itemId)) {
+            throw new NotFoundException(String.format("id %s не найден", itemId));
+        }
+        return itemOccupancyIndex.getFreeSlots(itemId, from, to, slotUnit);
     }
 
     @Transactional
@@ -132,30 +255,23 @@ public class ItemServiceImpl implements ItemService {
         return CommentMapper.toCommentDtoOut(comment);
     }
 
-    private ItemDtoOut commentsAndBooking(Item item, Long userId) {
-        ItemDtoOut itemDtoOut = ItemMapper.toItemDto(item);
+    /* Каждая пачка импорта сохраняется в своей транзакции, поэтому метод не транзакционный */
+    @Override
+    public ImportReport importItems(Long ownerId, MediaType contentType, InputStream body)
+            throws NotFoundException, ValidationException {
+        return itemBulkImporter.importItems(ownerId, contentType, body);
+    }
 
-        LocalDateTime timeNow = LocalDateTime.now();
-        if (itemDtoOut.getOwner().getId().equals(userId)) {
-            itemDtoOut.setLastBooking(bookingRepository
-                    .findFirstByItemIdAndStartLessThanEqualAndStatus(itemDtoOut.getId(), timeNow,
-                            Statuses.APPROVED, Sort.by(DESC, "end"))
-                    .map(BookingMapper::toBookingDtoOut)
-                    .orElse(null));
-
-            itemDtoOut.setNextBooking(bookingRepository
-                    .findFirstByItemIdAndStartAfterAndStatus(itemDtoOut.getId(), timeNow,
-                            Statuses.APPROVED, Sort.by(ASC, "end"))
-                    .map(BookingMapper::toBookingDtoOut)
-                    .orElse(null));
-        }
-
-        itemDtoOut.setComments(commentRepository.findAllByItemId(itemDtoOut.getId())
-                .stream()
-                .map(CommentMapper::toCommentDtoOut)
-                .collect(toList()));
-
-        return itemDtoOut;
+    private static long afterId(String cursor) throws ValidationException {
+        String[] parts = CursorCodec.decode(cursor, 1);
+        if (parts == null) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(parts[0]);
+        } catch (NumberFormatException e) {
+            throw CursorCodec.invalid(cursor);
+        }
     }
 
     private User getUser(Long userId) throws NotFoundException {
@@ -163,4 +279,3 @@ public class ItemServiceImpl implements ItemService {
                 new NotFoundException(String.format("Пользователь %d не найден", userId)));
     }
 }
-
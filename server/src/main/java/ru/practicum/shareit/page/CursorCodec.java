@@ -0,0 +1,47 @@
+package ru.practicum.shareit.page;
+
+import ru.practicum.shareit.exception.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/* Непрозрачный токен курсора постраничной выдачи: части ключа последней строки через "|" в base64 */
+public final class CursorCodec {
+    /* Заголовок ответа с курсором следующей страницы, на последней странице его нет */
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private static final String SEPARATOR = "|";
+
+    private CursorCodec() {
+    }
+
+    public static String encode(Object... parts) {
+        String raw = Arrays.stream(parts).map(String::valueOf).collect(Collectors.joining(SEPARATOR));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /* Метод возвращает части токена; пустой токен означает первую страницу, для него возвращается null */
+    public static String[] decode(String token, int parts) throws ValidationException {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw invalid(token);
+        }
+        String[] values = raw.split(Pattern.quote(SEPARATOR), -1);
+        if (values.length != parts) {
+            throw invalid(token);
+        }
+        return values;
+    }
+
+    public static ValidationException invalid(String token) {
+        return new ValidationException("Некорректный курсор: " + token);
+    }
+}
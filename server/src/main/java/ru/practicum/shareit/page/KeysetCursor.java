@@ -0,0 +1,36 @@
+package ru.practicum.shareit.page;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import ru.practicum.shareit.exception.ValidationException;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+/* Позиция в ленте, отсортированной по (время, id) по убыванию: бронирования по start, запросы по created */
+@Data
+@AllArgsConstructor
+public class KeysetCursor {
+    public static final KeysetCursor FIRST = new KeysetCursor(LocalDateTime.of(9999, 12, 31, 23, 59, 59), Long.MAX_VALUE);
+
+    private LocalDateTime time;
+    private Long id;
+
+    /* Метод преобразовывает курсор в непрозрачный токен для клиента */
+    public String encode() {
+        return CursorCodec.encode(time, id);
+    }
+
+    /* Метод восстанавливает курсор из токена, пустой токен означает первую страницу */
+    public static KeysetCursor decode(String token) throws ValidationException {
+        String[] parts = CursorCodec.decode(token, 2);
+        if (parts == null) {
+            return FIRST;
+        }
+        try {
+            return new KeysetCursor(LocalDateTime.parse(parts[0]), Long.parseLong(parts[1]));
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw CursorCodec.invalid(token);
+        }
+    }
+}
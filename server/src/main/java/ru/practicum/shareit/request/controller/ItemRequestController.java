@@ -1,10 +1,16 @@
 package ru.practicum.shareit.request.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.page.CursorCodec;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestDtoOut;
+import ru.practicum.shareit.request.dto.ItemRequestDtoPage;
 import ru.practicum.shareit.request.service.ItemRequestServiceImpl;
 
 import java.util.List;
@@ -27,10 +33,23 @@ public class ItemRequestController {
     }
 
     @GetMapping("/all")
-    public List<ItemRequestDtoOut> getAllRequests(@RequestParam(defaultValue = "1") Integer from,
-                                                  @RequestParam(defaultValue = "10") Integer size,
-                                                  @RequestHeader("X-Sharer-User-Id") long userId) throws NotFoundException {
-        return requestService.getAllRequests(from, size, userId);
+    public ResponseEntity<List<ItemRequestDtoOut>> getAllRequests(@RequestParam(defaultValue = "10") Integer size,
+                                                                  @RequestParam(required = false) String cursor,
+                                                                  @RequestHeader("X-Sharer-User-Id") long userId)
+            throws NotFoundException, ValidationException {
+        ItemRequestDtoPage page = requestService.getAllRequests(size, cursor, userId);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNext() != null) {
+            response.header(CursorCodec.NEXT_CURSOR_HEADER, page.getNext());
+        }
+        return response.body(page.getRequests());
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter getRequestStream(@RequestHeader("X-Sharer-User-Id") long userId,
+                                       @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId)
+            throws NotFoundException {
+        return requestService.subscribe(userId, lastEventId);
     }
 
     @GetMapping("/{requestId}")
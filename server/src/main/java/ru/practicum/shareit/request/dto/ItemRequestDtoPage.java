@@ -0,0 +1,13 @@
+package ru.practicum.shareit.request.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class ItemRequestDtoPage {
+    private List<ItemRequestDtoOut> requests;
+    private String next;
+}
@@ -0,0 +1,10 @@
+package ru.practicum.shareit.request.dto;
+
+/* Поля открытого запроса, которые нужны индексу сопоставления */
+public interface OpenRequestView {
+    Long getId();
+
+    String getDescription();
+
+    Long getRequestorId();
+}
@@ -0,0 +1,130 @@
+package ru.practicum.shareit.request.feed;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.request.dto.ItemRequestDtoOut;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Подписчик ленты запросов с ограниченным буфером. При переполнении вытесняется самое старое событие,
+ * а число потерянных событий отправляется клиенту событием lag перед следующими запросами.
+ * Буфер заполняют потоки, завершившие транзакцию, а отправляет в соединение один виртуальный поток за раз.
+ * События приходят в порядке фиксации транзакций, а не id, поэтому по id они не фильтруются: повторно
+ * не отправляются только запросы, которые уже ушли при восстановлении по Last-Event-ID.
+ * Периодический комментарий ping проверяет соединение: запись в полуоткрытое соединение рано или поздно
+ * завершается ошибкой, и подписчик удаляется, даже если новых запросов нет.
+ */
+class FeedSubscriber {
+    static final String REQUEST_EVENT = "request";
+    static final String LAG_EVENT = "lag";
+    static final String PING_COMMENT = "ping";
+
+    private final Long userId;
+    private final SseEmitter emitter;
+    private final BlockingQueue<ItemRequestDtoOut> buffer;
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final AtomicBoolean ping = new AtomicBoolean();
+    private volatile List<ItemRequestDtoOut> replay = List.of();
+    private volatile boolean ready;
+    /* id из восстановления: подписчик зарегистрирован до чтения пропущенных, и эти запросы могут прийти ещё раз */
+    private Set<Long> replayed = Set.of();
+
+    FeedSubscriber(Long userId, SseEmitter emitter, int bufferSize) {
+        this.userId = userId;
+        this.emitter = emitter;
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+    }
+
+    SseEmitter getEmitter() {
+        return emitter;
+    }
+
+    boolean isReady() {
+        return ready;
+    }
+
+    /* Пропущенные за время отключения запросы отправляются раньше буфера; после этого подписчик получает события */
+    void startWith(List<ItemRequestDtoOut> missed, long lost) {
+        Set<Long> ids = new HashSet<>();
+        for (ItemRequestDtoOut request : missed) {
+            ids.add(request.getId());
+        }
+        replayed = ids;
+        replay = missed;
+        dropped.addAndGet(lost);
+        ready = true;
+    }
+
+    /* Свои запросы пользователю не отправляются, как и в GET /requests/all */
+    boolean accepts(ItemRequestDtoOut request) {
+        return !userId.equals(request.getRequestorId());
+    }
+
+    synchronized void offer(ItemRequestDtoOut request) {
+        while (!buffer.offer(request)) {
+            if (buffer.poll() != null) {
+                dropped.incrementAndGet();
+            }
+        }
+    }
+
+    void requestPing() {
+        ping.set(true);
+    }
+
+    boolean hasPending() {
+        return !buffer.isEmpty() || dropped.get() > 0 || ping.get();
+    }
+
+    boolean tryStartSending() {
+        return scheduled.compareAndSet(false, true);
+    }
+
+    void finishSending() {
+        scheduled.set(false);
+    }
+
+    /* Вызывается только из потока отправки при установленном флаге */
+    void flush() throws IOException {
+        List<ItemRequestDtoOut> missed = replay;
+        if (!missed.isEmpty()) {
+            replay = List.of();
+            for (ItemRequestDtoOut request : missed) {
+                send(request);
+            }
+        }
+        long lost = dropped.getAndSet(0);
+        if (lost > 0) {
+            emitter.send(SseEmitter.event().name(LAG_EVENT).data(lost));
+        }
+        ItemRequestDtoOut request;
+        boolean sent = false;
+        while ((request = buffer.poll()) != null) {
+            /* Каждый запрос публикуется один раз, поэтому после совпадения id из набора больше не нужен */
+            if (replayed.isEmpty() || !replayed.remove(request.getId())) {
+                send(request);
+                sent = true;
+            }
+        }
+        /* Отправленные события уже проверили соединение, отдельный ping не нужен */
+        if (ping.getAndSet(false) && !sent && lost == 0) {
+            emitter.send(SseEmitter.event().comment(PING_COMMENT));
+        }
+    }
+
+    private void send(ItemRequestDtoOut request) throws IOException {
+        emitter.send(SseEmitter.event()
+                .id(String.valueOf(request.getId()))
+                .name(REQUEST_EVENT)
+                .data(request, MediaType.APPLICATION_JSON));
+    }
+}
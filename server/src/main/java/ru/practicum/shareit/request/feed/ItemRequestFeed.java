@@ -0,0 +1,194 @@
+package ru.practicum.shareit.request.feed;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.request.dto.ItemRequestDtoOut;
+import ru.practicum.shareit.request.dto.ItemRequestMapper;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Лента новых запросов вещей в виде Server-Sent Events. Запрос попадает в буферы подписчиков после
+ * фиксации транзакции, а в соединение каждого подписчика его отправляет свой виртуальный поток: запись
+ * в медленное соединение блокирует только его, а не рассылку остальным. Поток живёт, пока у подписчика
+ * есть что отправить, поэтому простаивающие подписчики потоков не занимают. Идентификатор события - id запроса: при переподключении
+ * с Last-Event-ID пропущенные запросы дочитываются из базы, а если их больше лимита, клиент получает
+ * событие lag и должен перечитать ленту через GET /requests/all. Запросы рассылаются в порядке фиксации,
+ * а не id, поэтому запрос с меньшим id может зафиксироваться уже после отключения клиента. Чтобы его
+ * не потерять, восстановление повторяет и запросы, созданные за shareit.request.feed.replay-window мс
+ * до события Last-Event-ID: доставка в этом окне "хотя бы один раз", клиент отбрасывает повторы по id. Раз в shareit.request.feed.heartbeat мс
+ * подписчикам уходит комментарий ping, чтобы обнаружить и освободить полуоткрытые соединения.
+ */
+@Slf4j
+@Component
+public class ItemRequestFeed {
+    private final ItemRequestRepository requestRepository;
+    private final Executor executor;
+    private final int bufferSize;
+    private final int replayLimit;
+    private final long timeout;
+    private final long replayWindow;
+    private final Set<FeedSubscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private ScheduledExecutorService heartbeats;
+
+    @Autowired
+    public ItemRequestFeed(ItemRequestRepository requestRepository,
+                           @Value("${shareit.request.feed.buffer-size:256}") int bufferSize,
+                           @Value("${shareit.request.feed.replay-limit:100}") int replayLimit,
+                           @Value("${shareit.request.feed.timeout:1800000}") long timeout,
+                           @Value("${shareit.request.feed.replay-window:10000}") long replayWindow,
+                           @Value("${shareit.request.feed.heartbeat:15000}") long heartbeat) {
+        this(requestRepository, newSenderExecutor(), bufferSize, replayLimit, timeout, replayWindow);
+        if (heartbeat > 0) {
+            heartbeats = Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform().name("request-feed-heartbeat").daemon(true).factory());
+            heartbeats.scheduleWithFixedDelay(this::heartbeat, heartbeat, heartbeat, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    ItemRequestFeed(ItemRequestRepository requestRepository, Executor executor,
+                    int bufferSize, int replayLimit, long timeout, long replayWindow) {
+        this.requestRepository = requestRepository;
+        this.executor = executor;
+        this.bufferSize = bufferSize;
+        this.replayLimit = replayLimit;
+        this.timeout = timeout;
+        this.replayWindow = replayWindow;
+    }
+
+    /* Задача на каждую отправку; флаг отправки подписчика не даёт запустить две сразу */
+    static ExecutorService newSenderExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("request-feed-", 0).factory());
+    }
+
+    public SseEmitter subscribe(Long userId, Long lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeout);
+        register(userId, lastEventId, emitter);
+        return emitter;
+    }
+
+    void register(Long userId, Long lastEventId, SseEmitter emitter) {
+        FeedSubscriber subscriber = new FeedSubscriber(userId, emitter, bufferSize);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        /* Подписчик регистрируется до чтения пропущенных, чтобы не потерять запросы, созданные между ними */
+        subscribers.add(subscriber);
+        if (lastEventId == null) {
+            subscriber.startWith(List.of(), 0);
+        } else {
+            LocalDateTime since = requestRepository.findById(lastEventId)
+                    .map(ItemRequest::getCreated)
+                    .orElseGet(LocalDateTime::now)
+                    .minus(replayWindow, ChronoUnit.MILLIS);
+            List<ItemRequest> missed = requestRepository.findAllForFeedReplay(
+                    lastEventId, userId, since, Limit.of(replayLimit + 1));
+            if (missed.size() > replayLimit) {
+                subscriber.startWith(List.of(),
+                        requestRepository.countForFeedReplay(lastEventId, userId, since));
+            } else {
+                List<ItemRequestDtoOut> replay = new ArrayList<>();
+                for (ItemRequest request : missed) {
+                    replay.add(ItemRequestMapper.toItemRequestDtoOut(request));
+                }
+                subscriber.startWith(replay, 0);
+            }
+        }
+        schedule(subscriber);
+        log.info("Подписка на ленту запросов: пользователь {}, подписчиков {}", userId, subscribers.size());
+    }
+
+    /* Запрос рассылается после фиксации транзакции, при откате подписчики его не увидят */
+    public void publish(ItemRequestDtoOut request) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            fanOut(request);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                fanOut(request);
+            }
+        });
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    /* Ping отправляет тот же поток подписчика, что и запросы, поэтому он не пересекается с отправкой событий */
+    void heartbeat() {
+        for (FeedSubscriber subscriber : subscribers) {
+            if (subscriber.isReady()) {
+                subscriber.requestPing();
+                schedule(subscriber);
+            }
+        }
+    }
+
+    private void fanOut(ItemRequestDtoOut request) {
+        for (FeedSubscriber subscriber : subscribers) {
+            if (subscriber.accepts(request)) {
+                subscriber.offer(request);
+                if (subscriber.isReady()) {
+                    schedule(subscriber);
+                }
+            }
+        }
+    }
+
+    private void schedule(FeedSubscriber subscriber) {
+        if (subscriber.tryStartSending()) {
+            executor.execute(() -> send(subscriber));
+        }
+    }
+
+    private void send(FeedSubscriber subscriber) {
+        try {
+            subscriber.flush();
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Подписчик ленты запросов отключился: {}", e.getMessage());
+            subscribers.remove(subscriber);
+            return;
+        } finally {
+            subscriber.finishSending();
+        }
+        if (subscriber.hasPending()) {
+            schedule(subscriber);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (FeedSubscriber subscriber : subscribers) {
+            subscriber.getEmitter().complete();
+        }
+        subscribers.clear();
+        if (heartbeats != null) {
+            heartbeats.shutdownNow();
+        }
+        if (executor instanceof ExecutorService service) {
+            service.shutdownNow();
+        }
+    }
+}
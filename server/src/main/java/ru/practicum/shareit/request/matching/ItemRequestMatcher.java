@@ -0,0 +1,253 @@
+package ru.practicum.shareit.request.matching;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.request.dto.OpenRequestView;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.model.RequestMatch;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.request.repository.RequestMatchRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Фоновое сопоставление новых и изменённых вещей с открытыми запросами. После фиксации транзакции
+ * id вещи попадает в очередь, а один фоновый поток забирает её пачками: до batchSize вещей или всё,
+ * что пришло за linger миллисекунд после первой. Пачка загружается одним запросом, прежние совпадения
+ * её вещей и запросов, на которые они отвечают, удаляются и записываются новые. Создание вещи только
+ * кладёт id в очередь и не ждёт сопоставления. Вещи, не попавшие в переполненную очередь или в упавшую
+ * пачку, не теряются: запоминается наименьший такой id, и раз в catchUpMillis все вещи начиная с него
+ * заново ставятся в очередь.
+ */
+@Slf4j
+@Component
+public class ItemRequestMatcher {
+    private final RequestMatchIndex index;
+    private final ItemRepository itemRepository;
+    private final ItemRequestRepository requestRepository;
+    private final RequestMatchRepository matchRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final BlockingQueue<Long> queue;
+    private final int batchSize;
+    private final long lingerMillis;
+    private final double minScore;
+    private final int maxMatches;
+    private final long catchUpMillis;
+    /* Наименьший id вещи, выпавшей из очереди; Long.MAX_VALUE - догонять нечего */
+    private final AtomicLong missedFrom = new AtomicLong(Long.MAX_VALUE);
+    private Thread worker;
+    private ScheduledExecutorService catchUpExecutor;
+
+    @Autowired
+    public ItemRequestMatcher(RequestMatchIndex index,
+                              ItemRepository itemRepository,
+                              ItemRequestRepository requestRepository,
+                              RequestMatchRepository matchRepository,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${shareit.request.matching.queue-capacity:10000}") int queueCapacity,
+                              @Value("${shareit.request.matching.batch-size:100}") int batchSize,
+                              @Value("${shareit.request.matching.linger-ms:50}") long lingerMillis,
+                              @Value("${shareit.request.matching.min-score:0.5}") double minScore,
+                              @Value("${shareit.request.matching.max-matches:20}") int maxMatches,
+                              @Value("${shareit.request.matching.catch-up-ms:60000}") long catchUpMillis) {
+        this.index = index;
+        this.itemRepository = itemRepository;
+        this.requestRepository = requestRepository;
+        this.matchRepository = matchRepository;
+        this.transactionManager = transactionManager;
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.lingerMillis = lingerMillis;
+        this.minScore = minScore;
+        this.maxMatches = maxMatches;
+        this.catchUpMillis = catchUpMillis;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        rebuild();
+        worker = Thread.ofPlatform().name("request-matcher").daemon(true).start(this::run);
+        catchUpExecutor = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("request-matcher-catch-up").daemon(true).factory());
+        catchUpExecutor.scheduleWithFixedDelay(this::catchUpSafely, catchUpMillis, catchUpMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (worker != null) {
+            worker.interrupt();
+        }
+        if (catchUpExecutor != null) {
+            catchUpExecutor.shutdownNow();
+        }
+    }
+
+    /*
+     * Вещь ставится в очередь после фиксации; запрос, на который она отвечает, перестаёт быть открытым.
+     * Старые строки совпадений удаляет фоновый поток, до тех пор их отбрасывает чтение
+     */
+    public void itemSaved(Item item) {
+        Long itemId = item.getId();
+        Long requestId = item.getRequest() == null ? null : item.getRequest().getId();
+        afterCommit(() -> {
+            if (requestId != null) {
+                index.remove(requestId);
+            }
+            enqueue(itemId);
+        });
+    }
+
+    public void requestCreated(ItemRequest request) {
+        Long requestId = request.getId();
+        Long requestorId = request.getRequestor().getId();
+        String description = request.getDescription();
+        afterCommit(() -> index.add(requestId, requestorId, description));
+    }
+
+    void rebuild() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        transaction.executeWithoutResult(status -> {
+            try (Stream<OpenRequestView> requests = requestRepository.streamOpenRequests()) {
+                requests.forEach(request ->
+                        index.add(request.getId(), request.getRequestorId(), request.getDescription()));
+            }
+        });
+        log.info("Индекс открытых запросов построен: {} запросов", index.size());
+    }
+
+    /*
+     * Ставит в очередь вещи начиная с наименьшего пропущенного id. Если очередь снова заполнилась,
+     * остаток запоминается до следующего запуска
+     */
+    void catchUp() {
+        long from = missedFrom.getAndSet(Long.MAX_VALUE);
+        if (from == Long.MAX_VALUE) {
+            return;
+        }
+        log.info("Повторное сопоставление вещей начиная с {}", from);
+        long after = from - 1;
+        List<Long> ids;
+        do {
+            ids = itemRepository.findIdsAfter(after, Limit.of(batchSize));
+            for (Long id : ids) {
+                if (!enqueue(id)) {
+                    return;
+                }
+                after = id;
+            }
+        } while (ids.size() == batchSize);
+    }
+
+    private void catchUpSafely() {
+        try {
+            catchUp();
+        } catch (RuntimeException e) {
+            log.error("Не удалось повторно поставить вещи в очередь сопоставления", e);
+        }
+    }
+
+    private boolean enqueue(Long itemId) {
+        if (queue.offer(itemId)) {
+            return true;
+        }
+        missedFrom.accumulateAndGet(itemId, Math::min);
+        log.warn("Очередь сопоставления с запросами переполнена, вещь {} будет сопоставлена позже", itemId);
+        return false;
+    }
+
+    private void run() {
+        List<Long> batch = new ArrayList<>(batchSize);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+                while (batch.size() < batchSize) {
+                    Long next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                process(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                log.error("Не удалось сопоставить вещи {} с запросами", batch, e);
+                batch.forEach(id -> missedFrom.accumulateAndGet(id, Math::min));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /*
+     * Недоступные вещи не предлагаются, но их прежние совпадения удаляются; запросы, на которые
+     * ответили вещи пачки, теряют все совпадения
+     */
+    void process(Collection<Long> itemIds) {
+        Set<Long> ids = new LinkedHashSet<>(itemIds);
+        LocalDateTime now = LocalDateTime.now();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            List<RequestMatch> matches = new ArrayList<>();
+            Set<Long> answered = new LinkedHashSet<>();
+            for (Item item : itemRepository.findAllByIdIn(ids)) {
+                if (item.getRequest() != null) {
+                    answered.add(item.getRequest().getId());
+                }
+                if (!Boolean.TRUE.equals(item.getAvailable())) {
+                    continue;
+                }
+                for (RequestMatchIndex.Candidate candidate : index.match(item.getName() + " " + item.getDescription(),
+                        item.getOwner().getId(), minScore, maxMatches)) {
+                    matches.add(new RequestMatch(null, candidate.requestId(), item.getId(), candidate.score(), now));
+                }
+            }
+            matchRepository.deleteAllByItemIdIn(ids);
+            if (!answered.isEmpty()) {
+                matchRepository.deleteAllByRequestIdIn(answered);
+            }
+            matchRepository.saveAll(matches);
+        });
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,120 @@
+package ru.practicum.shareit.request.matching;
+
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Инвертированный индекс слов из описаний открытых запросов. Вещь сопоставляется с запросом,
+ * если в её названии и описании встречается достаточная доля слов запроса. Короткие слова
+ * (предлоги, союзы) не индексируются. Индекс локален для процесса и заполняется ItemRequestMatcher.
+ */
+@Component
+public class RequestMatchIndex {
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}]+");
+    private static final int MIN_WORD_LENGTH = 3;
+
+    private final Map<String, Set<Long>> postings = new HashMap<>();
+    private final Map<Long, OpenRequest> requests = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private record OpenRequest(Long requestorId, Set<String> words) {
+    }
+
+    public record Candidate(Long requestId, double score) {
+    }
+
+    public void add(Long requestId, Long requestorId, String description) {
+        Set<String> words = words(description);
+        if (words.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            unlink(requestId);
+            requests.put(requestId, new OpenRequest(requestorId, words));
+            for (String word : words) {
+                postings.computeIfAbsent(word, w -> new HashSet<>()).add(requestId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long requestId) {
+        lock.writeLock().lock();
+        try {
+            unlink(requestId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return requests.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /* Запросы, у которых в тексте вещи есть не меньше minScore слов; свои запросы владельца не предлагаются */
+    public List<Candidate> match(String text, Long ownerId, double minScore, int limit) {
+        Set<String> words = words(text);
+        Map<Long, Integer> hits = new HashMap<>();
+        List<Candidate> candidates = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (String word : words) {
+                for (Long requestId : postings.getOrDefault(word, Set.of())) {
+                    hits.merge(requestId, 1, Integer::sum);
+                }
+            }
+            for (Map.Entry<Long, Integer> hit : hits.entrySet()) {
+                OpenRequest request = requests.get(hit.getKey());
+                double score = (double) hit.getValue() / request.words().size();
+                if (score >= minScore && !request.requestorId().equals(ownerId)) {
+                    candidates.add(new Candidate(hit.getKey(), score));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        candidates.sort(Comparator.comparingDouble(Candidate::score).reversed()
+                .thenComparing(Candidate::requestId));
+        return candidates.size() > limit ? new ArrayList<>(candidates.subList(0, limit)) : candidates;
+    }
+
+    private void unlink(Long requestId) {
+        OpenRequest previous = requests.remove(requestId);
+        if (previous == null) {
+            return;
+        }
+        for (String word : previous.words()) {
+            Set<Long> ids = postings.get(word);
+            ids.remove(requestId);
+            if (ids.isEmpty()) {
+                postings.remove(word);
+            }
+        }
+    }
+
+    private static Set<String> words(String text) {
+        Set<String> words = new HashSet<>();
+        if (text == null) {
+            return words;
+        }
+        Matcher matcher = WORD.matcher(text.toLowerCase(Locale.ROOT));
+        while (matcher.find()) {
+            if (matcher.end() - matcher.start() >= MIN_WORD_LENGTH) {
+                words.add(matcher.group());
+            }
+        }
+        return words;
+    }
+}
@@ -0,0 +1,34 @@
+package ru.practicum.shareit.request.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/* Вещь, найденная движком сопоставления для открытого запроса; score - доля слов запроса в описании вещи */
+@Entity
+@Table(name = "request_matches")
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+public class RequestMatch {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "request_matches_seq")
+    @SequenceGenerator(name = "request_matches_seq", sequenceName = "request_matches_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "request_id", nullable = false)
+    private Long requestId;
+
+    @Column(name = "item_id", nullable = false)
+    private Long itemId;
+
+    @Column(nullable = false)
+    private Double score;
+
+    @Column(nullable = false)
+    private LocalDateTime created;
+}
@@ -1,14 +1,45 @@
 package ru.practicum.shareit.request.repository;
 
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import ru.practicum.shareit.request.dto.OpenRequestView;
 import ru.practicum.shareit.request.model.ItemRequest;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface ItemRequestRepository extends JpaRepository<ItemRequest, Long> {
+    @EntityGraph(attributePaths = "requestor")
     List<ItemRequest> findAllByRequestorId(Long userId, Sort created);
 
-    List<ItemRequest> findAllByRequestorIdIsNot(Long userId, Pageable pageable);
-}
\ No newline at end of file
+    /* Чужие запросы постранично по ключу (created, id): ?2 и ?3 - последняя строка предыдущей страницы */
+    @EntityGraph(attributePaths = "requestor")
+    @Query("SELECT r FROM ItemRequest r " +
+            "WHERE r.requestor.id <> ?1 " +
+            "AND (r.created < ?2 OR (r.created = ?2 AND r.id < ?3)) " +
+            "ORDER BY r.created DESC, r.id DESC")
+    List<ItemRequest> findAllByRequestorIdIsNot(Long userId, LocalDateTime created, Long id, Limit limit);
+
+    /*
+     * Запросы для переподключения к ленте по Last-Event-ID ?1: с большим id или созданные не раньше ?3.
+     * Окно по created ловит запросы с меньшим id, транзакция которых зафиксировалась позже события ?1
+     */
+    @EntityGraph(attributePaths = "requestor")
+    @Query("SELECT r FROM ItemRequest r " +
+            "WHERE r.requestor.id <> ?2 AND r.id <> ?1 AND (r.id > ?1 OR r.created >= ?3) " +
+            "ORDER BY r.created, r.id")
+    List<ItemRequest> findAllForFeedReplay(Long lastEventId, Long userId, LocalDateTime since, Limit limit);
+
+    @Query("SELECT count(r) FROM ItemRequest r " +
+            "WHERE r.requestor.id <> ?2 AND r.id <> ?1 AND (r.id > ?1 OR r.created >= ?3)")
+    long countForFeedReplay(Long lastEventId, Long userId, LocalDateTime since);
+
+    /* Запросы, на которые ещё не ответили ни одной вещью */
+    @Query("select r.id as id, r.description as description, r.requestor.id as requestorId " +
+            "from ItemRequest r where not exists (select i.id from Item i where i.request = r)")
+    Stream<OpenRequestView> streamOpenRequests();
+}
@@ -0,0 +1,31 @@
+package ru.practicum.shareit.request.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import ru.practicum.shareit.request.model.RequestMatch;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface RequestMatchRepository extends JpaRepository<RequestMatch, Long> {
+    /*
+     * Строки совпадений чистит фоновый поток и может отставать, поэтому при чтении отбрасываются
+     * недоступные вещи и запросы, на которые уже есть ответ
+     */
+    @Query("select m from RequestMatch m, Item i " +
+            "where m.requestId = ?1 " +
+            "and i.id = m.itemId " +
+            "and i.available = true " +
+            "and not exists (select a.id from Item a where a.request.id = m.requestId) " +
+            "order by m.score desc")
+    List<RequestMatch> findAllByRequestIdOrderByScoreDesc(Long requestId);
+
+    @Modifying
+    @Query("delete from RequestMatch m where m.itemId in ?1")
+    void deleteAllByItemIdIn(Collection<Long> itemIds);
+
+    @Modifying
+    @Query("delete from RequestMatch m where m.requestId in ?1")
+    void deleteAllByRequestIdIn(Collection<Long> requestIds);
+}
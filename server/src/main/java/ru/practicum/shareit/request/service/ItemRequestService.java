@@ -1,9 +1,12 @@
 package ru.practicum.shareit.request.service;
 
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestDtoOut;
+import ru.practicum.shareit.request.dto.ItemRequestDtoPage;
 
 import java.util.List;
 
@@ -13,7 +16,10 @@ public interface ItemRequestService {
 
     List<ItemRequestDtoOut> getRequestsByRequestor(Long userId) throws NotFoundException;
 
-    List<ItemRequestDtoOut> getAllRequests(Integer from, Integer size, Long userId) throws NotFoundException;
+    ItemRequestDtoPage getAllRequests(Integer size, String cursor, Long userId)
+            throws NotFoundException, ValidationException;
+
+    SseEmitter subscribe(Long userId, Long lastEventId) throws NotFoundException;
 
     ItemRequestDtoOut getRequestById(Long requestId, Long userId) throws NotFoundException;
 }
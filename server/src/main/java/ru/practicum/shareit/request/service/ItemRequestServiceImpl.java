@@ -3,26 +3,33 @@ package ru.practicum.shareit.request.service;
 import org.springframework.transaction.annotation.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.item.dto.ItemDtoName;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.request.feed.ItemRequestFeed;
+import ru.practicum.shareit.request.matching.ItemRequestMatcher;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.page.KeysetCursor;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestDtoOut;
+import ru.practicum.shareit.request.dto.ItemRequestDtoPage;
 import ru.practicum.shareit.request.dto.ItemRequestMapper;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import static org.springframework.data.domain.Sort.Direction.DESC;
@@ -35,6 +42,8 @@ public class ItemRequestServiceImpl implements ItemRequestService {
     private final ItemRequestRepository requestRepository;
     private final UserRepository userRepository;
     private final ItemRepository itemRepository;
+    private final ItemRequestFeed requestFeed;
+    private final ItemRequestMatcher requestMatcher;
 
     @Transactional
     @Override
@@ -44,24 +53,50 @@ public class ItemRequestServiceImpl implements ItemRequestService {
         ItemRequest request = ItemRequestMapper.toItemRequest(itemRequestDto);
         request.setCreated(LocalDateTime.now());
         request.setRequestor(requestor);
-        return ItemRequestMapper.toItemRequestDtoOut(requestRepository.save(request));
+        ItemRequest savedRequest = requestRepository.save(request);
+        requestMatcher.requestCreated(savedRequest);
+        ItemRequestDtoOut requestDtoOut = ItemRequestMapper.toItemRequestDtoOut(savedRequest);
+        requestFeed.publish(requestDtoOut);
+        return requestDtoOut;
     }
 
     @Override
     public List<ItemRequestDtoOut> getRequestsByRequestor(Long userId) throws NotFoundException {
         log.info("Обработка всех запросов по id пользователя {}", userId);
-        findUserById(userId);
         List<ItemRequest> requests = requestRepository.findAllByRequestorId(userId, Sort.by(DESC, "created"));
+        /* Запросы есть только у существующего пользователя, проверять его нужно лишь при пустом списке */
+        if (requests.isEmpty()) {
+            checkUserExists(userId);
+        }
         return addItemsList(requests);
     }
 
     @Override
-    public List<ItemRequestDtoOut> getAllRequests(Integer from, Integer size, Long userId) throws NotFoundException {
+    public ItemRequestDtoPage getAllRequests(Integer size, String cursor, Long userId)
+            throws NotFoundException, ValidationException {
         log.info("Обработка всех запросов");
+        if (size == null || size <= 0) {
+            throw new ValidationException("Размер страницы должен быть положительным");
+        }
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        checkUserExists(userId);
+        /* Запрашиваем на одну строку больше, чтобы узнать, есть ли следующая страница */
+        List<ItemRequest> requests = requestRepository.findAllByRequestorIdIsNot(userId, after.getTime(),
+                after.getId(), Limit.of(size + 1));
+        String next = null;
+        if (requests.size() > size) {
+            requests = requests.subList(0, size);
+            ItemRequest last = requests.get(size - 1);
+            next = new KeysetCursor(last.getCreated(), last.getId()).encode();
+        }
+        return new ItemRequestDtoPage(addItemsList(requests), next);
+    }
+
+    @Override
+    public SseEmitter subscribe(Long userId, Long lastEventId) throws NotFoundException {
+        log.info("Подписка на ленту запросов пользователя {}", userId);
         findUserById(userId);
-        Pageable pageable = PageRequest.of(from / size, size, Sort.by("created").descending());
-        List<ItemRequest> requests = requestRepository.findAllByRequestorIdIsNot(userId, pageable);
-        return addItemsList(requests);
+        return requestFeed.subscribe(userId, lastEventId);
     }
 
     @Override
@@ -81,14 +116,21 @@ public class ItemRequestServiceImpl implements ItemRequestService {
         return requestDtoOut;
     }
 
+    /* Вещи всех запросов страницы загружаются одним запросом и раскладываются по запросам в памяти */
     private List<ItemRequestDtoOut> addItemsList(List<ItemRequest> requests) {
+        if (requests.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Long> requestIds = requests.stream().map(ItemRequest::getId).collect(Collectors.toList());
+        Map<Long, List<ItemDtoName>> itemsByRequest = new HashMap<>();
+        for (Item item : itemRepository.findAllByRequestIdIn(requestIds)) {
+            itemsByRequest.computeIfAbsent(item.getRequest().getId(), id -> new ArrayList<>())
+                    .add(ItemMapper.toItemDtoName(item));
+        }
         List<ItemRequestDtoOut> requestsOut = new ArrayList<>();
         for (ItemRequest request : requests) {
             ItemRequestDtoOut requestDtoOut = ItemRequestMapper.toItemRequestDtoOut(request);
-            List<ItemDtoName> items = itemRepository.findAllByRequestId(request.getId()).stream()
-                    .map(ItemMapper::toItemDtoName).collect(Collectors.toList());
-            requestDtoOut.setItems(items);
-            log.info(items.toString());
+            requestDtoOut.setItems(itemsByRequest.getOrDefault(request.getId(), new ArrayList<>()));
             requestsOut.add(requestDtoOut);
         }
         return requestsOut;
@@ -98,4 +140,11 @@ public class ItemRequestServiceImpl implements ItemRequestService {
         return userRepository.findById(userId).orElseThrow(() ->
                 new NotFoundException(String.format("Пользователь %d не найден", userId)));
     }
+
+    /* Проверка по первичному ключу без загрузки пользователя */
+    private void checkUserExists(Long userId) throws NotFoundException {
+        if (!userRepository.existsById(userId)) {
+            throw new NotFoundException(String.format("Пользователь %d не найден", userId));
+        }
+    }
 }
\ No newline at end of file
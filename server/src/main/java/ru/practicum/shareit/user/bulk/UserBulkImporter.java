@@ -0,0 +1,166 @@
+package ru.practicum.shareit.user.bulk;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.bulk.ImportReport;
+import ru.practicum.shareit.bulk.RowReader;
+import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.email.EmailFilter;
+import ru.practicum.shareit.user.mapper.UserMapper;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Массовый импорт пользователей. Строки читаются потоком и копятся в пачку по shareit.user.bulk.chunk-size.
+ * Повтор email внутри пачки ловится сразу, занятость адресов проверяется одним IN-запросом на всю пачку
+ * (в него попадают только адреса, которые EmailFilter не исключил), вставки уходят пакетами JDBC
+ * в одной транзакции на пачку. Если адрес заняли параллельно и пачка упала
+ * на уникальности, её строки сохраняются по одной, чтобы отчёт указал именно конфликтующие строки.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserBulkImporter {
+    private static final List<String> CSV_COLUMNS = List.of("name", "email");
+
+    private final UserRepository userRepository;
+    private final EmailFilter emailFilter;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+
+    @Value("${shareit.user.bulk.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${shareit.user.bulk.max-errors:1000}")
+    private int maxErrors;
+
+    public ImportReport importUsers(MediaType contentType, InputStream body) throws ValidationException {
+        RowReader<UserDto> reader = RowReader.of(contentType, body, objectMapper, UserDto.class, CSV_COLUMNS,
+                values -> new UserDto(null, values.get("name"), values.get("email")));
+        ImportReport report = ImportReport.empty();
+        List<RowReader.Row<UserDto>> chunk = new ArrayList<>(chunkSize);
+        Map<String, Long> chunkEmails = new HashMap<>();
+        try {
+            RowReader.Row<UserDto> row;
+            while ((row = reader.next()) != null) {
+                String error = row.error() != null ? row.error() : validate(row.value());
+                if (error == null) {
+                    Long first = chunkEmails.putIfAbsent(row.value().getEmail(), row.line());
+                    if (first != null) {
+                        error = String.format("email %s уже указан в строке %d", row.value().getEmail(), first);
+                    }
+                }
+                if (error != null) {
+                    report.addError(row.line(), error, maxErrors);
+                    continue;
+                }
+                chunk.add(row);
+                if (chunk.size() == chunkSize) {
+                    save(chunk, report);
+                    chunk.clear();
+                    chunkEmails.clear();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        save(chunk, report);
+        log.info("Импорт пользователей: сохранено {}, с ошибками {}", report.getImported(), report.getFailed());
+        return report;
+    }
+
+    private static String validate(UserDto user) {
+        if (StringUtils.isBlank(user.getName())) {
+            return "Имя не может быть пустым";
+        }
+        if (StringUtils.isBlank(user.getEmail()) || user.getEmail().indexOf('@') <= 0) {
+            return "Некорректный email";
+        }
+        return null;
+    }
+
+    private void save(List<RowReader.Row<UserDto>> chunk, ImportReport report) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            insert(chunk, report);
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Пачка импорта пользователей со строки {} нарушила уникальность, сохраняем по одной",
+                    chunk.get(0).line());
+            for (RowReader.Row<UserDto> row : chunk) {
+                try {
+                    insert(List.of(row), report);
+                } catch (DataAccessException rowError) {
+                    report.addError(row.line(), "Не удалось сохранить: "
+                            + rowError.getMostSpecificCause().getMessage(), maxErrors);
+                }
+            }
+        } catch (DataAccessException e) {
+            log.warn("Пачка импорта пользователей со строки {} не сохранена: {}", chunk.get(0).line(),
+                    e.getMessage());
+            for (RowReader.Row<UserDto> row : chunk) {
+                report.addError(row.line(), "Не удалось сохранить: " + e.getMostSpecificCause().getMessage(),
+                        maxErrors);
+            }
+        }
+    }
+
+    /* Отчёт меняется только после фиксации транзакции, чтобы при откате строки не посчитались дважды */
+    private void insert(List<RowReader.Row<UserDto>> rows, ImportReport report) {
+        List<RowReader.Row<UserDto>> taken = new ArrayList<>();
+        Integer saved = new TransactionTemplate(transactionManager).execute(status -> {
+            Set<String> emails = new HashSet<>();
+            for (RowReader.Row<UserDto> row : rows) {
+                if (emailFilter.mightContain(row.value().getEmail())) {
+                    emails.add(row.value().getEmail());
+                }
+            }
+            Set<String> existing = emails.isEmpty() ? Set.of() : new HashSet<>(userRepository.findEmailsIn(emails));
+            for (String email : emails) {
+                emailFilter.recordLookup(existing.contains(email));
+            }
+            List<User> users = new ArrayList<>(rows.size());
+            for (RowReader.Row<UserDto> row : rows) {
+                if (existing.contains(row.value().getEmail())) {
+                    taken.add(row);
+                } else {
+                    User user = UserMapper.toUser(row.value());
+                    user.setId(null);
+                    users.add(user);
+                }
+            }
+            userRepository.saveAll(users);
+            userRepository.flush();
+            for (User user : users) {
+                emailFilter.add(user.getEmail());
+            }
+            return users.size();
+        });
+        report.addImported(saved);
+        for (RowReader.Row<UserDto> row : taken) {
+            report.addError(row.line(), String.format("email %s уже используется", row.value().getEmail()),
+                    maxErrors);
+        }
+    }
+}
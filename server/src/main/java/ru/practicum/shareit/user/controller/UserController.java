@@ -1,14 +1,18 @@
 package ru.practicum.shareit.user.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.bulk.ImportReport;
 import ru.practicum.shareit.exception.DuplicatedDataException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.service.UserService;
 
+import java.io.InputStream;
 import java.util.Collection;
 
 @RestController("ServerUserController")
@@ -33,6 +37,12 @@ public class UserController {
         return userService.create(userDto);
     }
 
+    /* Тело читается потоком: NDJSON или CSV, по пользователю на строку */
+    @PostMapping(path = "/bulk", consumes = {"application/x-ndjson", "text/csv"})
+    public ImportReport importUsers(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                    InputStream body) throws ValidationException {
+        return userService.importUsers(contentType, body);
+    }
 
     @PatchMapping("/{userId}")
     public UserDto updateUserById(@RequestBody UserDto userDto, @PathVariable Long userId)
@@ -0,0 +1,242 @@
+package ru.practicum.shareit.user.email;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Фильтр Блума по email пользователей: отрицательный ответ {@link #mightContain(String)} точен,
+ * и проверка уникальности обходится без запроса в базу; положительный означает «возможно занят»
+ * и проверяется запросом. Удалённые и изменённые адреса из фильтра не уходят и дают только ложные
+ * срабатывания, которые убирает перестройка. Перестройка читает таблицу потоком в новый фильтр и подменяет
+ * им текущий; адреса, добавленные во время чтения, пишутся в оба. Адрес добавляется сразу и ещё раз
+ * после фиксации транзакции: строку, не зафиксированную к началу чтения, перестройка не увидит, а повторная
+ * запись попадёт в новый фильтр. До первой перестройки фильтр отвечает «возможно занят» на всё.
+ * Размер задают shareit.user.email-filter.expected-insertions и shareit.user.email-filter.false-positive-rate.
+ */
+@Slf4j
+@Component
+public class EmailFilter {
+    private static final long GOLDEN = 0x9E3779B97F4A7C15L;
+
+    private final UserRepository userRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final long expectedInsertions;
+    private final double falsePositiveRate;
+
+    private final Counter absent;
+    private final Counter probable;
+    private final Counter confirmed;
+    private final Counter falsePositive;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    /* Не монитор: перестройка читает таблицу и в виртуальном потоке заняла бы поток-носитель */
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private volatile Bits current;
+    private Bits building;
+
+    public EmailFilter(UserRepository userRepository, PlatformTransactionManager transactionManager,
+                       MeterRegistry registry,
+                       @Value("${shareit.user.email-filter.expected-insertions:1000000}") long expectedInsertions,
+                       @Value("${shareit.user.email-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.userRepository = userRepository;
+        this.transactionManager = transactionManager;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        absent = Counter.builder("shareit.user.email.filter.checks").tag("result", "absent")
+                .description("Проверки email, на которые фильтр ответил «свободен»").register(registry);
+        probable = Counter.builder("shareit.user.email.filter.checks").tag("result", "probable")
+                .description("Проверки email, ушедшие в базу").register(registry);
+        confirmed = Counter.builder("shareit.user.email.filter.lookups").tag("result", "taken")
+                .description("Запросы в базу, подтвердившие занятый email").register(registry);
+        falsePositive = Counter.builder("shareit.user.email.filter.lookups").tag("result", "false_positive")
+                .description("Запросы в базу, не нашедшие email: ложные срабатывания фильтра").register(registry);
+        Gauge.builder("shareit.user.email.filter.false_positive_rate", this, EmailFilter::observedFalsePositiveRate)
+                .description("Доля ложных срабатываний среди свободных адресов").register(registry);
+        Gauge.builder("shareit.user.email.filter.expected_false_positive_rate", this,
+                        EmailFilter::expectedFalsePositiveRate)
+                .description("Ожидаемая доля ложных срабатываний по заполненности фильтра").register(registry);
+    }
+
+    public boolean mightContain(String email) {
+        Bits bits = current;
+        boolean result = bits == null || bits.mightContain(email);
+        (result ? probable : absent).increment();
+        return result;
+    }
+
+    /* Итог запроса в базу после положительного ответа фильтра - для метрики ложных срабатываний */
+    public void recordLookup(boolean taken) {
+        (taken ? confirmed : falsePositive).increment();
+    }
+
+    public void add(String email) {
+        put(email);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    put(email);
+                }
+            });
+        }
+    }
+
+    /* Под блокировкой чтения пара (current, building) не меняется, пока адрес записывается */
+    private void put(String email) {
+        lock.readLock().lock();
+        try {
+            if (current != null) {
+                current.add(email);
+            }
+            if (building != null) {
+                building.add(email);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public long rebuild() {
+        rebuildLock.lock();
+        try {
+            return rebuildFilter();
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private long rebuildFilter() {
+        Bits bits = Bits.create(expectedInsertions, falsePositiveRate);
+        swap(current, bits);
+        try {
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            transaction.setReadOnly(true);
+            transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            Long count = transaction.execute(status -> {
+                long added = 0;
+                try (Stream<String> emails = userRepository.streamAllEmails()) {
+                    for (String email : (Iterable<String>) emails::iterator) {
+                        bits.add(email);
+                        added++;
+                    }
+                }
+                return added;
+            });
+            swap(bits, null);
+            log.info("Фильтр email построен: {} адресов, ожидаемая доля ложных срабатываний {}", count,
+                    String.format("%.4f", bits.expectedFalsePositiveRate()));
+            return count;
+        } finally {
+            swap(current, null);
+        }
+    }
+
+    private void swap(Bits active, Bits next) {
+        lock.writeLock().lock();
+        try {
+            current = active;
+            building = next;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public double observedFalsePositiveRate() {
+        double negatives = absent.count() + falsePositive.count();
+        return negatives == 0 ? 0 : falsePositive.count() / negatives;
+    }
+
+    public double expectedFalsePositiveRate() {
+        Bits bits = current;
+        return bits == null ? 1 : bits.expectedFalsePositiveRate();
+    }
+
+    /* Битовый массив из m бит и k хэшей по схеме двойного хэширования h1 + i * h2 */
+    private static final class Bits {
+        private final AtomicLongArray words;
+        private final long size;
+        private final int hashes;
+        private final AtomicLong bitsSet = new AtomicLong();
+
+        private Bits(long size, int hashes) {
+            this.words = new AtomicLongArray((int) ((size + 63) / 64));
+            this.size = size;
+            this.hashes = hashes;
+        }
+
+        static Bits create(long expectedInsertions, double falsePositiveRate) {
+            long n = Math.max(expectedInsertions, 1);
+            long m = Math.max(64, (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2))));
+            int k = Math.max(1, (int) Math.round((double) m / n * Math.log(2)));
+            return new Bits(m, k);
+        }
+
+        void add(String email) {
+            long h1 = hash(email);
+            long h2 = mix(h1 + GOLDEN) | 1;
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(h1 + i * h2, size);
+                long mask = 1L << bit;
+                long previous = words.getAndAccumulate((int) (bit >>> 6), mask, (word, m) -> word | m);
+                if ((previous & mask) == 0) {
+                    bitsSet.incrementAndGet();
+                }
+            }
+        }
+
+        boolean mightContain(String email) {
+            long h1 = hash(email);
+            long h2 = mix(h1 + GOLDEN) | 1;
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(h1 + i * h2, size);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        double expectedFalsePositiveRate() {
+            return Math.pow((double) bitsSet.get() / size, hashes);
+        }
+
+        /* FNV-1a по символам строки с финальным перемешиванием */
+        private static long hash(String email) {
+            long h = 0xCBF29CE484222325L;
+            for (int i = 0; i < email.length(); i++) {
+                h ^= email.charAt(i);
+                h *= 0x100000001B3L;
+            }
+            return mix(h);
+        }
+
+        private static long mix(long h) {
+            h ^= h >>> 33;
+            h *= 0xFF51AFD7ED558CCDL;
+            h ^= h >>> 33;
+            h *= 0xC4CEB9FE1A85EC53L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
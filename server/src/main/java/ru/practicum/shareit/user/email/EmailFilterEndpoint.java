@@ -0,0 +1,29 @@
+package ru.practicum.shareit.user.email;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/* GET /actuator/emailfilter - доли ложных срабатываний, POST /actuator/emailfilter - перестройка фильтра */
+@Component
+@RequiredArgsConstructor
+@Endpoint(id = "emailfilter")
+public class EmailFilterEndpoint {
+    private final EmailFilter emailFilter;
+
+    @ReadOperation
+    public Map<String, Object> stats() {
+        return Map.of(
+                "observedFalsePositiveRate", emailFilter.observedFalsePositiveRate(),
+                "expectedFalsePositiveRate", emailFilter.expectedFalsePositiveRate());
+    }
+
+    @WriteOperation
+    public Map<String, Object> rebuild() {
+        return Map.of("emails", emailFilter.rebuild());
+    }
+}
@@ -1,14 +1,26 @@
 package ru.practicum.shareit.user.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import ru.practicum.shareit.user.model.User;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
 
     Optional<User> findByEmail(String email);
+
+    /* Какие из адресов уже заняты: одна проверка на всю пачку импорта */
+    @Query("SELECT u.email FROM User u WHERE u.email IN ?1")
+    List<String> findEmailsIn(Collection<String> emails);
+
+    /* Все адреса для построения EmailFilter; читать внутри транзакции и закрывать поток */
+    @Query("SELECT u.email FROM User u")
+    Stream<String> streamAllEmails();
 }
 
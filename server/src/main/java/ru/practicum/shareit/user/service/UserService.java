@@ -1,10 +1,13 @@
 package ru.practicum.shareit.user.service;
 
+import org.springframework.http.MediaType;
+import ru.practicum.shareit.bulk.ImportReport;
 import ru.practicum.shareit.exception.DuplicatedDataException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.user.dto.UserDto;
 
+import java.io.InputStream;
 import java.util.Collection;
 
 public interface UserService {
@@ -17,5 +20,7 @@ public interface UserService {
     Collection<UserDto> getUsers();
 
     UserDto getUserById(Long id) throws NotFoundException;
+
+    ImportReport importUsers(MediaType contentType, InputStream body) throws ValidationException;
 }
 
@@ -2,16 +2,23 @@ package ru.practicum.shareit.user.service;
 
 import lombok.RequiredArgsConstructor;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.bulk.ImportReport;
 import ru.practicum.shareit.exception.DuplicatedDataException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.user.bulk.UserBulkImporter;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.email.EmailFilter;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.mapper.UserMapper;
 import ru.practicum.shareit.user.repository.UserRepository;
 
+import java.io.InputStream;
+import java.sql.SQLException;
 import java.util.Collection;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -19,18 +26,25 @@ import java.util.stream.Collectors;
 @Service
 @RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
+    /* SQLSTATE нарушения уникальности, одинаковый в PostgreSQL и H2 */
+    private static final String UNIQUE_VIOLATION = "23505";
+
     private final UserRepository userRepository;
+    private final UserBulkImporter userBulkImporter;
+    private final EmailFilter emailFilter;
 
 
-    @Transactional
+    @Transactional(rollbackFor = DuplicatedDataException.class)
     @Override
     public UserDto create(UserDto userDto) throws DuplicatedDataException {
         validateEmail(userDto);
         User user = userRepository.save(UserMapper.toUser(userDto));
+        flushEmail(user.getEmail());
+        emailFilter.add(user.getEmail());
         return UserMapper.toUserDto(user);
     }
 
-    @Transactional
+    @Transactional(rollbackFor = DuplicatedDataException.class)
     @Override
     public UserDto update(UserDto userDto, Long id) throws ValidationException, NotFoundException, DuplicatedDataException {
         validateEmail(userDto);
@@ -41,6 +55,8 @@ public class UserServiceImpl implements UserService {
         }
         if (StringUtils.isNotBlank(newUser.getEmail())) {
             user.setEmail(newUser.getEmail());
+            flushEmail(newUser.getEmail());
+            emailFilter.add(newUser.getEmail());
         }
         return UserMapper.toUserDto(user);
     }
@@ -64,11 +80,35 @@ public class UserServiceImpl implements UserService {
         return userRepository.findAll().stream().map(UserMapper::toUserDto).collect(Collectors.toList());
     }
 
+    /* Каждая пачка импорта сохраняется в своей транзакции, поэтому метод не транзакционный */
+    @Override
+    public ImportReport importUsers(MediaType contentType, InputStream body) throws ValidationException {
+        return userBulkImporter.importUsers(contentType, body);
+    }
+
+    /* Запрос в базу только если email указан и фильтр не исключил его наверняка */
     private void validateEmail(UserDto userDto) throws DuplicatedDataException {
-        Optional<User> user = userRepository.findByEmail(userDto.getEmail());
+        String email = userDto.getEmail();
+        if (StringUtils.isBlank(email) || !emailFilter.mightContain(email)) {
+            return;
+        }
+        Optional<User> user = userRepository.findByEmail(email);
+        emailFilter.recordLookup(user.isPresent());
         if (user.isPresent()) {
-            throw new DuplicatedDataException(String.format("email %s уже используется", userDto.getEmail()));
+            throw new DuplicatedDataException(String.format("email %s уже используется", email));
         }
     }
-}
 
+    /* Проверка выше не защищает от гонки двух запросов с одним email: его ловит уникальный индекс при flush */
+    private void flushEmail(String email) throws DuplicatedDataException {
+        try {
+            userRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            if (e.getMostSpecificCause() instanceof SQLException sqlException
+                    && UNIQUE_VIOLATION.equals(sqlException.getSQLState())) {
+                throw new DuplicatedDataException(String.format("email %s уже используется", email));
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+-- Выполняется после schema.sql при spring.sql.init.platform=h2, как schema-postgresql.sql для PostgreSQL.
+-- Столбцы id получают значения по умолчанию из тех же последовательностей, что и Hibernate, поэтому
+-- вставки в обход Hibernate не пересекаются с его блоками. База H2 создаётся пустой, сдвигать
+-- последовательности не нужно; оба оператора можно выполнять повторно.
+
+ALTER TABLE users ALTER COLUMN id DROP IDENTITY;
+
+ALTER TABLE users ALTER COLUMN id SET DEFAULT NEXT VALUE FOR users_seq;
+
+ALTER TABLE requests ALTER COLUMN id DROP IDENTITY;
+
+ALTER TABLE requests ALTER COLUMN id SET DEFAULT NEXT VALUE FOR requests_seq;
+
+ALTER TABLE items ALTER COLUMN id DROP IDENTITY;
+
+ALTER TABLE items ALTER COLUMN id SET DEFAULT NEXT VALUE FOR items_seq;
+
+ALTER TABLE bookings ALTER COLUMN id DROP IDENTITY;
+
+ALTER TABLE bookings ALTER COLUMN id SET DEFAULT NEXT VALUE FOR bookings_seq;
+
+ALTER TABLE comments ALTER COLUMN id DROP IDENTITY;
+
+ALTER TABLE comments ALTER COLUMN id SET DEFAULT NEXT VALUE FOR comments_seq;
+
+ALTER TABLE request_matches ALTER COLUMN id DROP IDENTITY;
+
+ALTER TABLE request_matches ALTER COLUMN id SET DEFAULT NEXT VALUE FOR request_matches_seq;
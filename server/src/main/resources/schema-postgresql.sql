@@ -0,0 +1,74 @@
+-- Частичные индексы, которых нет в H2. Выполняется после schema.sql при spring.sql.init.platform=postgresql:
+-- порядок задаёт spring.sql.init.schema-locations, сам Spring Boot ставит schema-${platform}.sql первым.
+-- Индекс по статусу подходит только плану, построенному под конкретное значение параметра: общий план
+-- обходится индексами из schema.sql, а PostgresBookingQueryPlanTest проверяет выбор частичных по плану со значениями.
+CREATE INDEX IF NOT EXISTS idx_bookings_waiting_booker_start ON bookings (booker_id, start_date DESC, id DESC)
+    WHERE status = 'WAITING';
+
+DROP INDEX IF EXISTS idx_bookings_rejected_booker_start;
+
+CREATE INDEX IF NOT EXISTS idx_bookings_rejected_booker_end ON bookings (booker_id, end_date DESC, id DESC)
+    WHERE status = 'REJECTED';
+
+CREATE INDEX IF NOT EXISTS idx_bookings_approved_item_start ON bookings (item_id, start_date)
+    WHERE status = 'APPROVED';
+
+CREATE INDEX IF NOT EXISTS idx_bookings_owner_missing ON bookings (id)
+    WHERE owner_id IS NULL;
+
+ALTER TABLE items ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (to_tsvector('simple', name || ' ' || description)) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_items_search_vector ON items USING GIN (search_vector);
+
+-- Переход с IDENTITY на последовательности: сдвигаем последовательность за уже выданные id
+-- (только вперёд, поэтому повторный запуск ничего не меняет) и делаем её значением по умолчанию,
+-- чтобы вставки в обход Hibernate не пересекались с его блоками.
+
+SELECT setval('users_seq', MAX(id)) FROM users HAVING MAX(id) >= (SELECT last_value FROM users_seq);
+
+ALTER TABLE users ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+ALTER TABLE users ALTER COLUMN id SET DEFAULT nextval('users_seq');
+
+ALTER SEQUENCE users_seq OWNED BY users.id;
+
+SELECT setval('requests_seq', MAX(id)) FROM requests HAVING MAX(id) >= (SELECT last_value FROM requests_seq);
+
+ALTER TABLE requests ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+ALTER TABLE requests ALTER COLUMN id SET DEFAULT nextval('requests_seq');
+
+ALTER SEQUENCE requests_seq OWNED BY requests.id;
+
+SELECT setval('items_seq', MAX(id)) FROM items HAVING MAX(id) >= (SELECT last_value FROM items_seq);
+
+ALTER TABLE items ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+ALTER TABLE items ALTER COLUMN id SET DEFAULT nextval('items_seq');
+
+ALTER SEQUENCE items_seq OWNED BY items.id;
+
+SELECT setval('bookings_seq', MAX(id)) FROM bookings HAVING MAX(id) >= (SELECT last_value FROM bookings_seq);
+
+ALTER TABLE bookings ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+ALTER TABLE bookings ALTER COLUMN id SET DEFAULT nextval('bookings_seq');
+
+ALTER SEQUENCE bookings_seq OWNED BY bookings.id;
+
+SELECT setval('comments_seq', MAX(id)) FROM comments HAVING MAX(id) >= (SELECT last_value FROM comments_seq);
+
+ALTER TABLE comments ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+ALTER TABLE comments ALTER COLUMN id SET DEFAULT nextval('comments_seq');
+
+ALTER SEQUENCE comments_seq OWNED BY comments.id;
+
+SELECT setval('request_matches_seq', MAX(id)) FROM request_matches HAVING MAX(id) >= (SELECT last_value FROM request_matches_seq);
+
+ALTER TABLE request_matches ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+ALTER TABLE request_matches ALTER COLUMN id SET DEFAULT nextval('request_matches_seq');
+
+ALTER SEQUENCE request_matches_seq OWNED BY request_matches.id;
@@ -27,9 +27,13 @@ CREATE TABLE IF NOT EXISTS bookings (
     end_date TIMESTAMP NOT NULL,
     item_id BIGINT REFERENCES items (id),
     booker_id BIGINT REFERENCES users (id),
+    owner_id BIGINT REFERENCES users (id),
     status varchar(25) NOT NULL
     );
 
+-- Для баз, созданных до появления owner_id; старые строки заполняет BookingOwnerBackfill.
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS owner_id BIGINT REFERENCES users (id);
+
 CREATE TABLE IF NOT EXISTS comments (
     id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
     text VARCHAR(1000) NOT NULL,
@@ -37,3 +41,61 @@ CREATE TABLE IF NOT EXISTS comments (
     author_id BIGINT REFERENCES users (id),
     created TIMESTAMP NOT NULL
     );
+
+
+-- Кандидаты, найденные ItemRequestMatcher: вещь, подходящая под открытый запрос.
+CREATE TABLE IF NOT EXISTS request_matches (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    request_id BIGINT NOT NULL REFERENCES requests (id),
+    item_id BIGINT NOT NULL REFERENCES items (id),
+    score DOUBLE PRECISION NOT NULL,
+    created TIMESTAMP NOT NULL,
+    UNIQUE (request_id, item_id)
+    );
+
+-- Идентификаторы выдаёт Hibernate из последовательностей блоками по 50 (allocationSize),
+-- иначе IDENTITY отключает пакетную вставку. Значения id по умолчанию из этих последовательностей
+-- задают schema-postgresql.sql (там же перенос существующих значений) и schema-h2.sql.
+CREATE SEQUENCE IF NOT EXISTS users_seq START WITH 1 INCREMENT BY 50;
+
+CREATE SEQUENCE IF NOT EXISTS requests_seq START WITH 1 INCREMENT BY 50;
+
+CREATE SEQUENCE IF NOT EXISTS items_seq START WITH 1 INCREMENT BY 50;
+
+CREATE SEQUENCE IF NOT EXISTS bookings_seq START WITH 1 INCREMENT BY 50;
+
+CREATE SEQUENCE IF NOT EXISTS comments_seq START WITH 1 INCREMENT BY 50;
+
+CREATE SEQUENCE IF NOT EXISTS request_matches_seq START WITH 1 INCREMENT BY 50;
+
+-- Индексы под запросы BookingRepository и ItemRepository.
+-- Списки бронирований идут по ключу (start_date, id) по убыванию, поэтому он замыкает каждый индекс.
+CREATE INDEX IF NOT EXISTS idx_bookings_booker_start ON bookings (booker_id, start_date DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_bookings_booker_status_start ON bookings (booker_id, status, start_date DESC, id DESC);
+
+-- Отклонённые бронирования арендатора идут по ключу (end_date, id).
+CREATE INDEX IF NOT EXISTS idx_bookings_booker_status_end ON bookings (booker_id, status, end_date DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_bookings_owner_start ON bookings (owner_id, start_date DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_bookings_owner_status_start ON bookings (owner_id, status, start_date DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_bookings_item_start ON bookings (item_id, start_date DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_bookings_item_status_start ON bookings (item_id, status, start_date);
+
+CREATE INDEX IF NOT EXISTS idx_bookings_booker_item_end ON bookings (booker_id, item_id, end_date);
+
+CREATE INDEX IF NOT EXISTS idx_items_owner ON items (owner_id);
+
+CREATE INDEX IF NOT EXISTS idx_items_request ON items (request_id);
+
+CREATE INDEX IF NOT EXISTS idx_comments_item ON comments (item_id);
+
+CREATE INDEX IF NOT EXISTS idx_requests_requestor_created ON requests (requestor_id, created DESC);
+
+-- Общая лента запросов /requests/all идёт по ключу (created, id) по убыванию.
+CREATE INDEX IF NOT EXISTS idx_requests_created ON requests (created DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_request_matches_item ON request_matches (item_id);
@@ -0,0 +1,55 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.sql.init.SqlInitializationProperties;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.bind.PropertySourcesPlaceholdersResolver;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.env.PropertiesPropertySourceLoader;
+import org.springframework.core.env.MutablePropertySources;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Порядок скриптов схемы из application.properties: платформенный скрипт дополняет таблицы из schema.sql
+ * и должен выполняться после него. Без spring.sql.init.schema-locations Spring Boot выполнил бы его первым.
+ */
+class SchemaScriptOrderTest {
+
+    @Test
+    void postgresqlScriptRunsAfterCommonSchema() throws IOException {
+        List<String> locations = schemaLocations(null);
+
+        assertThat(locations).containsExactly("classpath:schema.sql", "optional:classpath:schema-postgresql.sql");
+        assertThat(new DefaultResourceLoader().getResource("classpath:schema-postgresql.sql").exists()).isTrue();
+    }
+
+    @Test
+    void testProfileRunsH2ScriptAfterCommonSchema() throws IOException {
+        List<String> locations = schemaLocations("test");
+
+        assertThat(locations).containsExactly("classpath:schema.sql", "optional:classpath:schema-h2.sql");
+    }
+
+    /* Собирает документы application.properties для профиля так же, как Spring Boot: поздние перекрывают ранние */
+    private List<String> schemaLocations(String profile) throws IOException {
+        List<PropertySource<?>> documents = new PropertiesPropertySourceLoader()
+                .load("application.properties", new ClassPathResource("application.properties"));
+        MutablePropertySources sources = new MutablePropertySources();
+        for (PropertySource<?> document : documents) {
+            Object activation = document.getProperty("spring.config.activate.on-profile");
+            if (activation == null || activation.equals(profile)) {
+                sources.addFirst(document);
+            }
+        }
+        Binder binder = new Binder(ConfigurationPropertySources.from(sources),
+                new PropertySourcesPlaceholdersResolver(sources));
+        return binder.bind("spring.sql.init", SqlInitializationProperties.class).get().getSchemaLocations();
+    }
+}
@@ -0,0 +1,60 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Вставки через JPA и в обход него берут id из одной последовательности: schema-h2.sql, как и
+ * schema-postgresql.sql, делает её значением по умолчанию вместо IDENTITY.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class SequenceIdSourceTest {
+    private static final List<String> TABLES = List.of("users", "requests", "items", "bookings", "comments",
+            "request_matches");
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void idColumnsDefaultToHibernateSequences() {
+        for (String table : TABLES) {
+            String columnDefault = jdbcTemplate.queryForObject("SELECT COLUMN_DEFAULT FROM INFORMATION_SCHEMA.COLUMNS "
+                    + "WHERE TABLE_NAME = ? AND COLUMN_NAME = 'ID'", String.class, table.toUpperCase());
+            assertThat(columnDefault).containsIgnoringCase(table + "_seq");
+        }
+    }
+
+    @Test
+    void rawInsertDoesNotCollideWithHibernateIds() {
+        User first = userRepository.save(new User(null, "Orm", "id-source-orm@example.com"));
+        jdbcTemplate.update("INSERT INTO users (name, email) VALUES ('Raw', 'id-source-raw@example.com')");
+        Long rawId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE email = 'id-source-raw@example.com'",
+                Long.class);
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            users.add(new User(null, "Orm", "id-source-orm" + i + "@example.com"));
+        }
+
+        Set<Long> ids = new HashSet<>();
+        for (User user : userRepository.saveAll(users)) {
+            ids.add(user.getId());
+        }
+
+        assertThat(rawId).isGreaterThan(first.getId());
+        assertThat(ids).hasSize(60).doesNotContain(rawId, first.getId());
+    }
+}
@@ -10,9 +10,11 @@ import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.shareit.booking.controller.BookingController;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingDtoOut;
+import ru.practicum.shareit.booking.dto.BookingDtoPage;
 import ru.practicum.shareit.booking.service.BookingService;
 import ru.practicum.shareit.enums.Statuses;
 import ru.practicum.shareit.item.dto.ItemDtoOut;
+import ru.practicum.shareit.page.CursorCodec;
 import ru.practicum.shareit.user.dto.UserDto;
 
 import java.nio.charset.StandardCharsets;
@@ -23,6 +25,7 @@ import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = BookingController.class)
@@ -99,8 +102,8 @@ public class BookingControllerTest {
 
     @Test
     void getAllByBookerIdTest() throws Exception {
-        when(bookingService.getAllByBookerId(anyString(), anyLong()))
-                .thenReturn(List.of(bookingDtoOut));
+        when(bookingService.getAllByBookerId(anyString(), anyLong(), anyInt(), any()))
+                .thenReturn(new BookingDtoPage(List.of(bookingDtoOut), "next"));
 
         mvc.perform(get("/bookings?state=ALL")
                         .content(mapper.writeValueAsString(bookingDtoOut))
@@ -109,13 +112,14 @@ public class BookingControllerTest {
                         .header("X-Sharer-User-Id", 1L)
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
+                .andExpect(header().string(CursorCodec.NEXT_CURSOR_HEADER, "next"))
                 .andExpect(content().json(mapper.writeValueAsString(List.of(bookingDtoOut))));
     }
 
     @Test
     void getAllByOwnerIdTest() throws Exception {
-        when(bookingService.getAllByOwnerId(anyLong(), anyString()))
-                .thenReturn(List.of(bookingDtoOut));
+        when(bookingService.getAllByOwnerId(anyLong(), anyString(), anyInt(), any()))
+                .thenReturn(new BookingDtoPage(List.of(bookingDtoOut), null));
 
         mvc.perform(get("/bookings/owner?state=ALL")
                         .content(mapper.writeValueAsString(bookingDtoOut))
@@ -124,6 +128,7 @@ public class BookingControllerTest {
                         .header("X-Sharer-User-Id", 1L)
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(CursorCodec.NEXT_CURSOR_HEADER))
                 .andExpect(content().json(mapper.writeValueAsString(List.of(bookingDtoOut))));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,51 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import ru.practicum.shareit.booking.service.BookingOwnerBackfill;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+@DirtiesContext
+@TestPropertySource(properties = "shareit.booking.owner-backfill.batch-size=2")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class BookingOwnerBackfillTest {
+
+    @Autowired
+    private BookingOwnerBackfill backfill;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testBackfillFillsOwnerInBatches() {
+        User owner = userRepository.save(new User(null, "Owner", "backfill-owner@example.com"));
+        User booker = userRepository.save(new User(null, "Booker", "backfill-booker@example.com"));
+        Item item = itemRepository.save(new Item(null, "Item", "Description", true, owner, null));
+        for (int i = 0; i < 5; i++) {
+            jdbcTemplate.update("INSERT INTO bookings (start_date, end_date, item_id, booker_id, status) " +
+                    "VALUES (CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, ?, ?, 'WAITING')", item.getId(), booker.getId());
+        }
+
+        backfill.run();
+
+        assertFalse(backfill.isPending());
+        assertEquals(5, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM bookings WHERE owner_id = ?",
+                Integer.class, owner.getId()));
+    }
+}
@@ -0,0 +1,141 @@
+package ru.practicum.shareit.booking;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.page.KeysetCursor;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.enums.Statuses;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Проверяет планы запросов BookingRepository на заполненной базе: ни один запрос не должен читать
+ * таблицу целиком. Объём данных задаётся свойством shareit.plan.rows (по умолчанию 20 000 бронирований),
+ * для прогона на миллионах строк: mvn test -Dtest=BookingQueryPlanTest -Dshareit.plan.rows=5000000
+ * База здесь H2 и индексы только из schema.sql; на PostgreSQL те же запросы проверяет PostgresBookingQueryPlanTest.
+ */
+@DirtiesContext
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "ru.practicum.shareit.booking.BookingQueryPlanTest$CapturingInspector")
+class BookingQueryPlanTest {
+    private static final long BOOKINGS = Long.getLong("shareit.plan.rows", 20_000L);
+    private static final long ITEMS = Math.max(BOOKINGS / 20, 1);
+    private static final long USERS = Math.max(BOOKINGS / 100, 1);
+
+    private final KeysetCursor first = KeysetCursor.FIRST;
+    private final LocalDateTime now = LocalDateTime.of(2021, 1, 1, 0, 0);
+    private final Limit limit = Limit.of(11);
+
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /* Запоминает SQL, который Hibernate отправляет в базу */
+    public static class CapturingInspector implements StatementInspector {
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+
+    /* id задаются явно: значение по умолчанию берётся из последовательности с шагом 50, а ссылки
+       между таблицами считаются от номера строки. База у теста своя, сюда больше никто не пишет */
+    @BeforeAll
+    void seed() {
+        jdbcTemplate.update("INSERT INTO users (id, name, email) " +
+                "SELECT X, 'user' || X, 'user' || X || '@mail.ru' FROM SYSTEM_RANGE(1, ?)", USERS);
+        jdbcTemplate.update("INSERT INTO items (id, name, description, available, owner_id) " +
+                "SELECT X, 'item' || X, 'description' || X, TRUE, MOD(X, ?) + 1 FROM SYSTEM_RANGE(1, ?)",
+                USERS, ITEMS);
+        jdbcTemplate.update("INSERT INTO bookings (id, start_date, end_date, item_id, booker_id, owner_id, status) " +
+                "SELECT X, DATEADD('HOUR', X, TIMESTAMP '2020-01-01 00:00:00'), " +
+                "DATEADD('HOUR', X + 2, TIMESTAMP '2020-01-01 00:00:00'), " +
+                "MOD(X, ?) + 1, MOD(X * 7, ?) + 1, MOD(MOD(X, ?) + 1, ?) + 1, " +
+                "CASEWHEN(MOD(X, 4) = 0, 'WAITING', CASEWHEN(MOD(X, 4) = 1, 'REJECTED', 'APPROVED')) " +
+                "FROM SYSTEM_RANGE(1, ?)", ITEMS, USERS, ITEMS, USERS, BOOKINGS);
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @Test
+    void bookerQueriesUseIndexes() {
+        assertIndexed(() -> bookingRepository.findAllByBookerId(1L, first.getTime(), first.getId(), limit));
+        assertIndexed(() -> bookingRepository.findAllCurrentByBookerId(1L, first.getTime(), first.getId(), limit));
+        assertIndexed(() -> bookingRepository.findAllPastByBookerId(1L, first.getTime(), first.getId(), limit));
+        assertIndexed(() -> bookingRepository.findAllFutureByBookerId(1L, first.getTime(), first.getId(), limit));
+        assertIndexed(() -> bookingRepository.findAllByBookerIdAndStatus(1L, Statuses.WAITING,
+                first.getTime(), first.getId(), limit));
+        assertIndexed(() -> bookingRepository.findAllByBookerIdAndStatusOrderByEnd(1L, Statuses.REJECTED,
+                first.getTime(), first.getId(), limit));
+    }
+
+    @Test
+    void ownerQueriesUseIndexes() {
+        assertIndexed(() -> bookingRepository.findAllByOwnerId(1L, first.getTime(), first.getId(), limit));
+        assertIndexed(() -> bookingRepository.findAllCurrentByOwnerId(1L, first.getTime(), first.getId(), limit));
+        assertIndexed(() -> bookingRepository.findAllPastByOwnerId(1L, first.getTime(), first.getId(), limit));
+        assertIndexed(() -> bookingRepository.findAllFutureByOwnerId(1L, first.getTime(), first.getId(), limit));
+        assertIndexed(() -> bookingRepository.findAllByOwnerIdAndStatus(1L, Statuses.REJECTED,
+                first.getTime(), first.getId(), limit));
+    }
+
+    @Test
+    void itemQueriesUseIndexes() {
+        assertIndexed(() -> bookingRepository.existsByBookerIdAndItemIdAndEndBefore(1L, 1L, now));
+        assertIndexed(() -> bookingRepository.findLastByItemIdIn(List.of(1L, 2L), now, Statuses.APPROVED));
+        assertIndexed(() -> bookingRepository.findNextByItemIdIn(List.of(1L, 2L), now, Statuses.APPROVED));
+    }
+
+    private void assertIndexed(Runnable repositoryCall) {
+        CapturingInspector.STATEMENTS.clear();
+        repositoryCall.run();
+        /* Остальные запросы - догрузка EAGER-связей по первичному ключу */
+        List<String> statements = CapturingInspector.STATEMENTS.stream()
+                .filter(sql -> sql.contains("bookings"))
+                .toList();
+
+        assertThat(statements).isNotEmpty();
+        for (String sql : statements) {
+            assertThat(explain(sql))
+                    .as("План запроса %s", sql)
+                    .doesNotContainIgnoringCase("tableScan");
+        }
+    }
+
+    /* Значения параметров на выбор индекса в H2 не влияют, поэтому план строится с пустыми параметрами */
+    private String explain(String sql) {
+        return jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+                int parameters = statement.getParameterMetaData().getParameterCount();
+                for (int i = 1; i <= parameters; i++) {
+                    statement.setObject(i, null);
+                }
+                try (ResultSet plan = statement.executeQuery()) {
+                    plan.next();
+                    return plan.getString(1);
+                }
+            }
+        });
+    }
+}
@@ -9,18 +9,22 @@ import org.springframework.test.annotation.Rollback;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingDtoOut;
+import ru.practicum.shareit.booking.dto.BookingDtoPage;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.repository.BookingRepository;
 import ru.practicum.shareit.booking.service.BookingService;
 import ru.practicum.shareit.enums.Statuses;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemService;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -47,6 +51,9 @@ class BookingServiceIntegrationTest {
     @Autowired
     private ItemRepository itemRepository;
 
+    @Autowired
+    private ItemService itemService;
+
     private User owner;
     private User booker;
     private Item availableItem;
@@ -133,4 +140,61 @@ class BookingServiceIntegrationTest {
         Booking updatedBooking = bookingRepository.save(savedBooking);
         assertEquals(Statuses.APPROVED, updatedBooking.getStatus());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testKeysetPagingWalksAllBookings() throws ValidationException, NotFoundException {
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        for (int i = 0; i < 3; i++) {
+            bookingRepository.save(new Booking(null, start.plusDays(i), start.plusDays(i + 1),
+                    availableItem, booker, Statuses.WAITING));
+        }
+
+        BookingDtoPage first = bookingService.getAllByBookerId("ALL", booker.getId(), 2, null);
+        BookingDtoPage second = bookingService.getAllByBookerId("ALL", booker.getId(), 2, first.getNext());
+
+        assertThat(first.getBookings()).extracting(BookingDtoOut::getStart)
+                .containsExactly(start.plusDays(2), start.plusDays(1));
+        assertThat(second.getBookings()).extracting(BookingDtoOut::getStart)
+                .containsExactly(start);
+        assertNull(second.getNext());
+    }
+
+    @Test
+    void testCreatedBookingIsVisibleToOwner() throws ValidationException, NotFoundException {
+        BookingDto bookingDto = new BookingDto(LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2), availableItem.getId());
+        BookingDtoOut savedBooking = bookingService.create(bookingDto, booker.getId());
+
+        BookingDtoPage page = bookingService.getAllByOwnerId(owner.getId(), "ALL", 10, null);
+
+        assertThat(page.getBookings()).extracting(BookingDtoOut::getId).containsExactly(savedBooking.getId());
+        assertEquals(owner.getId(), bookingRepository.findById(savedBooking.getId()).get().getOwnerId());
+    }
+
+    @Test
+    void testOverlappingBookingIsRejected() throws ValidationException, NotFoundException {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        bookingService.create(new BookingDto(start, start.plusDays(2), availableItem.getId()), booker.getId());
+
+        assertThatThrownBy(() -> bookingService.create(
+                new BookingDto(start.plusDays(1), start.plusDays(3), availableItem.getId()), booker.getId()))
+                .isInstanceOf(ValidationException.class)
+                .hasMessage("Вещь уже забронирована на эти даты");
+        BookingDtoOut adjacent = bookingService.create(
+                new BookingDto(start.plusDays(2), start.plusDays(3), availableItem.getId()), booker.getId());
+        assertNotNull(adjacent.getId());
+    }
+
+    @Test
+    void testApprovedBookingIsBusyInAvailability() throws ValidationException, NotFoundException {
+        LocalDateTime day = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.DAYS);
+        BookingDtoOut saved = bookingService.create(
+                new BookingDto(day.plusHours(10), day.plusHours(12), availableItem.getId()), booker.getId());
+        bookingService.approveBooking(saved.getId(), true, owner.getId());
+
+        assertThat(itemService.getAvailability(availableItem.getId(), day, day.plusDays(1), "HOURS"))
+                .containsExactly(new ItemAvailabilityDto(day, day.plusHours(10)),
+                        new ItemAvailabilityDto(day.plusHours(12), day.plusDays(1)));
+        assertThat(itemService.getAvailability(availableItem.getId(), day, day.plusDays(2), "DAYS"))
+                .containsExactly(new ItemAvailabilityDto(day.plusDays(1), day.plusDays(2)));
+    }
+}
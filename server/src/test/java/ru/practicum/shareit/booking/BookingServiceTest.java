@@ -1,17 +1,23 @@
 package ru.practicum.shareit.booking;
 
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Limit;
+import ru.practicum.shareit.page.KeysetCursor;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingDtoOut;
+import ru.practicum.shareit.booking.dto.BookingDtoPage;
+import ru.practicum.shareit.booking.index.BookingIntervalIndex;
+import ru.practicum.shareit.booking.index.ItemOccupancyIndex;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingOwnerBackfill;
 import ru.practicum.shareit.booking.service.BookingServiceImpl;
 import ru.practicum.shareit.enums.Statuses;
 import ru.practicum.shareit.exception.*;
@@ -26,6 +32,7 @@ import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -40,6 +47,12 @@ class BookingServiceTest {
     private ItemRepository itemRepository;
     @Mock
     private UserRepository userRepository;
+    @Mock
+    private BookingIntervalIndex bookingIntervalIndex;
+    @Mock
+    private ItemOccupancyIndex itemOccupancyIndex;
+    @Mock
+    private BookingOwnerBackfill ownerBackfill;
     @InjectMocks
     private BookingServiceImpl bookingService;
 
@@ -63,6 +76,11 @@ class BookingServiceTest {
             LocalDateTime.of(2023, 7, 30, 12, 12, 12), 2L);
     private Long bookerId = 1L;
 
+    @BeforeEach
+    void setUp() {
+        lenient().when(bookingIntervalIndex.lockFor(anyLong())).thenReturn(new ReentrantLock());
+    }
+
     @Test
     void testUserDoesNotExist() {
         when((userRepository).findById(3L)).thenReturn(Optional.empty());
@@ -112,11 +130,73 @@ class BookingServiceTest {
     void testApproveBooking() throws ValidationException, NotFoundException {
         when(bookingRepository.findById(1L)).thenReturn(Optional.of(booking));
         when(itemRepository.findById(1L)).thenReturn(Optional.of(item));
+        when(bookingRepository.compareAndSetStatus(eq(1L), eq(Statuses.WAITING), any())).thenReturn(1);
         lenient().when(userRepository.findById(1L)).thenReturn(Optional.of(user));
 
         BookingDtoOut actualBooking = bookingService.approveBooking(1L, true, 1L);
 
         assertEquals(Statuses.APPROVED, actualBooking.getStatus());
+        verify(itemOccupancyIndex).markApproved(booking);
+    }
+
+    @Test
+    void testCreateOverlappingBooking() {
+        BookingDto futureBooking = new BookingDto(LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2), 1L);
+        when(userRepository.findById(2L)).thenReturn(Optional.of(booker));
+        when(itemRepository.findById(1L)).thenReturn(Optional.of(item));
+        when(bookingIntervalIndex.hasOverlap(1L, futureBooking.getStart(), futureBooking.getEnd(), null))
+                .thenReturn(true);
+
+        Assertions.assertThrows(ValidationException.class, () ->
+                bookingService.create(futureBooking, 2L));
+        verify(bookingRepository, never()).save(any());
+    }
+
+    @Test
+    void testCreateBookingIsIndexed() throws ValidationException, NotFoundException {
+        BookingDto futureBooking = new BookingDto(LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2), 1L);
+        when(userRepository.findById(2L)).thenReturn(Optional.of(booker));
+        when(itemRepository.findById(1L)).thenReturn(Optional.of(item));
+
+        bookingService.create(futureBooking, 2L);
+
+        verify(bookingRepository).save(any());
+        verify(bookingIntervalIndex).add(any());
+    }
+
+    @Test
+    void testApproveOverlappingBooking() {
+        when(bookingRepository.findById(1L)).thenReturn(Optional.of(booking));
+        when(itemRepository.findById(1L)).thenReturn(Optional.of(item));
+        when(bookingIntervalIndex.hasOverlap(1L, booking.getStart(), booking.getEnd(), 1L)).thenReturn(true);
+
+        Assertions.assertThrows(ValidationException.class, () ->
+                bookingService.approveBooking(1L, true, 1L));
+        assertEquals(Statuses.WAITING, booking.getStatus());
+    }
+
+    @Test
+    void testRejectBookingIsRemovedFromIndex() throws ValidationException, NotFoundException {
+        when(bookingRepository.findById(1L)).thenReturn(Optional.of(booking));
+        when(itemRepository.findById(1L)).thenReturn(Optional.of(item));
+        when(bookingRepository.compareAndSetStatus(eq(1L), eq(Statuses.WAITING), any())).thenReturn(1);
+
+        BookingDtoOut actualBooking = bookingService.approveBooking(1L, false, 1L);
+
+        assertEquals(Statuses.REJECTED, actualBooking.getStatus());
+        verify(bookingIntervalIndex).remove(booking);
+        verify(itemOccupancyIndex, never()).markApproved(any());
+    }
+
+    @Test
+    void testConcurrentDecisionIsRejectedUnderLock() {
+        when(bookingRepository.findById(1L)).thenReturn(Optional.of(booking));
+        when(itemRepository.findById(1L)).thenReturn(Optional.of(item));
+        when(bookingRepository.compareAndSetStatus(1L, Statuses.WAITING, Statuses.APPROVED)).thenReturn(0);
+
+        Assertions.assertThrows(ValidationException.class, () ->
+                bookingService.approveBooking(1L, true, 1L));
+        verify(itemOccupancyIndex, never()).markApproved(any());
     }
 
     @Test
@@ -160,9 +240,9 @@ class BookingServiceTest {
     @Test
     void testReturnAllBookings() throws ValidationException, NotFoundException {
         when(userRepository.findById(2L)).thenReturn(Optional.of(booker));
-        when(bookingRepository.findAllByBookerId(anyLong(), any())).thenReturn(List.of(booking));
+        when(bookingRepository.findAllByBookerId(anyLong(), any(), anyLong(), any())).thenReturn(List.of(booking));
 
-        List<BookingDtoOut> actualBookings = bookingService.getAllByBookerId("ALL", 2L);
+        List<BookingDtoOut> actualBookings = bookingService.getAllByBookerId("ALL", 2L, 10, null).getBookings();
 
         assertEquals(List.of(BookingMapper.toBookingDtoOut(booking)), actualBookings);
     }
@@ -170,9 +250,9 @@ class BookingServiceTest {
     @Test
     void testReturnCurrentBookings() throws ValidationException, NotFoundException {
         when(userRepository.findById(2L)).thenReturn(Optional.of(booker));
-        when(bookingRepository.findAllCurrentByBookerId(anyLong(), any())).thenReturn(List.of(booking));
+        when(bookingRepository.findAllCurrentByBookerId(anyLong(), any(), anyLong(), any())).thenReturn(List.of(booking));
 
-        List<BookingDtoOut> actualBookings = bookingService.getAllByBookerId("CURRENT", 2L);
+        List<BookingDtoOut> actualBookings = bookingService.getAllByBookerId("CURRENT", 2L, 10, null).getBookings();
 
         assertEquals(List.of(BookingMapper.toBookingDtoOut(booking)), actualBookings);
     }
@@ -180,9 +260,9 @@ class BookingServiceTest {
     @Test
     void testReturnPastBookings() throws ValidationException, NotFoundException {
         when(userRepository.findById(2L)).thenReturn(Optional.of(booker));
-        when(bookingRepository.findAllPastByBookerId(anyLong(), any())).thenReturn(List.of(booking));
+        when(bookingRepository.findAllPastByBookerId(anyLong(), any(), anyLong(), any())).thenReturn(List.of(booking));
 
-        List<BookingDtoOut> actualBookings = bookingService.getAllByBookerId("PAST", 2L);
+        List<BookingDtoOut> actualBookings = bookingService.getAllByBookerId("PAST", 2L, 10, null).getBookings();
 
         assertEquals(List.of(BookingMapper.toBookingDtoOut(booking)), actualBookings);
     }
@@ -190,9 +270,9 @@ class BookingServiceTest {
     @Test
     void testReturnFutureBookings() throws ValidationException, NotFoundException {
         when(userRepository.findById(2L)).thenReturn(Optional.of(booker));
-        when(bookingRepository.findAllFutureByBookerId(anyLong(), any())).thenReturn(List.of(booking));
+        when(bookingRepository.findAllFutureByBookerId(anyLong(), any(), anyLong(), any())).thenReturn(List.of(booking));
 
-        List<BookingDtoOut> actualBookings = bookingService.getAllByBookerId("FUTURE", 2L);
+        List<BookingDtoOut> actualBookings = bookingService.getAllByBookerId("FUTURE", 2L, 10, null).getBookings();
 
         assertEquals(List.of(BookingMapper.toBookingDtoOut(booking)), actualBookings);
     }
@@ -200,9 +280,9 @@ class BookingServiceTest {
     @Test
     void testReturnWaitingBookings() throws ValidationException, NotFoundException {
         when(userRepository.findById(2L)).thenReturn(Optional.of(booker));
-        when(bookingRepository.findAllByBookerIdAndStatus(anyLong(), any(), any())).thenReturn(List.of(booking));
+        when(bookingRepository.findAllByBookerIdAndStatus(anyLong(), any(), any(), anyLong(), any())).thenReturn(List.of(booking));
 
-        List<BookingDtoOut> actualBookings = bookingService.getAllByBookerId("WAITING", 2L);
+        List<BookingDtoOut> actualBookings = bookingService.getAllByBookerId("WAITING", 2L, 10, null).getBookings();
 
         assertEquals(List.of(BookingMapper.toBookingDtoOut(booking)), actualBookings);
     }
@@ -210,20 +290,33 @@ class BookingServiceTest {
     @Test
     void testReturnAllBookingsForOwner() throws ValidationException, NotFoundException {
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(bookingRepository.findAllByOwnerId(anyLong(), any())).thenReturn(List.of(booking));
+        when(bookingRepository.findAllByOwnerId(anyLong(), any(), anyLong(), any())).thenReturn(List.of(booking));
 
-        List<BookingDtoOut> actualBookings = bookingService.getAllByOwnerId(1L, "ALL");
+        List<BookingDtoOut> actualBookings = bookingService.getAllByOwnerId(1L, "ALL", 10, null).getBookings();
 
         assertEquals(List.of(BookingMapper.toBookingDtoOut(booking)), actualBookings);
 
     }
 
+    @Test
+    void testOwnerBookingsGoThroughItemsUntilBackfillCompletes() throws ValidationException, NotFoundException {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(ownerBackfill.isPending()).thenReturn(true);
+        when(bookingRepository.findAllByItemOwnerIdAndStatus(anyLong(), eq(Statuses.WAITING), any(), anyLong(), any()))
+                .thenReturn(List.of(booking));
+
+        List<BookingDtoOut> actualBookings = bookingService.getAllByOwnerId(1L, "WAITING", 10, null).getBookings();
+
+        assertEquals(List.of(BookingMapper.toBookingDtoOut(booking)), actualBookings);
+        verify(bookingRepository, never()).findAllByOwnerIdAndStatus(anyLong(), any(), any(), anyLong(), any());
+    }
+
     @Test
     void testReturnCurrentBookingsForOwner() throws ValidationException, NotFoundException {
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(bookingRepository.findAllCurrentByOwnerId(anyLong(), any())).thenReturn(List.of(booking));
+        when(bookingRepository.findAllCurrentByOwnerId(anyLong(), any(), anyLong(), any())).thenReturn(List.of(booking));
 
-        List<BookingDtoOut> actualBookings = bookingService.getAllByOwnerId(1L, "CURRENT");
+        List<BookingDtoOut> actualBookings = bookingService.getAllByOwnerId(1L, "CURRENT", 10, null).getBookings();
 
         assertEquals(List.of(BookingMapper.toBookingDtoOut(booking)), actualBookings);
     }
@@ -231,9 +324,9 @@ class BookingServiceTest {
     @Test
     void testReturnPastBookingsForOwner() throws ValidationException, NotFoundException {
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(bookingRepository.findAllPastByOwnerId(anyLong(), any())).thenReturn(List.of(booking));
+        when(bookingRepository.findAllPastByOwnerId(anyLong(), any(), anyLong(), any())).thenReturn(List.of(booking));
 
-        List<BookingDtoOut> actualBookings = bookingService.getAllByOwnerId(1L, "PAST");
+        List<BookingDtoOut> actualBookings = bookingService.getAllByOwnerId(1L, "PAST", 10, null).getBookings();
 
         assertEquals(List.of(BookingMapper.toBookingDtoOut(booking)), actualBookings);
     }
@@ -241,9 +334,9 @@ class BookingServiceTest {
     @Test
     void testReturnFutureBookingsForOwner() throws ValidationException, NotFoundException {
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(bookingRepository.findAllFutureByOwnerId(anyLong(), any())).thenReturn(List.of(booking));
+        when(bookingRepository.findAllFutureByOwnerId(anyLong(), any(), anyLong(), any())).thenReturn(List.of(booking));
 
-        List<BookingDtoOut> actualBookings = bookingService.getAllByOwnerId(1L, "FUTURE");
+        List<BookingDtoOut> actualBookings = bookingService.getAllByOwnerId(1L, "FUTURE", 10, null).getBookings();
 
         assertEquals(List.of(BookingMapper.toBookingDtoOut(booking)), actualBookings);
     }
@@ -251,9 +344,9 @@ class BookingServiceTest {
     @Test
     void testReturnWaitingBookingsForOwner() throws ValidationException, NotFoundException {
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(bookingRepository.findAllByOwnerIdAndStatus(anyLong(), any(), any())).thenReturn(List.of(booking));
+        when(bookingRepository.findAllByOwnerIdAndStatus(anyLong(), any(), any(), anyLong(), any())).thenReturn(List.of(booking));
 
-        List<BookingDtoOut> actualBookings = bookingService.getAllByOwnerId(1L, "WAITING");
+        List<BookingDtoOut> actualBookings = bookingService.getAllByOwnerId(1L, "WAITING", 10, null).getBookings();
 
         assertEquals(List.of(BookingMapper.toBookingDtoOut(booking)), actualBookings);
     }
@@ -280,9 +373,9 @@ class BookingServiceTest {
     @Test
     void testNoBookingsForBooker() throws ValidationException, NotFoundException {
         when(userRepository.findById(2L)).thenReturn(Optional.of(booker));
-        when(bookingRepository.findAllByBookerId(anyLong(), any())).thenReturn(Collections.emptyList());
+        when(bookingRepository.findAllByBookerId(anyLong(), any(), anyLong(), any())).thenReturn(Collections.emptyList());
 
-        List<BookingDtoOut> actualBookings = bookingService.getAllByBookerId("ALL", 2L);
+        List<BookingDtoOut> actualBookings = bookingService.getAllByBookerId("ALL", 2L, 10, null).getBookings();
 
         Assertions.assertTrue(actualBookings.isEmpty());
     }
@@ -290,9 +383,9 @@ class BookingServiceTest {
     @Test
     void testNoBookingsForOwner() throws ValidationException, NotFoundException {
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(bookingRepository.findAllByOwnerId(anyLong(), any())).thenReturn(Collections.emptyList());
+        when(bookingRepository.findAllByOwnerId(anyLong(), any(), anyLong(), any())).thenReturn(Collections.emptyList());
 
-        List<BookingDtoOut> actualBookings = bookingService.getAllByOwnerId(1L, "ALL");
+        List<BookingDtoOut> actualBookings = bookingService.getAllByOwnerId(1L, "ALL", 10, null).getBookings();
 
         Assertions.assertTrue(actualBookings.isEmpty());
     }
@@ -301,6 +394,7 @@ class BookingServiceTest {
     void testRejectBooking() throws ValidationException, NotFoundException {
         when(bookingRepository.findById(1L)).thenReturn(Optional.of(booking));
         when(itemRepository.findById(1L)).thenReturn(Optional.of(item));
+        when(bookingRepository.compareAndSetStatus(eq(1L), eq(Statuses.WAITING), any())).thenReturn(1);
         lenient().when(userRepository.findById(1L)).thenReturn(Optional.of(user));
 
         BookingDtoOut actualBooking = bookingService.approveBooking(1L, false, 1L);
@@ -319,9 +413,9 @@ class BookingServiceTest {
     @Test
     void testNoBookingsForOwnerInGetAllByOwner() throws ValidationException, NotFoundException {
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(bookingRepository.findAllByOwnerId(anyLong(), any())).thenReturn(Collections.emptyList());
+        when(bookingRepository.findAllByOwnerId(anyLong(), any(), anyLong(), any())).thenReturn(Collections.emptyList());
 
-        List<BookingDtoOut> actualBookings = bookingService.getAllByOwnerId(1L, "ALL");
+        List<BookingDtoOut> actualBookings = bookingService.getAllByOwnerId(1L, "ALL", 10, null).getBookings();
 
         Assertions.assertTrue(actualBookings.isEmpty());
     }
@@ -329,9 +423,9 @@ class BookingServiceTest {
     @Test
     void testNoBookingsForBookerInGetAllByBooker() throws ValidationException, NotFoundException {
         when(userRepository.findById(2L)).thenReturn(Optional.of(booker));
-        when(bookingRepository.findAllByBookerId(anyLong(), any())).thenReturn(Collections.emptyList());
+        when(bookingRepository.findAllByBookerId(anyLong(), any(), anyLong(), any())).thenReturn(Collections.emptyList());
 
-        List<BookingDtoOut> actualBookings = bookingService.getAllByBookerId("ALL", 2L);
+        List<BookingDtoOut> actualBookings = bookingService.getAllByBookerId("ALL", 2L, 10, null).getBookings();
 
         Assertions.assertTrue(actualBookings.isEmpty());
     }
@@ -371,9 +465,9 @@ class BookingServiceTest {
     @Test
     void testReturnAllRejectedBookingsForOwner() throws ValidationException, NotFoundException {
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(bookingRepository.findAllByOwnerIdAndStatus(anyLong(), any(), any())).thenReturn(List.of(booking));
+        when(bookingRepository.findAllByOwnerIdAndStatus(anyLong(), any(), any(), anyLong(), any())).thenReturn(List.of(booking));
 
-        List<BookingDtoOut> actualBookings = bookingService.getAllByOwnerId(1L, "REJECTED");
+        List<BookingDtoOut> actualBookings = bookingService.getAllByOwnerId(1L, "REJECTED", 10, null).getBookings();
 
         assertEquals(List.of(BookingMapper.toBookingDtoOut(booking)), actualBookings);
     }
@@ -389,9 +483,9 @@ class BookingServiceTest {
     @Test
     void testNoBookingsForOwnerAndStateIsWaiting() throws ValidationException, NotFoundException {
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(bookingRepository.findAllByOwnerIdAndStatus(anyLong(), any(), any())).thenReturn(Collections.emptyList());
+        when(bookingRepository.findAllByOwnerIdAndStatus(anyLong(), any(), any(), anyLong(), any())).thenReturn(Collections.emptyList());
 
-        List<BookingDtoOut> actualBookings = bookingService.getAllByOwnerId(1L, "WAITING");
+        List<BookingDtoOut> actualBookings = bookingService.getAllByOwnerId(1L, "WAITING", 10, null).getBookings();
 
         Assertions.assertTrue(actualBookings.isEmpty());
     }
@@ -399,9 +493,9 @@ class BookingServiceTest {
     @Test
     void testNoBookingsForBookerWithStateRejected() throws ValidationException, NotFoundException {
         when(userRepository.findById(2L)).thenReturn(Optional.of(booker));
-        when(bookingRepository.findAllByBookerIdAndStatus(anyLong(), any(), any())).thenReturn(Collections.emptyList());
+        when(bookingRepository.findAllByBookerIdAndStatusOrderByEnd(anyLong(), any(), any(), anyLong(), any())).thenReturn(Collections.emptyList());
 
-        List<BookingDtoOut> actualBookings = bookingService.getAllByBookerId("REJECTED", 2L);
+        List<BookingDtoOut> actualBookings = bookingService.getAllByBookerId("REJECTED", 2L, 10, null).getBookings();
         Assertions.assertTrue(actualBookings.isEmpty());
     }
 
@@ -432,18 +526,18 @@ class BookingServiceTest {
     @Test
     void testNoBookingsForBookerWithStateWaiting() throws ValidationException, NotFoundException {
         when(userRepository.findById(2L)).thenReturn(Optional.of(booker));
-        when(bookingRepository.findAllByBookerIdAndStatus(anyLong(), any(), any())).thenReturn(Collections.emptyList());
+        when(bookingRepository.findAllByBookerIdAndStatus(anyLong(), any(), any(), anyLong(), any())).thenReturn(Collections.emptyList());
 
-        List<BookingDtoOut> actualBookings = bookingService.getAllByBookerId("WAITING", 2L);
+        List<BookingDtoOut> actualBookings = bookingService.getAllByBookerId("WAITING", 2L, 10, null).getBookings();
         Assertions.assertTrue(actualBookings.isEmpty());
     }
 
     @Test
     void testNoBookingsForOwnerWithStateRejected() throws ValidationException, NotFoundException {
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(bookingRepository.findAllByOwnerIdAndStatus(anyLong(), any(), any())).thenReturn(Collections.emptyList());
+        when(bookingRepository.findAllByOwnerIdAndStatus(anyLong(), any(), any(), anyLong(), any())).thenReturn(Collections.emptyList());
 
-        List<BookingDtoOut> actualBookings = bookingService.getAllByOwnerId(1L, "REJECTED");
+        List<BookingDtoOut> actualBookings = bookingService.getAllByOwnerId(1L, "REJECTED", 10, null).getBookings();
         Assertions.assertTrue(actualBookings.isEmpty());
     }
 
@@ -509,18 +603,18 @@ class BookingServiceTest {
     @Test
     void testNoBookingsForOwnerWithStateFuture() throws ValidationException, NotFoundException {
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(bookingRepository.findAllFutureByOwnerId(anyLong(), any())).thenReturn(Collections.emptyList());
+        when(bookingRepository.findAllFutureByOwnerId(anyLong(), any(), anyLong(), any())).thenReturn(Collections.emptyList());
 
-        List<BookingDtoOut> actualBookings = bookingService.getAllByOwnerId(1L, "FUTURE");
+        List<BookingDtoOut> actualBookings = bookingService.getAllByOwnerId(1L, "FUTURE", 10, null).getBookings();
         Assertions.assertTrue(actualBookings.isEmpty());
     }
 
     @Test
     void testNoBookingsForBookerWithStateFuture() throws ValidationException, NotFoundException {
         when(userRepository.findById(2L)).thenReturn(Optional.of(booker));
-        when(bookingRepository.findAllFutureByBookerId(anyLong(), any())).thenReturn(Collections.emptyList());
+        when(bookingRepository.findAllFutureByBookerId(anyLong(), any(), anyLong(), any())).thenReturn(Collections.emptyList());
 
-        List<BookingDtoOut> actualBookings = bookingService.getAllByBookerId("FUTURE", 2L);
+        List<BookingDtoOut> actualBookings = bookingService.getAllByBookerId("FUTURE", 2L, 10, null).getBookings();
         Assertions.assertTrue(actualBookings.isEmpty());
     }
 
@@ -586,11 +680,11 @@ class BookingServiceTest {
         bookingRepository.save(booking);
 
         when(userRepository.findById(booker.getId())).thenReturn(Optional.of(booker));
-        when(bookingRepository.findAllByBookerId(booker.getId(), Sort.by("start").descending()))
+        when(bookingRepository.findAllByBookerId(eq(booker.getId()), any(), anyLong(), any()))
                 .thenReturn(List.of(booking));
 
 
-        List<BookingDtoOut> result = bookingService.getAllByBookerId("ALL", booker.getId());
+        List<BookingDtoOut> result = bookingService.getAllByBookerId("ALL", booker.getId(), 10, null).getBookings();
 
         assertNotNull(result);
         assertEquals(1, result.size());
@@ -603,10 +697,10 @@ class BookingServiceTest {
         bookingRepository.save(booking);
 
         when(userRepository.findById(booker.getId())).thenReturn(Optional.of(booker));
-        when(bookingRepository.findAllCurrentByBookerId(booker.getId(), Sort.by("start").descending()))
+        when(bookingRepository.findAllCurrentByBookerId(eq(booker.getId()), any(), anyLong(), any()))
                 .thenReturn(List.of(booking));
 
-        List<BookingDtoOut> result = bookingService.getAllByBookerId("CURRENT", booker.getId());
+        List<BookingDtoOut> result = bookingService.getAllByBookerId("CURRENT", booker.getId(), 10, null).getBookings();
 
         assertNotNull(result);
         assertEquals(1, result.size());
@@ -619,10 +713,10 @@ class BookingServiceTest {
         bookingRepository.save(booking);
 
         when(userRepository.findById(booker.getId())).thenReturn(Optional.of(booker));
-        when(bookingRepository.findAllPastByBookerId(booker.getId(), Sort.by("start").descending()))
+        when(bookingRepository.findAllPastByBookerId(eq(booker.getId()), any(), anyLong(), any()))
                 .thenReturn(List.of(booking));
 
-        List<BookingDtoOut> result = bookingService.getAllByBookerId("PAST", booker.getId());
+        List<BookingDtoOut> result = bookingService.getAllByBookerId("PAST", booker.getId(), 10, null).getBookings();
 
         assertNotNull(result);
         assertEquals(1, result.size());
@@ -635,10 +729,10 @@ class BookingServiceTest {
         bookingRepository.save(booking);
 
         when(userRepository.findById(booker.getId())).thenReturn(Optional.of(booker));
-        when(bookingRepository.findAllFutureByBookerId(booker.getId(), Sort.by("start").descending()))
+        when(bookingRepository.findAllFutureByBookerId(eq(booker.getId()), any(), anyLong(), any()))
                 .thenReturn(List.of(booking));
 
-        List<BookingDtoOut> result = bookingService.getAllByBookerId("FUTURE", booker.getId());
+        List<BookingDtoOut> result = bookingService.getAllByBookerId("FUTURE", booker.getId(), 10, null).getBookings();
 
         assertNotNull(result);
         assertEquals(1, result.size());
@@ -651,12 +745,67 @@ class BookingServiceTest {
         bookingRepository.save(booking);
 
         when(userRepository.findById(booker.getId())).thenReturn(Optional.of(booker));
-        when(bookingRepository.findAllByBookerIdAndStatus(booker.getId(), Statuses.WAITING, Sort.by("start").descending()))
+        when(bookingRepository.findAllByBookerIdAndStatus(eq(booker.getId()), eq(Statuses.WAITING), any(), anyLong(), any()))
                 .thenReturn(List.of(booking));
 
-        List<BookingDtoOut> result = bookingService.getAllByBookerId("WAITING", booker.getId());
+        List<BookingDtoOut> result = bookingService.getAllByBookerId("WAITING", booker.getId(), 10, null).getBookings();
 
         assertNotNull(result);
         assertEquals(1, result.size());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testNextCursorIsReturnedWhenPageIsFull() throws ValidationException, NotFoundException {
+        Booking older = new Booking(2L, booking.getStart().minusDays(1), booking.getEnd(), item, booker, Statuses.WAITING);
+        when(userRepository.findById(2L)).thenReturn(Optional.of(booker));
+        when(bookingRepository.findAllByBookerId(anyLong(), any(), anyLong(), any())).thenReturn(List.of(booking, older));
+
+        BookingDtoPage page = bookingService.getAllByBookerId("ALL", 2L, 1, null);
+
+        assertEquals(List.of(BookingMapper.toBookingDtoOut(booking)), page.getBookings());
+        assertEquals(new KeysetCursor(booking.getStart(), booking.getId()), KeysetCursor.decode(page.getNext()));
+    }
+
+    @Test
+    void testRejectedBookerPageIsKeyedByEnd() throws ValidationException, NotFoundException {
+        Booking earlier = new Booking(2L, booking.getStart(), booking.getEnd().minusDays(1), item, booker, Statuses.REJECTED);
+        when(userRepository.findById(2L)).thenReturn(Optional.of(booker));
+        when(bookingRepository.findAllByBookerIdAndStatusOrderByEnd(2L, Statuses.REJECTED,
+                KeysetCursor.FIRST.getTime(), KeysetCursor.FIRST.getId(), Limit.of(2)))
+                .thenReturn(List.of(booking, earlier));
+
+        BookingDtoPage page = bookingService.getAllByBookerId("REJECTED", 2L, 1, null);
+
+        assertEquals(List.of(BookingMapper.toBookingDtoOut(booking)), page.getBookings());
+        assertEquals(new KeysetCursor(booking.getEnd(), booking.getId()), KeysetCursor.decode(page.getNext()));
+    }
+
+    @Test
+    void testNextCursorIsPassedToRepository() throws ValidationException, NotFoundException {
+        String cursor = new KeysetCursor(booking.getStart(), booking.getId()).encode();
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(bookingRepository.findAllByOwnerId(1L, booking.getStart(), booking.getId(), Limit.of(3)))
+                .thenReturn(Collections.emptyList());
+
+        BookingDtoPage page = bookingService.getAllByOwnerId(1L, "ALL", 2, cursor);
+
+        assertTrue(page.getBookings().isEmpty());
+        assertNull(page.getNext());
+    }
+
+    @Test
+    void testInvalidCursor() {
+        when(userRepository.findById(2L)).thenReturn(Optional.of(booker));
+
+        Assertions.assertThrows(ValidationException.class, () ->
+                bookingService.getAllByBookerId("ALL", 2L, 10, "not-a-cursor"));
+    }
+
+    @Test
+    void testInvalidPageSize() {
+        when(userRepository.findById(2L)).thenReturn(Optional.of(booker));
+
+        Assertions.assertThrows(ValidationException.class, () ->
+                bookingService.getAllByBookerId("ALL", 2L, 0, null));
+    }
+}
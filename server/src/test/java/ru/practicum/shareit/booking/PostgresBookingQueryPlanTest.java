@@ -0,0 +1,221 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.PostgreSQLContainer;
+import ru.practicum.shareit.booking.BookingQueryPlanTest.CapturingInspector;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.enums.Statuses;
+import ru.practicum.shareit.page.KeysetCursor;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * То же, что BookingQueryPlanTest, но на PostgreSQL 16 со схемой schema-postgresql.sql, как в рабочей базе.
+ * База берётся из -Dshareit.plan.jdbc-url (пользователь и пароль - shareit.plan.jdbc-user и
+ * shareit.plan.jdbc-password), иначе поднимается контейнер Testcontainers; без того и другого тест
+ * пропускается. Общие индексы проверяются по общему плану, то есть без значений параметров, как для
+ * подготовленного запроса: ни один запрос не читает bookings целиком. Частичные индексы по статусу
+ * подходят только плану под конкретное значение, поэтому такие запросы объясняются ещё раз с теми же
+ * значениями параметров, что передал тест, и в плане ищется имя частичного индекса.
+ */
+@DirtiesContext
+@EnabledIf("postgresAvailable")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@DataJpaTest(properties = {"spring.sql.init.platform=postgresql",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "ru.practicum.shareit.booking.BookingQueryPlanTest$CapturingInspector"})
+class PostgresBookingQueryPlanTest {
+    private static final long BOOKINGS = Long.getLong("shareit.plan.rows", 20_000L);
+    private static final long ITEMS = Math.max(BOOKINGS / 20, 1);
+    private static final long USERS = Math.max(BOOKINGS / 100, 1);
+    /* Параметры JDBC вне строковых литералов; в SQL от Hibernate литералов с '?' нет */
+    private static final Pattern PARAMETER = Pattern.compile("\\?");
+
+    private static final String JDBC_URL = System.getProperty("shareit.plan.jdbc-url");
+
+    private final KeysetCursor first = KeysetCursor.FIRST;
+    private final LocalDateTime now = LocalDateTime.of(2021, 1, 1, 0, 0);
+    private final Limit limit = Limit.of(11);
+
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    static boolean postgresAvailable() {
+        return JDBC_URL != null || DockerClientFactory.instance().isDockerAvailable();
+    }
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.driverClassName", () -> "org.postgresql.Driver");
+        if (JDBC_URL != null) {
+            registry.add("spring.datasource.url", () -> JDBC_URL);
+            registry.add("spring.datasource.username", () -> System.getProperty("shareit.plan.jdbc-user", "postgres"));
+            registry.add("spring.datasource.password", () -> System.getProperty("shareit.plan.jdbc-password", ""));
+            return;
+        }
+        PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+        postgres.start();
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @BeforeAll
+    void seed() {
+        jdbcTemplate.update("INSERT INTO users (id, name, email) " +
+                "SELECT x, 'user' || x, 'user' || x || '@mail.ru' FROM generate_series(1, ?) AS x", USERS);
+        jdbcTemplate.update("INSERT INTO items (id, name, description, available, owner_id) " +
+                "SELECT x, 'item' || x, 'description' || x, TRUE, x % ? + 1 FROM generate_series(1, ?) AS x",
+                USERS, ITEMS);
+        jdbcTemplate.update("INSERT INTO bookings (id, start_date, end_date, item_id, booker_id, owner_id, status) " +
+                "SELECT x, TIMESTAMP '2020-01-01 00:00:00' + x * INTERVAL '1 hour', " +
+                "TIMESTAMP '2020-01-01 00:00:00' + (x + 2) * INTERVAL '1 hour', " +
+                "x % ? + 1, x * 7 % ? + 1, (x % ? + 1) % ? + 1, " +
+                "CASE x % 4 WHEN 0 THEN 'WAITING' WHEN 1 THEN 'REJECTED' ELSE 'APPROVED' END " +
+                "FROM generate_series(1, ?) AS x", ITEMS, USERS, ITEMS, USERS, BOOKINGS);
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @Test
+    void bookerQueriesUseIndexes() {
+        assertIndexed(() -> bookingRepository.findAllByBookerId(1L, first.getTime(), first.getId(), limit));
+        assertIndexed(() -> bookingRepository.findAllCurrentByBookerId(1L, first.getTime(), first.getId(), limit));
+        assertIndexed(() -> bookingRepository.findAllPastByBookerId(1L, first.getTime(), first.getId(), limit));
+        assertIndexed(() -> bookingRepository.findAllFutureByBookerId(1L, first.getTime(), first.getId(), limit));
+        assertIndexed(() -> bookingRepository.findAllByBookerIdAndStatus(1L, Statuses.WAITING,
+                first.getTime(), first.getId(), limit));
+        assertIndexed(() -> bookingRepository.findAllByBookerIdAndStatusOrderByEnd(1L, Statuses.REJECTED,
+                first.getTime(), first.getId(), limit));
+    }
+
+    @Test
+    void ownerQueriesUseIndexes() {
+        assertIndexed(() -> bookingRepository.findAllByOwnerId(1L, first.getTime(), first.getId(), limit));
+        assertIndexed(() -> bookingRepository.findAllCurrentByOwnerId(1L, first.getTime(), first.getId(), limit));
+        assertIndexed(() -> bookingRepository.findAllPastByOwnerId(1L, first.getTime(), first.getId(), limit));
+        assertIndexed(() -> bookingRepository.findAllFutureByOwnerId(1L, first.getTime(), first.getId(), limit));
+        assertIndexed(() -> bookingRepository.findAllByOwnerIdAndStatus(1L, Statuses.REJECTED,
+                first.getTime(), first.getId(), limit));
+    }
+
+    @Test
+    void itemQueriesUseIndexes() {
+        assertIndexed(() -> bookingRepository.existsByBookerIdAndItemIdAndEndBefore(1L, 1L, now));
+        assertIndexed(() -> bookingRepository.findLastByItemIdIn(List.of(1L, 2L), now, Statuses.APPROVED));
+        assertIndexed(() -> bookingRepository.findNextByItemIdIn(List.of(1L, 2L), now, Statuses.APPROVED));
+    }
+
+    /* Частичные индексы по статусу выбираются в плане под значения, с которыми тест вызывает запросы */
+    @Test
+    void statusQueriesUsePartialIndexes() {
+        LocalDateTime time = first.getTime();
+        Long id = first.getId();
+        assertUsesIndex("idx_bookings_waiting_booker_start",
+                () -> bookingRepository.findAllByBookerIdAndStatus(1L, Statuses.WAITING, time, id, limit),
+                1L, "WAITING", time, time, id, 11);
+        assertUsesIndex("idx_bookings_rejected_booker_end",
+                () -> bookingRepository.findAllByBookerIdAndStatusOrderByEnd(1L, Statuses.REJECTED, time, id, limit),
+                1L, "REJECTED", time, time, id, 11);
+        assertUsesIndex("idx_bookings_approved_item_start",
+                () -> bookingRepository.findLastByItemIdIn(List.of(1L, 2L), now, Statuses.APPROVED),
+                1L, 2L, "APPROVED", now, "APPROVED", now);
+        assertUsesIndex("idx_bookings_approved_item_start",
+                () -> bookingRepository.findNextByItemIdIn(List.of(1L, 2L), now, Statuses.APPROVED),
+                1L, 2L, "APPROVED", now, "APPROVED", now);
+    }
+
+    private void assertIndexed(Runnable repositoryCall) {
+        CapturingInspector.STATEMENTS.clear();
+        repositoryCall.run();
+        List<String> statements = CapturingInspector.STATEMENTS.stream()
+                .filter(sql -> sql.contains("bookings"))
+                .toList();
+
+        assertThat(statements).isNotEmpty();
+        for (String sql : statements) {
+            /* Общий план не сворачивается по значениям параметров, поэтому bookings в нём есть всегда */
+            assertThat(explain(sql))
+                    .as("План запроса %s", sql)
+                    .contains(" on bookings")
+                    .doesNotContain("Seq Scan on bookings");
+        }
+    }
+
+    /* values - значения параметров ? первого запроса к bookings в порядке их следования в SQL */
+    private void assertUsesIndex(String index, Runnable repositoryCall, Object... values) {
+        CapturingInspector.STATEMENTS.clear();
+        repositoryCall.run();
+        String sql = CapturingInspector.STATEMENTS.stream()
+                .filter(statement -> statement.contains("bookings"))
+                .findFirst()
+                .orElseThrow();
+
+        String plan = String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class, values));
+        assertThat(plan)
+                .as("План запроса %s", sql)
+                .contains(index);
+    }
+
+    /*
+     * Общий план подготовленного запроса: параметры ? заменяются на $1, $2, ..., и запрос объясняется через
+     * PREPARE и EXPLAIN EXECUTE при plan_cache_mode = force_generic_plan. EXPLAIN (GENERIC_PLAN) через
+     * драйвер не выполнить: он отправляет запрос расширенным протоколом, и сервер ждёт значения $1
+     */
+    private String explain(String sql) {
+        Matcher matcher = PARAMETER.matcher(sql);
+        StringBuilder numbered = new StringBuilder();
+        int parameters = 0;
+        while (matcher.find()) {
+            matcher.appendReplacement(numbered, Matcher.quoteReplacement("$" + ++parameters));
+        }
+        matcher.appendTail(numbered);
+        String execute = parameters == 0 ? "EXPLAIN EXECUTE plan_check"
+                : "EXPLAIN EXECUTE plan_check(" + String.join(", ", Collections.nCopies(parameters, "NULL")) + ")";
+        return jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("PREPARE plan_check AS " + numbered);
+                try {
+                    statement.execute("SET plan_cache_mode = force_generic_plan");
+                    List<String> plan = new ArrayList<>();
+                    try (ResultSet rows = statement.executeQuery(execute)) {
+                        while (rows.next()) {
+                            plan.add(rows.getString(1));
+                        }
+                    }
+                    return String.join("\n", plan);
+                } finally {
+                    statement.execute("RESET plan_cache_mode");
+                    statement.execute("DEALLOCATE plan_check");
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,55 @@
+package ru.practicum.shareit.booking.index;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.enums.Statuses;
+import ru.practicum.shareit.item.model.Item;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BookingIntervalIndexTest {
+    private final BookingRepository bookingRepository = mock(BookingRepository.class);
+
+    @Test
+    void testIdleTreeIsEvictedAndReloaded() {
+        BookingIntervalIndex index = new BookingIntervalIndex(bookingRepository, 0);
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+
+        index.hasOverlap(1L, start, start.plusDays(1), null);
+        assertEquals(1, index.size());
+        index.sweep();
+        assertEquals(0, index.size());
+        index.hasOverlap(1L, start, start.plusDays(1), null);
+
+        verify(bookingRepository, times(2)).findAllByItemIdAndStatusInAndEndAfter(anyLong(), any(), any());
+    }
+
+    @Test
+    void testEndedBookingsArePruned() {
+        BookingIntervalIndex index = new BookingIntervalIndex(bookingRepository, 600_000);
+        Item item = new Item();
+        item.setId(1L);
+        LocalDateTime now = LocalDateTime.now();
+        Booking ended = new Booking(1L, now.minusDays(2), now.minusDays(1), item, null, Statuses.APPROVED);
+        Booking future = new Booking(2L, now.plusDays(1), now.plusDays(2), item, null, Statuses.APPROVED);
+        when(bookingRepository.findAllByItemIdAndStatusInAndEndAfter(anyLong(), any(), any())).thenReturn(List.of());
+
+        index.add(ended);
+        index.add(future);
+        index.sweep();
+
+        assertFalse(index.hasOverlap(1L, now.minusDays(2), now.minusDays(1), null));
+        assertTrue(index.hasOverlap(1L, now.plusDays(1), now.plusDays(2), null));
+        assertEquals(1, index.size());
+    }
+}
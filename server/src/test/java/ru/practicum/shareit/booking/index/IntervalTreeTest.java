@@ -0,0 +1,76 @@
+package ru.practicum.shareit.booking.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntervalTreeTest {
+    private final LocalDateTime base = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+    @Test
+    void testOverlapIsHalfOpen() {
+        IntervalTree tree = new IntervalTree();
+        tree.insert(1L, base.plusDays(1), base.plusDays(3));
+
+        assertTrue(tree.overlaps(base.plusDays(2), base.plusDays(4), 0L));
+        assertTrue(tree.overlaps(base, base.plusDays(5), 0L));
+        assertFalse(tree.overlaps(base.plusDays(3), base.plusDays(4), 0L));
+        assertFalse(tree.overlaps(base, base.plusDays(1), 0L));
+        assertFalse(tree.overlaps(base.plusDays(2), base.plusDays(4), 1L));
+    }
+
+    @Test
+    void testRemove() {
+        IntervalTree tree = new IntervalTree();
+        tree.insert(1L, base, base.plusDays(1));
+        tree.insert(2L, base, base.plusDays(2));
+
+        assertTrue(tree.remove(2L, base));
+        assertFalse(tree.remove(2L, base));
+        assertEquals(1, tree.size());
+        assertFalse(tree.overlaps(base.plusDays(1), base.plusDays(2), 0L));
+    }
+
+    @Test
+    void testRemoveEndedBy() {
+        IntervalTree tree = new IntervalTree();
+        for (long id = 1; id <= 100; id++) {
+            tree.insert(id, base.plusHours(id), base.plusHours(id + 2));
+        }
+
+        assertEquals(48, tree.removeEndedBy(base.plusHours(50)));
+        assertEquals(52, tree.size());
+        assertFalse(tree.overlaps(base, base.plusHours(49), 0L));
+        assertTrue(tree.overlaps(base.plusHours(50), base.plusHours(51), 0L));
+    }
+
+    @Test
+    void testMatchesLinearScan() {
+        Random random = new Random(42);
+        IntervalTree tree = new IntervalTree();
+        List<long[]> intervals = new ArrayList<>();
+        for (long id = 1; id <= 2_000; id++) {
+            long start = random.nextInt(100_000);
+            long[] interval = {id, start, start + 1 + random.nextInt(50)};
+            intervals.add(interval);
+            tree.insert(id, base.plusMinutes(interval[1]), base.plusMinutes(interval[2]));
+        }
+        for (int i = 0; i < 500; i++) {
+            long[] removed = intervals.remove(random.nextInt(intervals.size()));
+            assertTrue(tree.remove(removed[0], base.plusMinutes(removed[1])));
+        }
+        assertEquals(intervals.size(), tree.size());
+
+        for (int i = 0; i < 2_000; i++) {
+            long start = random.nextInt(100_000);
+            long end = start + 1 + random.nextInt(100);
+            boolean expected = intervals.stream().anyMatch(interval -> interval[1] < end && start < interval[2]);
+            assertEquals(expected, tree.overlaps(base.plusMinutes(start), base.plusMinutes(end), 0L));
+        }
+    }
+}
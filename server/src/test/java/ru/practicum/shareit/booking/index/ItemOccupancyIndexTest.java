@@ -0,0 +1,59 @@
+package ru.practicum.shareit.booking.index;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.enums.Statuses;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
+import ru.practicum.shareit.item.model.Item;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ItemOccupancyIndexTest {
+    private static final LocalDateTime FROM = LocalDateTime.of(2030, 1, 1, 0, 0);
+    private static final LocalDateTime TO = FROM.plusDays(1);
+
+    private final BookingRepository bookingRepository = mock(BookingRepository.class);
+
+    @Test
+    void leastRecentlyReadBitmapIsEvicted() {
+        ItemOccupancyIndex index = new ItemOccupancyIndex(bookingRepository, 1);
+
+        index.getFreeSlots(1L, FROM, TO, ChronoUnit.HOURS);
+        index.getFreeSlots(1L, FROM, TO, ChronoUnit.HOURS);
+        index.getFreeSlots(2L, FROM, TO, ChronoUnit.HOURS);
+        index.getFreeSlots(1L, FROM, TO, ChronoUnit.HOURS);
+
+        verify(bookingRepository, times(2)).findAllByItemIdAndStatus(1L, Statuses.APPROVED);
+        verify(bookingRepository, times(1)).findAllByItemIdAndStatus(2L, Statuses.APPROVED);
+    }
+
+    @Test
+    void approvalDuringLoadIsNotLost() {
+        ItemOccupancyIndex index = new ItemOccupancyIndex(bookingRepository, 10);
+        Item item = new Item();
+        item.setId(1L);
+        Booking booking = new Booking(1L, FROM.plusHours(2), FROM.plusHours(4), item, null, Statuses.APPROVED);
+        /* Бронирование подтверждают, пока карта читается из базы, и первая загрузка его не видит */
+        when(bookingRepository.findAllByItemIdAndStatus(1L, Statuses.APPROVED))
+                .thenAnswer(invocation -> {
+                    index.markApproved(booking);
+                    return List.of();
+                })
+                .thenReturn(List.of(booking));
+
+        index.getFreeSlots(1L, FROM, TO, ChronoUnit.HOURS);
+        List<ItemAvailabilityDto> free = index.getFreeSlots(1L, FROM, TO, ChronoUnit.HOURS);
+
+        assertEquals(List.of(new ItemAvailabilityDto(FROM, FROM.plusHours(2)),
+                new ItemAvailabilityDto(FROM.plusHours(4), TO)), free);
+    }
+}
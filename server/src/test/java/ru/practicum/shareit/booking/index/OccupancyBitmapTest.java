@@ -0,0 +1,53 @@
+package ru.practicum.shareit.booking.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OccupancyBitmapTest {
+
+    @Test
+    void testEmptyBitmap() {
+        OccupancyBitmap bitmap = new OccupancyBitmap();
+
+        assertEquals(-1, bitmap.nextSet(0, 100_000));
+        assertEquals(5, bitmap.nextClear(5, 10));
+    }
+
+    @Test
+    void testRangeAcrossContainers() {
+        OccupancyBitmap bitmap = new OccupancyBitmap();
+        bitmap.set(1000, 5000);
+
+        assertEquals(1000, bitmap.nextSet(0, 10_000));
+        assertEquals(-1, bitmap.nextSet(0, 1000));
+        assertEquals(4999, bitmap.nextSet(4999, 6000));
+        assertEquals(5000, bitmap.nextClear(1000, 10_000));
+        assertEquals(-1, bitmap.nextClear(2000, 5000));
+    }
+
+    @Test
+    void testMatchesBitSet() {
+        Random random = new Random(7);
+        OccupancyBitmap bitmap = new OccupancyBitmap();
+        BitSet expected = new BitSet();
+        for (int i = 0; i < 300; i++) {
+            int from = random.nextInt(50_000);
+            int to = from + 1 + random.nextInt(i % 10 == 0 ? 3000 : 30);
+            bitmap.set(from, to);
+            expected.set(from, to);
+        }
+
+        for (int i = 0; i < 2000; i++) {
+            int from = random.nextInt(55_000);
+            int to = from + random.nextInt(5000);
+            int set = expected.nextSetBit(from);
+            int clear = expected.nextClearBit(from);
+            assertEquals(set >= 0 && set < to ? set : -1, bitmap.nextSet(from, to));
+            assertEquals(clear < to ? clear : -1, bitmap.nextClear(from, to));
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.bulk.ImportError;
+import ru.practicum.shareit.bulk.ImportReport;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.item.bulk.ItemBulkImporter;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(
+        properties = {"spring.datasource.username=shareit", "shareit.item.bulk.chunk-size=2"},
+        webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class ItemBulkImporterTest {
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final MediaType CSV = MediaType.parseMediaType("text/csv");
+
+    @Autowired
+    private ItemBulkImporter importer;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private User owner;
+
+    @BeforeEach
+    void setUp() {
+        owner = userRepository.save(new User(null, "Owner", UUID.randomUUID() + "@mail.ru"));
+    }
+
+    @Test
+    void ndjsonRowsAreSavedAndErrorsReportedByLine() throws NotFoundException, ValidationException {
+        String body = """
+                {"name":"Дрель","description":"Ударная","available":true}
+                {"name":"","description":"Без названия","available":true}
+
+                {"name":"Пила","description":"Цепная","available":false}
+                не json
+                {"name":"Лобзик","description":"Электрический","available":true,"requestId":999999}
+                {"name":"Шуруповёрт","description":"Аккумуляторный","available":true}
+                """;
+
+        ImportReport report = importer.importItems(owner.getId(), NDJSON, stream(body));
+
+        assertThat(report.getImported()).isEqualTo(3);
+        assertThat(report.getFailed()).isEqualTo(3);
+        assertThat(report.getErrors()).extracting(ImportError::getLine).containsExactlyInAnyOrder(2L, 5L, 6L);
+        assertThat(report.getErrors()).filteredOn(error -> error.getLine() == 6)
+                .extracting(ImportError::getMessage).containsExactly("Запрос с id 999999 не найден");
+        assertThat(ownedItemNames()).containsExactlyInAnyOrder("Дрель", "Пила", "Шуруповёрт");
+    }
+
+    @Test
+    void csvWithQuotedFieldsAndAnyColumnOrder() throws NotFoundException, ValidationException {
+        String body = """
+                available,name,description
+                true,"Палатка","Двухместная, с тамбуром"
+                false,"Котелок \"\"Турист\"\"",Походный
+                yes,Спальник,Тёплый
+                true,Коврик
+                """;
+
+        ImportReport report = importer.importItems(owner.getId(), CSV, stream(body));
+
+        assertThat(report.getImported()).isEqualTo(2);
+        assertThat(report.getErrors()).extracting(ImportError::getLine).containsExactly(4L, 5L);
+        assertThat(ownedItemNames()).containsExactlyInAnyOrder("Палатка", "Котелок \"Турист\"");
+    }
+
+    @Test
+    void csvWithoutRequiredColumnsIsRejected() {
+        assertThatThrownBy(() -> importer.importItems(owner.getId(), CSV, stream("name,description\nа,б\n")))
+                .isInstanceOf(ValidationException.class);
+    }
+
+    @Test
+    void unknownOwnerIsRejected() {
+        assertThatThrownBy(() -> importer.importItems(-1L, NDJSON, stream("")))
+                .isInstanceOf(NotFoundException.class);
+    }
+
+    private List<String> ownedItemNames() {
+        return new TransactionTemplate(transactionManager).execute(status ->
+                itemRepository.findAllByOwnerId(owner.getId()).stream().map(Item::getName).toList());
+    }
+
+    private static InputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
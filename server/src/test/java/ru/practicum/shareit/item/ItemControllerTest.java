@@ -7,10 +7,15 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.bulk.ImportError;
+import ru.practicum.shareit.bulk.ImportReport;
 import ru.practicum.shareit.item.comment.dto.CommentDtoOut;
 import ru.practicum.shareit.item.controller.ItemController;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDtoOut;
+import ru.practicum.shareit.item.dto.ItemDtoPage;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.page.CursorCodec;
 import ru.practicum.shareit.user.dto.UserDto;
 
 import java.nio.charset.StandardCharsets;
@@ -106,7 +111,7 @@ class ItemControllerTest {
 
     @Test
     void searchItemByTextTest() throws Exception {
-        when(itemService.searchItemByText(any())).thenReturn(List.of(itemDtoOut));
+        when(itemService.searchItemByText(any(), anyInt(), anyInt())).thenReturn(List.of(itemDtoOut));
 
         mvc.perform(get("/items/search?text=a")
                         .characterEncoding(StandardCharsets.UTF_8)
@@ -135,4 +140,52 @@ class ItemControllerTest {
                 .andExpect(jsonPath("$.text", is(commentDtoOut.getText())))
                 .andExpect(jsonPath("$.authorName", is(commentDtoOut.getAuthorName())));
     }
-}
\ No newline at end of file
+
+    @Test
+    void getAvailabilityTest() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        when(itemService.getAvailability(1L, from, from.plusDays(2), "DAYS"))
+                .thenReturn(List.of(new ItemAvailabilityDto(from, from.plusDays(1))));
+
+        mvc.perform(get("/items/1/availability")
+                        .param("from", "2030-01-01T00:00:00")
+                        .param("to", "2030-01-03T00:00:00")
+                        .param("unit", "DAYS")
+                        .header("X-Sharer-User-Id", 1L)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(1)))
+                .andExpect(jsonPath("$[0].start", is("2030-01-01T00:00:00")))
+                .andExpect(jsonPath("$[0].end", is("2030-01-02T00:00:00")));
+    }
+
+    @Test
+    void searchAvailableItemsTest() throws Exception {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 0, 0);
+        when(itemService.searchAvailableItems("drill", start, start.plusDays(2), 1, null))
+                .thenReturn(new ItemDtoPage(List.of(itemDtoOut), "1"));
+
+        mvc.perform(get("/items/search/available")
+                        .param("text", "drill")
+                        .param("start", "2030-01-01T00:00:00")
+                        .param("end", "2030-01-03T00:00:00")
+                        .param("size", "1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(CursorCodec.NEXT_CURSOR_HEADER, "1"))
+                .andExpect(content().json(mapper.writeValueAsString(List.of(itemDtoOut))));
+    }
+
+    @Test
+    void importItemsTest() throws Exception {
+        ImportReport report = new ImportReport(1, 1, List.of(new ImportError(2, "Название не может быть пустым")));
+        when(itemService.importItems(anyLong(), any(), any())).thenReturn(report);
+
+        mvc.perform(post("/items/bulk")
+                        .content("{\"name\":\"item\",\"description\":\"d\",\"available\":true}\n{\"name\":\"\"}\n")
+                        .contentType("application/x-ndjson")
+                        .header("X-Sharer-User-Id", 1L))
+                .andExpect(status().isOk())
+                .andExpect(content().json(mapper.writeValueAsString(report)));
+    }
+}
@@ -0,0 +1,72 @@
+package ru.practicum.shareit.item;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Сравнивает вставку вещей с пакетами JDBC (hibernate.jdbc.batch_size из настроек) и без них.
+ * Проверяется число подготовленных запросов, время печатается в лог. Объём задаётся свойством
+ * shareit.bench.rows (по умолчанию 5 000 вещей), например:
+ * mvn test -Dtest=ItemInsertBatchingTest -Dshareit.bench.rows=200000
+ */
+@Slf4j
+@DirtiesContext
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+        "spring.jpa.properties.hibernate.order_inserts=true",
+        "spring.jpa.properties.hibernate.generate_statistics=true"})
+class ItemInsertBatchingTest {
+    private static final int ROWS = Integer.getInteger("shareit.bench.rows", 5_000);
+
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void batchedInsertsNeedFarFewerStatements() {
+        User owner = new User(null, "owner", "owner@mail.ru");
+        entityManager.persist(owner);
+        entityManager.flush();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        long single = insert(owner, 1, statistics, "без пакетов");
+        long batched = insert(owner, 50, statistics, "пакетами по 50");
+
+        assertThat(batched).isLessThan(single / 10);
+    }
+
+    /* Вставляет ROWS вещей с заданным размером пакета и возвращает число подготовленных запросов */
+    private long insert(User owner, int batchSize, Statistics statistics, String mode) {
+        entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+        statistics.clear();
+        long started = System.nanoTime();
+        for (int i = 0; i < ROWS; i++) {
+            entityManager.persist(new Item(null, "item" + i, "description" + i, true, owner, null));
+            if ((i + 1) % 1000 == 0) {
+                entityManager.flush();
+                entityManager.clear();
+                owner = entityManager.getReference(User.class, owner.getId());
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        long millis = Math.max((System.nanoTime() - started) / 1_000_000, 1);
+        long statements = statistics.getPrepareStatementCount();
+        log.info("Вставка {} вещей {}: {} мс, {} строк/с, подготовлено запросов {}",
+                ROWS, mode, millis, ROWS * 1000L / millis, statements);
+        return statements;
+    }
+}
@@ -4,12 +4,17 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
 import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.enums.Statuses;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -22,6 +27,8 @@ class ItemRepositoryTest {
     private ItemRepository itemRepository;
     @Autowired
     private UserRepository userRepository;
+    @Autowired
+    private BookingRepository bookingRepository;
 
     private final User user = new User(null, "ru/practicum/shareit/user", "user@mail.ru");
     private final Item item = new Item(null, "item", "cool", true, user, null);
@@ -34,11 +41,34 @@ class ItemRepositoryTest {
 
     @Test
     @DirtiesContext
-    void findItemsTest() {
-        List<Item> items = itemRepository.findItems("i");
+    void findAvailableIdsContainingTest() {
+        Item discount = itemRepository.save(new Item(null, "Sale", "50% OFF", true, user, null));
+        Item plain = itemRepository.save(new Item(null, "Sale", "500 OFF", true, user, null));
+        itemRepository.save(new Item(null, "Sale", "50% off", false, user, null));
+
+        assertThat(itemRepository.findAvailableIdsContaining("50!%", 0L, Limit.of(10)),
+                equalTo(List.of(discount.getId())));
+        assertThat(itemRepository.findAvailableIdsContaining("sale", 0L, Limit.of(10)),
+                equalTo(List.of(discount.getId(), plain.getId())));
+        assertThat(itemRepository.findAvailableIdsContaining("sale", discount.getId(), Limit.of(1)),
+                equalTo(List.of(plain.getId())));
+    }
+
+    @Test
+    @DirtiesContext
+    void findAvailableAmongTest() {
+        Item busyItem = itemRepository.save(new Item(null, "item busy", "cool", true, user, null));
+        Item waitingItem = itemRepository.save(new Item(null, "item waiting", "cool", true, user, null));
+        Item hiddenItem = itemRepository.save(new Item(null, "item hidden", "cool", false, user, null));
+        LocalDateTime start = LocalDateTime.of(2030, 1, 4, 0, 0);
+        bookingRepository.save(new Booking(null, start.minusDays(1), start.plusDays(1), busyItem, user,
+                Statuses.APPROVED));
+        bookingRepository.save(new Booking(null, start, start.plusDays(1), waitingItem, user, Statuses.WAITING));
+        bookingRepository.save(new Booking(null, start.minusDays(2), start, item, user, Statuses.APPROVED));
+
+        List<Item> available = itemRepository.findAvailableAmong(List.of(waitingItem.getId(), hiddenItem.getId(),
+                busyItem.getId(), item.getId()), start, start.plusDays(2));
 
-        assertThat(items.get(0).getId(), equalTo(1L));
-        assertThat(items.get(0).getName(), equalTo(item.getName()));
-        assertThat(items.size(), equalTo(1));
+        assertThat(available.stream().map(Item::getId).toList(), equalTo(List.of(item.getId(), waitingItem.getId())));
     }
-}
\ No newline at end of file
+}
@@ -4,19 +4,35 @@ import jakarta.persistence.EntityManager;
 import jakarta.persistence.TypedQuery;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.enums.Statuses;
 import ru.practicum.shareit.exception.DuplicatedDataException;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.item.comment.Comment;
+import ru.practicum.shareit.item.comment.dto.CommentDtoOut;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemDtoOut;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.item.service.ItemService;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
 import ru.practicum.shareit.user.service.UserService;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
 
 import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 
@@ -24,13 +40,16 @@ import static org.hamcrest.Matchers.equalTo;
 @Transactional
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 @SpringBootTest(
-        properties = "spring.datasource.username=shareit",
+        properties = {"spring.datasource.username=shareit",
+                "spring.jpa.properties.hibernate.generate_statistics=true"},
         webEnvironment = SpringBootTest.WebEnvironment.NONE)
 class ItemServiceIntegrationTest {
 
     private final EntityManager em;
     private final ItemService itemService;
     private final UserService userService;
+    private final ItemRepository itemRepository;
+    private final UserRepository userRepository;
 
     @Test
     void saveNewItem() throws DuplicatedDataException, NotFoundException {
@@ -47,4 +66,98 @@ class ItemServiceIntegrationTest {
         assertThat(item.getName(), equalTo(itemDto.getName()));
         assertThat(item.getDescription(), equalTo(itemDto.getDescription()));
     }
-}
\ No newline at end of file
+
+    /* Индекс поиска меняется после фиксации, поэтому тест идёт без общей транзакции и сам удаляет свои данные */
+    @Test
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    void searchSeesCreatedAndUpdatedItems() throws DuplicatedDataException, NotFoundException, ValidationException {
+        UserDto user = userService.create(new UserDto(null, "Owner", "search-owner@mail.ru"));
+        List<Long> itemIds = new ArrayList<>();
+        try {
+            ItemDtoOut drill = itemService.create(user.getId(), new ItemDto("Перфоратор", "Перфоратор сетевой", true, null));
+            itemIds.add(drill.getId());
+            itemIds.add(itemService.create(user.getId(),
+                    new ItemDto("Шуруповёрт", "Шуруповёрт сетевой", true, null)).getId());
+
+            assertThat(itemService.searchItemByText("перфоратор", 0, 10).size(), equalTo(1));
+
+            itemService.update(drill.getId(), new ItemDto(null, null, false, null), user.getId());
+
+            assertThat(itemService.searchItemByText("перфоратор", 0, 10).size(), equalTo(0));
+            assertThat(itemService.searchItemByText("сетевой", 0, 10).size(), equalTo(1));
+        } finally {
+            itemRepository.deleteAllById(itemIds);
+            userRepository.deleteById(user.getId());
+        }
+    }
+
+    @Test
+    void ownerItemsCostConstantNumberOfQueries() throws DuplicatedDataException, NotFoundException {
+        UserDto owner = userService.create(new UserDto(null, "Owner", "owner@mail.ru"));
+        UserDto booker = userService.create(new UserDto(null, "Booker", "booker@mail.ru"));
+        addItemWithHistory(owner.getId(), booker.getId());
+
+        long fewItems = countStatements(owner.getId());
+        for (int i = 0; i < 5; i++) {
+            addItemWithHistory(owner.getId(), booker.getId());
+        }
+        long manyItems = countStatements(owner.getId());
+
+        assertThat(manyItems, equalTo(fewItems));
+        List<ItemDtoOut> items = List.copyOf(itemService.getItemByUser(owner.getId()));
+        assertThat(items.size(), equalTo(6));
+        for (ItemDtoOut item : items) {
+            assertThat(item.getLastBooking(), notNullValue());
+            assertThat(item.getNextBooking(), notNullValue());
+            assertThat(item.getComments().size(), equalTo(1));
+        }
+    }
+
+    @Test
+    void itemDetailsCostOneQuery() throws DuplicatedDataException, NotFoundException {
+        UserDto owner = userService.create(new UserDto(null, "Owner", "owner@mail.ru"));
+        UserDto booker = userService.create(new UserDto(null, "Booker", "booker@mail.ru"));
+        Long itemId = addItemWithHistory(owner.getId(), booker.getId());
+        em.persist(new Comment(null, "second comment", em.find(Item.class, itemId), em.find(User.class, booker.getId()),
+                LocalDateTime.now().plusSeconds(1)));
+        em.flush();
+        em.clear();
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        ItemDtoOut item = itemService.getItemById(itemId, owner.getId());
+
+        assertThat(statistics.getPrepareStatementCount(), equalTo(1L));
+        assertThat(item.getOwner().getId(), equalTo(owner.getId()));
+        assertThat(item.getLastBooking().getBooker().getName(), equalTo("Booker"));
+        assertThat(item.getLastBooking().getEnd().isBefore(LocalDateTime.now()), equalTo(true));
+        assertThat(item.getNextBooking().getStart().isAfter(LocalDateTime.now()), equalTo(true));
+        assertThat(item.getComments().stream().map(CommentDtoOut::getText).toList(),
+                equalTo(List.of("comment", "second comment")));
+
+        ItemDtoOut itemForBooker = itemService.getItemById(itemId, booker.getId());
+
+        assertThat(itemForBooker.getLastBooking(), nullValue());
+        assertThat(itemForBooker.getComments().size(), equalTo(2));
+    }
+
+    private Long addItemWithHistory(Long ownerId, Long bookerId) throws NotFoundException {
+        ItemDtoOut itemDto = itemService.create(ownerId, new ItemDto("item", "description", true, null));
+        Item item = em.find(Item.class, itemDto.getId());
+        User booker = em.find(User.class, bookerId);
+        LocalDateTime now = LocalDateTime.now();
+        em.persist(new Booking(null, now.minusDays(3), now.minusDays(2), item, booker, Statuses.APPROVED));
+        em.persist(new Booking(null, now.plusDays(2), now.plusDays(3), item, booker, Statuses.APPROVED));
+        em.persist(new Comment(null, "comment", item, booker, now));
+        return item.getId();
+    }
+
+    private long countStatements(Long ownerId) throws NotFoundException {
+        em.flush();
+        em.clear();
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        itemService.getItemByUser(ownerId);
+        return statistics.getPrepareStatementCount();
+    }
+}
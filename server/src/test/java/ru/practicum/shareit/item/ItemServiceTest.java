@@ -7,6 +7,9 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import ru.practicum.shareit.booking.index.ItemOccupancyIndex;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.repository.BookingRepository;
@@ -18,12 +21,18 @@ import ru.practicum.shareit.item.comment.CommentMapper;
 import ru.practicum.shareit.item.comment.CommentRepository;
 import ru.practicum.shareit.item.comment.dto.CommentDto;
 import ru.practicum.shareit.item.comment.dto.CommentDtoOut;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
+import ru.practicum.shareit.item.dto.ItemDetailsView;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoOut;
+import ru.practicum.shareit.item.dto.ItemDtoPage;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
 import ru.practicum.shareit.item.service.ItemServiceImpl;
+import ru.practicum.shareit.page.CursorCodec;
+import ru.practicum.shareit.request.matching.ItemRequestMatcher;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
 import ru.practicum.shareit.user.dto.UserDto;
@@ -31,12 +40,18 @@ import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.LongStream;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -52,6 +67,12 @@ class ItemServiceTest {
     private CommentRepository commentRepository;
     @Mock
     private ItemRequestRepository requestRepository;
+    @Mock
+    private ItemOccupancyIndex itemOccupancyIndex;
+    @Mock
+    private ItemSearchEngine itemSearchEngine;
+    @Mock
+    private ItemRequestMatcher itemRequestMatcher;
     @InjectMocks
     private ItemServiceImpl itemService;
 
@@ -69,6 +90,9 @@ class ItemServiceTest {
     private final Comment comment = new Comment(id, "qwerty", item, user,
             LocalDateTime.of(2023, 7, 1, 12, 12, 12));
     private final Booking booking = new Booking(id, null, null, item, user, Statuses.WAITING);
+    private final Booking approvedBooking = new Booking(id, LocalDateTime.of(2023, 7, 1, 12, 12, 12),
+            LocalDateTime.of(2023, 7, 2, 12, 12, 12), item, notOwner, Statuses.APPROVED);
+    private final ProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
     private final ItemRequest itemRequest = new ItemRequest();
 
     @Test
@@ -117,15 +141,11 @@ class ItemServiceTest {
 
     @Test
     void testReturnItem() throws NotFoundException {
-        when(bookingRepository.findFirstByItemIdAndStartLessThanEqualAndStatus(anyLong(), any(), any(), any()))
-                .thenReturn(Optional.of(booking));
-        when(bookingRepository.findFirstByItemIdAndStartAfterAndStatus(anyLong(), any(), any(), any()))
-                .thenReturn(Optional.of(booking));
-        when(commentRepository.findAllByItemId(id)).thenReturn(List.of(comment));
-        when(itemRepository.findById(id)).thenReturn(Optional.of(item));
+        when(itemRepository.findItemDetails(eq(id), any()))
+                .thenReturn(List.of(detailsRow(approvedBooking, approvedBooking, comment)));
         final ItemDtoOut itemDto = ItemMapper.toItemDto(item);
-        itemDto.setLastBooking(BookingMapper.toBookingDtoOut(booking));
-        itemDto.setNextBooking(BookingMapper.toBookingDtoOut(booking));
+        itemDto.setLastBooking(BookingMapper.toBookingDtoOut(approvedBooking));
+        itemDto.setNextBooking(BookingMapper.toBookingDtoOut(approvedBooking));
         itemDto.setComments(List.of(CommentMapper.toCommentDtoOut(comment)));
 
         ItemDtoOut actualItemDto = itemService.getItemById(id, id);
@@ -135,30 +155,60 @@ class ItemServiceTest {
 
     @Test
     void testItemDoesNotExist() {
-        when((itemRepository).findById(2L)).thenReturn(Optional.empty());
+        when(itemRepository.findItemDetails(eq(2L), any())).thenReturn(Collections.emptyList());
 
         Assertions.assertThrows(NotFoundException.class, () -> itemService.getItemById(2L, id));
     }
 
     @Test
-    void testSearchItems() {
-        when(itemRepository.findItems(any())).thenReturn(List.of(item));
+    void testSearchItems() throws ValidationException {
+        when(itemSearchEngine.search("qwerty", 0, 10)).thenReturn(List.of(id));
+        when(itemRepository.findAllById(List.of(id))).thenReturn(List.of(item));
 
-        Collection<ItemDtoOut> targetItems = itemService.searchItemByText("qwerty");
+        Collection<ItemDtoOut> targetItems = itemService.searchItemByText("qwerty", 0, 10);
 
         Assertions.assertNotNull(targetItems);
         Assertions.assertEquals(1, targetItems.size());
-        verify(itemRepository, times(1))
-                .findItems(any());
+        verify(itemSearchEngine, times(1))
+                .search(any(), anyInt(), anyInt());
     }
 
     @Test
-    void testSearchTextIsBlank() {
-        Collection<ItemDtoOut> targetItems = itemService.searchItemByText("");
+    void testSearchTextIsBlank() throws ValidationException {
+        Collection<ItemDtoOut> targetItems = itemService.searchItemByText("", 0, 10);
 
         Assertions.assertTrue(targetItems.isEmpty());
         Assertions.assertEquals(0, targetItems.size());
-        verify(itemRepository, never()).findItems(any());
+        verify(itemSearchEngine, never()).search(any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void testSearchKeepsRankOrder() throws ValidationException {
+        Item secondItem = new Item(2L, "item2", "description", true, user, null);
+        when(itemSearchEngine.search("item", 0, 10)).thenReturn(List.of(2L, id));
+        when(itemRepository.findAllById(List.of(2L, id))).thenReturn(List.of(item, secondItem));
+
+        Collection<ItemDtoOut> targetItems = itemService.searchItemByText("item", 0, 10);
+
+        Assertions.assertEquals(List.of(2L, id), targetItems.stream().map(ItemDtoOut::getId).toList());
+    }
+
+    @Test
+    void testSearchWithWrongPage() {
+        Assertions.assertThrows(ValidationException.class, () -> itemService.searchItemByText("item", -1, 10));
+        Assertions.assertThrows(ValidationException.class, () -> itemService.searchItemByText("item", 0, 0));
+    }
+
+    @Test
+    void testCreateAndUpdateAreIndexed() throws ValidationException, NotFoundException {
+        when(userRepository.findById(id)).thenReturn(Optional.of(user));
+        when(itemRepository.save(any())).thenReturn(item);
+        when(itemRepository.findById(id)).thenReturn(Optional.of(item));
+
+        itemService.create(id, itemDto);
+        itemService.update(id, itemDto, id);
+
+        verify(itemSearchEngine, times(2)).index(item);
     }
 
     @Test
@@ -207,7 +257,7 @@ class ItemServiceTest {
 
     @Test
     void testGettingNonexistentItem() {
-        when(itemRepository.findById(id)).thenReturn(Optional.empty());
+        when(itemRepository.findItemDetails(eq(id), any())).thenReturn(Collections.emptyList());
 
         Assertions.assertThrows(NotFoundException.class, () -> itemService.getItemById(id, id));
     }
@@ -223,10 +273,12 @@ class ItemServiceTest {
     }
 
     @Test
-    void testSearchTextMatchesMultipleItems() {
-        when(itemRepository.findItems(any())).thenReturn(List.of(item, anotherItem));
+    void testSearchTextMatchesMultipleItems() throws ValidationException {
+        Item secondItem = new Item(2L, "item2", "description", true, user, null);
+        when(itemSearchEngine.search("qwerty", 0, 10)).thenReturn(List.of(id, 2L));
+        when(itemRepository.findAllById(List.of(id, 2L))).thenReturn(List.of(item, secondItem));
 
-        Collection<ItemDtoOut> targetItems = itemService.searchItemByText("qwerty");
+        Collection<ItemDtoOut> targetItems = itemService.searchItemByText("qwerty", 0, 10);
 
         Assertions.assertEquals(2, targetItems.size());
     }
@@ -266,7 +318,8 @@ class ItemServiceTest {
 
     @Test
     void testUserIsNotOwner() throws NotFoundException {
-        when(itemRepository.findById(id)).thenReturn(Optional.of(item));
+        when(itemRepository.findItemDetails(eq(id), any()))
+                .thenReturn(List.of(detailsRow(approvedBooking, approvedBooking, null)));
 
         ItemDtoOut actualItemDto = itemService.getItemById(id, notOwnerId);
         ItemDtoOut expectedItemDto = ItemMapper.toItemDto(item);
@@ -277,8 +330,7 @@ class ItemServiceTest {
 
     @Test
     void testItemWithNoComments() throws NotFoundException {
-        when(itemRepository.findById(id)).thenReturn(Optional.of(item));
-        when(commentRepository.findAllByItemId(id)).thenReturn(Collections.emptyList());
+        when(itemRepository.findItemDetails(eq(id), any())).thenReturn(List.of(detailsRow(null, null, null)));
 
         ItemDtoOut actualItemDto = itemService.getItemById(id, notOwnerId);
 
@@ -318,10 +370,12 @@ class ItemServiceTest {
     }
 
     @Test
-    void testSearchTextMatchesMultipleItemsWithDifferentCases() {
-        when(itemRepository.findItems(any())).thenReturn(List.of(item, anotherItem));
+    void testSearchTextMatchesMultipleItemsWithDifferentCases() throws ValidationException {
+        Item secondItem = new Item(2L, "item2", "description", true, user, null);
+        when(itemSearchEngine.search("ITEM", 0, 10)).thenReturn(List.of(id, 2L));
+        when(itemRepository.findAllById(List.of(id, 2L))).thenReturn(List.of(item, secondItem));
 
-        Collection<ItemDtoOut> targetItems = itemService.searchItemByText("ITEM");
+        Collection<ItemDtoOut> targetItems = itemService.searchItemByText("ITEM", 0, 10);
 
         Assertions.assertEquals(2, targetItems.size());
     }
@@ -360,12 +414,8 @@ class ItemServiceTest {
 
     @Test
     void testItemIsAvailable() throws NotFoundException {
-        when(itemRepository.findById(id)).thenReturn(Optional.of(item));
-        when(bookingRepository.findFirstByItemIdAndStartLessThanEqualAndStatus(anyLong(), any(), any(), any()))
-                .thenReturn(Optional.of(booking));
-        when(bookingRepository.findFirstByItemIdAndStartAfterAndStatus(anyLong(), any(), any(), any()))
-                .thenReturn(Optional.of(booking));
-        when(commentRepository.findAllByItemId(id)).thenReturn(List.of(comment));
+        when(itemRepository.findItemDetails(eq(id), any()))
+                .thenReturn(List.of(detailsRow(approvedBooking, approvedBooking, comment)));
 
         ItemDtoOut actualItemDto = itemService.getItemById(id, id);
 
@@ -374,14 +424,9 @@ class ItemServiceTest {
 
     @Test
     void testItemIsNotAvailable() throws NotFoundException {
-        when(itemRepository.findById(id)).thenReturn(Optional.of(item));
-        when(bookingRepository.findFirstByItemIdAndStartLessThanEqualAndStatus(anyLong(), any(), any(), any()))
-                .thenReturn(Optional.of(booking));
-        when(bookingRepository.findFirstByItemIdAndStartAfterAndStatus(anyLong(), any(), any(), any()))
-                .thenReturn(Optional.of(booking));
-        when(commentRepository.findAllByItemId(id)).thenReturn(List.of(comment));
-
         item.setAvailable(false);
+        when(itemRepository.findItemDetails(eq(id), any()))
+                .thenReturn(List.of(detailsRow(approvedBooking, approvedBooking, comment)));
 
         ItemDtoOut actualItemDto = itemService.getItemById(id, id);
 
@@ -396,10 +441,12 @@ class ItemServiceTest {
     }
 
     @Test
-    void testSearchTextMatchesMultipleItemsWithDifferentCasesInsensitive() {
-        when(itemRepository.findItems(any())).thenReturn(List.of(item, anotherItem));
+    void testSearchTextMatchesMultipleItemsWithDifferentCasesInsensitive() throws ValidationException {
+        Item secondItem = new Item(2L, "item2", "description", true, user, null);
+        when(itemSearchEngine.search("It", 0, 10)).thenReturn(List.of(id, 2L));
+        when(itemRepository.findAllById(List.of(id, 2L))).thenReturn(List.of(item, secondItem));
 
-        Collection<ItemDtoOut> targetItems = itemService.searchItemByText("It");
+        Collection<ItemDtoOut> targetItems = itemService.searchItemByText("It", 0, 10);
 
         Assertions.assertEquals(2, targetItems.size());
     }
@@ -420,4 +467,158 @@ class ItemServiceTest {
 
         Assertions.assertThrows(NotFoundException.class, () -> itemService.addComment(id, new CommentDto("qwerty"), id));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testGetAvailability() throws ValidationException, NotFoundException {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        List<ItemAvailabilityDto> free = List.of(new ItemAvailabilityDto(from, from.plusDays(1)));
+        when(itemRepository.existsById(id)).thenReturn(true);
+        when(itemOccupancyIndex.getFreeSlots(id, from, from.plusDays(1), ChronoUnit.DAYS)).thenReturn(free);
+
+        Assertions.assertEquals(free, itemService.getAvailability(id, from, from.plusDays(1), "DAYS"));
+    }
+
+    @Test
+    void testGetAvailabilityWithWrongUnit() {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+        Assertions.assertThrows(ValidationException.class, () ->
+                itemService.getAvailability(id, from, from.plusDays(1), "MINUTES"));
+    }
+
+    @Test
+    void testGetAvailabilityWithWrongPeriod() {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+        Assertions.assertThrows(ValidationException.class, () ->
+                itemService.getAvailability(id, from, from, "HOURS"));
+        Assertions.assertThrows(ValidationException.class, () ->
+                itemService.getAvailability(id, from, from.plusYears(2), "HOURS"));
+    }
+
+    @Test
+    void testGetAvailabilityForUnknownItem() {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        when(itemRepository.existsById(id)).thenReturn(false);
+
+        Assertions.assertThrows(NotFoundException.class, () ->
+                itemService.getAvailability(id, from, from.plusDays(1), "HOURS"));
+    }
+
+    @Test
+    void testSearchAvailableItemsReturnsNextCursor() throws ValidationException {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 0, 0);
+        Item secondItem = new Item(2L, "item2", "description", true, user, null);
+        when(itemSearchEngine.searchAfter("item", 0L, 100)).thenReturn(List.of(1L, 2L));
+        when(itemRepository.findAvailableAmong(List.of(1L, 2L), start, start.plusDays(1)))
+                .thenReturn(List.of(item, secondItem));
+
+        ItemDtoPage page = itemService.searchAvailableItems("item", start, start.plusDays(1), 1, null);
+
+        Assertions.assertEquals(List.of(ItemMapper.toItemDto(item)), page.getItems());
+        Assertions.assertEquals(CursorCodec.encode(1L), page.getNext());
+    }
+
+    @Test
+    void testSearchAvailableItemsWithCursor() throws ValidationException {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 0, 0);
+        when(itemSearchEngine.searchAfter("item", 5L, 100)).thenReturn(List.of(7L));
+        when(itemRepository.findAvailableAmong(List.of(7L), start, start.plusDays(1))).thenReturn(List.of(item));
+
+        ItemDtoPage page = itemService.searchAvailableItems("item", start, start.plusDays(1), 10,
+                CursorCodec.encode(5L));
+
+        Assertions.assertEquals(1, page.getItems().size());
+        Assertions.assertNull(page.getNext());
+    }
+
+    @Test
+    void testSearchAvailableItemsSkipsBusyCandidates() throws ValidationException {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 0, 0);
+        List<Long> busy = LongStream.rangeClosed(1, 100).boxed().toList();
+        when(itemSearchEngine.searchAfter("item", 0L, 100)).thenReturn(busy);
+        when(itemRepository.findAvailableAmong(busy, start, start.plusDays(1))).thenReturn(List.of());
+        when(itemSearchEngine.searchAfter("item", 100L, 100)).thenReturn(List.of(150L));
+        when(itemRepository.findAvailableAmong(List.of(150L), start, start.plusDays(1))).thenReturn(List.of(item));
+
+        ItemDtoPage page = itemService.searchAvailableItems("item", start, start.plusDays(1), 10, null);
+
+        Assertions.assertEquals(List.of(ItemMapper.toItemDto(item)), page.getItems());
+        Assertions.assertNull(page.getNext());
+    }
+
+    @Test
+    void testSearchAvailableItemsWithWrongParameters() {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+        Assertions.assertThrows(ValidationException.class, () ->
+                itemService.searchAvailableItems("item", start, start, 10, null));
+        Assertions.assertThrows(ValidationException.class, () ->
+                itemService.searchAvailableItems("item", start, start.plusDays(1), 0, null));
+        Assertions.assertThrows(ValidationException.class, () ->
+                itemService.searchAvailableItems("item", start, start.plusDays(1), 10, "abc"));
+        Assertions.assertThrows(ValidationException.class, () ->
+                itemService.searchAvailableItems("item", start, start.plusDays(1), 10, "5"));
+    }
+
+    @Test
+    void testOwnerItemsHaveBookingsAndComments() throws NotFoundException {
+        Item secondItem = new Item(2L, "item2", "description", true, user, null);
+        Booking lastBooking = new Booking(3L, LocalDateTime.now().minusDays(2), LocalDateTime.now().minusDays(1),
+                item, notOwner, Statuses.APPROVED);
+        Booking nextBooking = new Booking(4L, LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2),
+                secondItem, notOwner, Statuses.APPROVED);
+        when(userRepository.findById(id)).thenReturn(Optional.of(user));
+        when(itemRepository.findAllByOwnerId(id)).thenReturn(List.of(item, secondItem));
+        when(bookingRepository.findLastByItemIdIn(eq(List.of(id, 2L)), any(), eq(Statuses.APPROVED)))
+                .thenReturn(List.of(lastBooking));
+        when(bookingRepository.findNextByItemIdIn(eq(List.of(id, 2L)), any(), eq(Statuses.APPROVED)))
+                .thenReturn(List.of(nextBooking));
+        when(commentRepository.findAllByItemIdIn(List.of(id, 2L))).thenReturn(List.of(comment));
+
+        List<ItemDtoOut> targetItems = List.copyOf(itemService.getItemByUser(id));
+
+        Assertions.assertEquals(3L, targetItems.get(0).getLastBooking().getId());
+        Assertions.assertNull(targetItems.get(0).getNextBooking());
+        Assertions.assertEquals(List.of(CommentMapper.toCommentDtoOut(comment)), targetItems.get(0).getComments());
+        Assertions.assertNull(targetItems.get(1).getLastBooking());
+        Assertions.assertEquals(4L, targetItems.get(1).getNextBooking().getId());
+        Assertions.assertTrue(targetItems.get(1).getComments().isEmpty());
+        verify(commentRepository, never()).findAllByItemId(anyLong());
+    }
+
+    /* Строка выборки findItemDetails для вещи item */
+    private ItemDetailsView detailsRow(Booking last, Booking next, Comment comment) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("itemId", item.getId());
+        row.put("itemName", item.getName());
+        row.put("itemDescription", item.getDescription());
+        row.put("itemAvailable", item.getAvailable());
+        row.put("ownerId", item.getOwner().getId());
+        row.put("ownerName", item.getOwner().getName());
+        row.put("ownerEmail", item.getOwner().getEmail());
+        if (last != null) {
+            row.put("lastId", last.getId());
+            row.put("lastStart", last.getStart());
+            row.put("lastEnd", last.getEnd());
+            row.put("lastBookerId", last.getBooker().getId());
+            row.put("lastBookerName", last.getBooker().getName());
+            row.put("lastBookerEmail", last.getBooker().getEmail());
+        }
+        if (next != null) {
+            row.put("nextId", next.getId());
+            row.put("nextStart", next.getStart());
+            row.put("nextEnd", next.getEnd());
+            row.put("nextBookerId", next.getBooker().getId());
+            row.put("nextBookerName", next.getBooker().getName());
+            row.put("nextBookerEmail", next.getBooker().getEmail());
+        }
+        if (comment != null) {
+            row.put("commentId", comment.getId());
+            row.put("commentText", comment.getText());
+            row.put("commentAuthorName", comment.getAuthor().getName());
+            row.put("commentCreated", comment.getCreated());
+        }
+        return projectionFactory.createProjection(ItemDetailsView.class, row);
+    }
+}
@@ -0,0 +1,72 @@
+package ru.practicum.shareit.item.search;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryItemSearchEngineTest {
+    private final InMemoryItemSearchEngine engine = new InMemoryItemSearchEngine(null, null);
+
+    @Test
+    void testAllWordsMustMatch() {
+        engine.index(item(1L, "Дрель", "Дрель аккумуляторная", true));
+        engine.index(item(2L, "Отвёртка", "Отвёртка аккумуляторная", true));
+
+        assertEquals(List.of(1L), engine.search("аккумуляторная ДРЕЛЬ", 0, 10));
+        assertEquals(List.of(), engine.search("дрель молоток", 0, 10));
+    }
+
+    @Test
+    void testRankingAndPaging() {
+        engine.index(item(1L, "Пила", "Пила ручная", true));
+        engine.index(item(2L, "Пила", "Пила цепная, пила для дров", true));
+        engine.index(item(3L, "Пила", "Ручная пила", true));
+
+        assertEquals(List.of(2L, 1L, 3L), engine.search("пила", 0, 10));
+        assertEquals(List.of(1L), engine.search("пила", 1, 1));
+    }
+
+    @Test
+    void testSearchAfterGoesByIdFromCursor() {
+        for (long id = 10; id >= 1; id--) {
+            engine.index(item(id, "Пила " + id, id % 3 == 0 ? "Ручная" : "Цепная", id != 8));
+        }
+
+        assertEquals(List.of(1L, 2L, 4L), engine.searchAfter("цепная пила", 0L, 3));
+        assertEquals(List.of(5L, 7L, 10L), engine.searchAfter("цепная пила", 4L, 10));
+        assertEquals(List.of(), engine.searchAfter("цепная пила", 10L, 10));
+    }
+
+    @Test
+    void testUpdateReplacesDocument() {
+        engine.index(item(1L, "Дрель", "Ударная", true));
+        engine.index(item(1L, "Перфоратор", "Ударный", true));
+        engine.index(item(2L, "Дрель", "Обычная", false));
+
+        assertEquals(List.of(), engine.search("дрель", 0, 10));
+        assertEquals(List.of(1L), engine.search("перфоратор", 0, 10));
+    }
+
+    @Test
+    void testChangesAreAppliedAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            engine.index(item(1L, "Дрель", "Ударная", true));
+            assertEquals(List.of(), engine.search("дрель", 0, 10));
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertEquals(List.of(1L), engine.search("дрель", 0, 10));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static Item item(Long id, String name, String description, boolean available) {
+        return new Item(id, name, description, available, null, null);
+    }
+}
@@ -0,0 +1,118 @@
+package ru.practicum.shareit.item.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TrigramItemSearchEngineTest {
+    private final ItemRepository itemRepository = mock(ItemRepository.class);
+    private final TrigramItemSearchEngine engine =
+            new TrigramItemSearchEngine(itemRepository, mock(PlatformTransactionManager.class));
+
+    @BeforeEach
+    void setUp() {
+        when(itemRepository.streamSearchViews()).thenReturn(Stream.empty());
+    }
+
+    @Test
+    void testDatabaseIsSearchedUntilIndexIsBuilt() {
+        when(itemRepository.findAvailableIdsContaining("50!%", Long.MIN_VALUE, Limit.of(3)))
+                .thenReturn(List.of(1L, 4L, 9L));
+        when(itemRepository.findAvailableIdsContaining("дре", 4L, Limit.of(2))).thenReturn(List.of(9L));
+
+        assertEquals(List.of(4L, 9L), engine.search("50%", 1, 2));
+        assertEquals(List.of(9L), engine.searchAfter("ДРЕ", 4L, 2));
+
+        engine.rebuild();
+        assertEquals(List.of(), engine.search("50%", 0, 10));
+    }
+
+    @Test
+    void testSubstringMatch() {
+        engine.rebuild();
+        engine.index(item(1L, "Дрель", "Аккумуляторная дрель", true));
+        engine.index(item(2L, "Отвёртка", "Аккумуляторная отвёртка", true));
+
+        assertEquals(List.of(1L), engine.search("рель", 0, 10));
+        assertEquals(List.of(1L, 2L), engine.search("УМУЛЯТОР", 0, 10));
+        assertEquals(List.of(1L), engine.search("ная дре", 0, 10));
+        assertEquals(List.of(), engine.search("дрель отвёртка", 0, 10));
+    }
+
+    @Test
+    void testTrigramsMustBeAdjacent() {
+        engine.rebuild();
+        engine.index(item(1L, "абвг", "вгдабв", true));
+
+        assertEquals(List.of(), engine.search("абвгд", 0, 10));
+        assertEquals(List.of(1L), engine.search("вгдаб", 0, 10));
+    }
+
+    @Test
+    void testShortQueryAndPaging() {
+        engine.rebuild();
+        for (long id = 1; id <= 5; id++) {
+            engine.index(item(id, "Пила " + id, "Пила", true));
+        }
+
+        assertEquals(List.of(2L, 3L), engine.search("пи", 1, 2));
+        assertEquals(List.of(4L, 5L), engine.search("пила", 3, 10));
+    }
+
+    @Test
+    void testSearchAfterGoesByIdFromCursor() {
+        engine.rebuild();
+        for (long id = 1; id <= 6; id++) {
+            engine.index(item(id, id % 2 == 0 ? "Пила " + id : "Дрель " + id, "Инструмент", true));
+        }
+        engine.index(item(7L, "Пила", "Сломана", false));
+
+        assertEquals(List.of(2L, 4L), engine.search("пила", 0, 2));
+        assertEquals(List.of(4L, 6L), engine.searchAfter("пила", 2L, 10));
+        assertEquals(List.of(4L), engine.searchAfter("пила", 3L, 1));
+        assertEquals(List.of(5L, 6L), engine.searchAfter("ин", 4L, 10));
+        assertEquals(List.of(), engine.searchAfter("пила", 6L, 10));
+    }
+
+    @Test
+    void testUpdateAndUnavailableItems() {
+        engine.rebuild();
+        engine.index(item(1L, "Дрель", "Ударная", true));
+        engine.index(item(1L, "Перфоратор", "Ударный", true));
+        engine.index(item(2L, "Дрель", "Обычная", false));
+
+        assertEquals(List.of(), engine.search("дрель", 0, 10));
+        assertEquals(List.of(1L), engine.search("перфо", 0, 10));
+    }
+
+    @Test
+    void testChangesAreAppliedAfterCommit() {
+        engine.rebuild();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            engine.index(item(1L, "Дрель", "Ударная", true));
+            assertEquals(List.of(), engine.search("дрель", 0, 10));
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertEquals(List.of(1L), engine.search("дрель", 0, 10));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static Item item(Long id, String name, String description, boolean available) {
+        return new Item(id, name, description, available, null, null);
+    }
+}
@@ -0,0 +1,42 @@
+package ru.practicum.shareit.page;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.exception.ValidationException;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class KeysetCursorTest {
+
+    @Test
+    void testEncodeDecodeRoundTrip() throws ValidationException {
+        KeysetCursor cursor = new KeysetCursor(LocalDateTime.of(2024, 5, 1, 10, 30), 42L);
+
+        assertEquals(cursor, KeysetCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void testBlankTokenIsFirstPage() throws ValidationException {
+        assertEquals(KeysetCursor.FIRST, KeysetCursor.decode(null));
+        assertEquals(KeysetCursor.FIRST, KeysetCursor.decode(" "));
+        assertNull(CursorCodec.decode("", 1));
+    }
+
+    @Test
+    void testMalformedTokenIsRejected() {
+        assertThrows(ValidationException.class, () -> KeysetCursor.decode("not base64!"));
+        assertThrows(ValidationException.class, () -> KeysetCursor.decode(CursorCodec.encode("2024-05-01T10:30")));
+        assertThrows(ValidationException.class, () -> KeysetCursor.decode(CursorCodec.encode("yesterday", 1)));
+        assertThrows(ValidationException.class, () -> KeysetCursor.decode(CursorCodec.encode("2024-05-01T10:30", "x")));
+    }
+
+    @Test
+    void testCodecKeepsPartsInOrder() throws ValidationException {
+        assertArrayEquals(new String[]{"17"}, CursorCodec.decode(CursorCodec.encode(17L), 1));
+        assertArrayEquals(new String[]{"a", "", "b"}, CursorCodec.decode(CursorCodec.encode("a", "", "b"), 3));
+    }
+}
@@ -7,8 +7,11 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.page.CursorCodec;
 import ru.practicum.shareit.request.controller.ItemRequestController;
 import ru.practicum.shareit.request.dto.ItemRequestDtoOut;
+import ru.practicum.shareit.request.dto.ItemRequestDtoPage;
 import ru.practicum.shareit.request.service.ItemRequestServiceImpl;
 
 import java.nio.charset.StandardCharsets;
@@ -70,18 +73,32 @@ class ItemRequestControllerTest {
 
     @Test
     void getAllRequests() throws Exception {
-        when(requestService.getAllRequests(anyInt(), anyInt(), anyLong())).thenReturn(List.of(requestDto));
+        when(requestService.getAllRequests(anyInt(), eq("cursor"), anyLong()))
+                .thenReturn(new ItemRequestDtoPage(List.of(requestDto), "next"));
 
         mvc.perform(get("/requests/all")
+                        .param("cursor", "cursor")
                         .content(mapper.writeValueAsString(requestDto))
                         .characterEncoding(StandardCharsets.UTF_8)
                         .contentType(MediaType.APPLICATION_JSON)
                         .header("X-Sharer-User-Id", 1L)
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
+                .andExpect(header().string(CursorCodec.NEXT_CURSOR_HEADER, "next"))
                 .andExpect(content().json(mapper.writeValueAsString(List.of(requestDto))));
     }
 
+    @Test
+    void getRequestStreamResumesFromLastEventId() throws Exception {
+        when(requestService.subscribe(1L, 5L)).thenReturn(new SseEmitter());
+
+        mvc.perform(get("/requests/stream")
+                        .header("X-Sharer-User-Id", 1L)
+                        .header("Last-Event-ID", 5L)
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted());
+    }
+
     @Test
     void getRequestById() throws Exception {
         when(requestService.getRequestById(anyLong(), anyLong())).thenReturn(requestDto);
@@ -4,6 +4,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Sort;
 import org.springframework.test.annotation.DirtiesContext;
 
@@ -13,7 +14,9 @@ import ru.practicum.shareit.enums.Statuses;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.model.RequestMatch;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.request.repository.RequestMatchRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
@@ -23,6 +26,10 @@ import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
 import static org.springframework.data.domain.Sort.Direction.DESC;
 
 @DataJpaTest
@@ -36,6 +43,8 @@ class ItemRequestRepositoryTest {
     private ItemRepository itemRepository;
     @Autowired
     private BookingRepository bookingRepository;
+    @Autowired
+    private RequestMatchRepository matchRepository;
 
     private final User user = new User(null, "ru/practicum/shareit/user", "user@user.ru");
     private final User requestor = new User(null, "user2", "user2@user.ru");
@@ -63,4 +72,39 @@ class ItemRequestRepositoryTest {
         assertThat(requests.get(0).getId(), equalTo(request.getId()));
         assertThat(requests.size(), equalTo(1));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DirtiesContext
+    void findAllForFeedReplayIncludesLowerIdsInsideWindow() {
+        LocalDateTime now = LocalDateTime.now();
+        ItemRequest old = requestRepository.save(new ItemRequest(0L, "old", requestor, now.minusHours(1)));
+        ItemRequest late = requestRepository.save(new ItemRequest(0L, "late", requestor, now.minusSeconds(1)));
+        ItemRequest last = requestRepository.save(new ItemRequest(0L, "last", requestor, now));
+
+        List<ItemRequest> requests = requestRepository.findAllForFeedReplay(last.getId(), user.getId(),
+                now.minusSeconds(10), Limit.of(10));
+
+        List<Long> ids = requests.stream().map(ItemRequest::getId).toList();
+        assertThat(ids, hasItem(late.getId()));
+        assertThat(ids, not(hasItem(old.getId())));
+        assertThat(ids, not(hasItem(last.getId())));
+        assertThat(requestRepository.countForFeedReplay(last.getId(), user.getId(), now.minusSeconds(10)),
+                equalTo((long) ids.size()));
+    }
+
+    @Test
+    @DirtiesContext
+    void findMatchesSkipsUnavailableItemsAndAnsweredRequests() {
+        LocalDateTime now = LocalDateTime.now();
+        Item hidden = itemRepository.save(new Item(null, "hidden", "description", false, user, null));
+        matchRepository.save(new RequestMatch(null, request.getId(), item.getId(), 0.5, now));
+        matchRepository.save(new RequestMatch(null, request.getId(), hidden.getId(), 1.0, now));
+
+        List<Long> itemIds = matchRepository.findAllByRequestIdOrderByScoreDesc(request.getId()).stream()
+                .map(RequestMatch::getItemId).toList();
+        assertThat(itemIds, contains(item.getId()));
+
+        itemRepository.save(new Item(null, "answer", "description", true, user, request));
+        assertThat(matchRepository.findAllByRequestIdOrderByScoreDesc(request.getId()), empty());
+    }
+}
@@ -0,0 +1,118 @@
+package ru.practicum.shareit.request;
+
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.dto.ItemRequestDtoOut;
+import ru.practicum.shareit.request.dto.ItemRequestDtoPage;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.service.ItemRequestService;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@Transactional
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@SpringBootTest(
+        properties = {"spring.datasource.username=shareit",
+                "spring.jpa.properties.hibernate.generate_statistics=true"},
+        webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class ItemRequestServiceIntegrationTest {
+
+    private final EntityManager em;
+    private final ItemRequestService requestService;
+
+    @Test
+    void requestListCostsConstantNumberOfQueries() throws NotFoundException, ValidationException {
+        User viewer = persistUser("viewer");
+        addRequestWithItems(persistUser("requestor1"), viewer);
+
+        long onePage = countStatements(viewer.getId());
+        for (int i = 2; i <= 6; i++) {
+            addRequestWithItems(persistUser("requestor" + i), viewer);
+        }
+        long sixRequests = countStatements(viewer.getId());
+
+        /* Проверка пользователя по ключу, страница запросов и вещи всех запросов страницы */
+        assertThat(onePage, equalTo(3L));
+        assertThat(sixRequests, equalTo(3L));
+        List<ItemRequestDtoOut> requests = requestService.getAllRequests(10, null, viewer.getId()).getRequests();
+        assertThat(requests.size(), equalTo(6));
+        for (ItemRequestDtoOut request : requests) {
+            assertThat(request.getItems().size(), equalTo(2));
+        }
+    }
+
+    @Test
+    void unknownUserIsNotFoundWhenOthersHaveRequests() {
+        User requestor = persistUser("requestor");
+        persistRequest(requestor, LocalDateTime.now());
+
+        assertThrows(NotFoundException.class, () ->
+                requestService.getAllRequests(10, null, requestor.getId() + 1000));
+    }
+
+    @Test
+    void keysetPagingWalksRequestsNewestFirst() throws NotFoundException, ValidationException {
+        User viewer = persistUser("viewer");
+        User requestor = persistUser("requestor");
+        LocalDateTime created = LocalDateTime.now().withNano(0);
+        ItemRequest older = persistRequest(requestor, created.minusDays(1));
+        ItemRequest first = persistRequest(requestor, created);
+        ItemRequest second = persistRequest(requestor, created);
+        persistRequest(viewer, created.plusDays(1));
+
+        ItemRequestDtoPage firstPage = requestService.getAllRequests(2, null, viewer.getId());
+        /* Новый запрос между страницами не сдвигает следующую страницу */
+        persistRequest(requestor, created.plusDays(2));
+        ItemRequestDtoPage secondPage = requestService.getAllRequests(2, firstPage.getNext(), viewer.getId());
+
+        assertThat(firstPage.getRequests().stream().map(ItemRequestDtoOut::getId).toList(),
+                equalTo(List.of(second.getId(), first.getId())));
+        assertThat(secondPage.getRequests().stream().map(ItemRequestDtoOut::getId).toList(),
+                equalTo(List.of(older.getId())));
+        assertThat(secondPage.getNext(), nullValue());
+    }
+
+    private ItemRequest persistRequest(User requestor, LocalDateTime created) {
+        ItemRequest request = new ItemRequest(0, "description", requestor, created);
+        em.persist(request);
+        return request;
+    }
+
+    private User persistUser(String name) {
+        User user = new User(null, name, name + "@mail.ru");
+        em.persist(user);
+        return user;
+    }
+
+    private void addRequestWithItems(User requestor, User owner) {
+        ItemRequest request = new ItemRequest(0, "description", requestor, LocalDateTime.now());
+        em.persist(request);
+        em.persist(new Item(null, "item", "description", true, owner, request));
+        em.persist(new Item(null, "other item", "description", true, owner, request));
+    }
+
+    private long countStatements(Long userId) throws NotFoundException, ValidationException {
+        em.flush();
+        em.clear();
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        requestService.getAllRequests(10, null, userId);
+        return statistics.getPrepareStatementCount();
+    }
+}
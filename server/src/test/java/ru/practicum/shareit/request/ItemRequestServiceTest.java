@@ -6,14 +6,19 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Limit;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.page.KeysetCursor;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestDtoOut;
+import ru.practicum.shareit.request.dto.ItemRequestDtoPage;
 import ru.practicum.shareit.request.dto.ItemRequestMapper;
+import ru.practicum.shareit.request.feed.ItemRequestFeed;
+import ru.practicum.shareit.request.matching.ItemRequestMatcher;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
 import ru.practicum.shareit.request.service.ItemRequestServiceImpl;
@@ -26,6 +31,8 @@ import java.util.List;
 import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -37,6 +44,10 @@ class ItemRequestServiceTest {
     private UserRepository userRepository;
     @Mock
     private ItemRepository itemRepository;
+    @Mock
+    private ItemRequestFeed requestFeed;
+    @Mock
+    private ItemRequestMatcher requestMatcher;
     @InjectMocks
     private ItemRequestServiceImpl requestService;
 
@@ -56,13 +67,22 @@ class ItemRequestServiceTest {
                 new ItemRequestDto("description"), 2L);
 
         Assertions.assertEquals(ItemRequestMapper.toItemRequestDtoOut(request), actualRequest);
+        verify(requestFeed).publish(actualRequest);
+        verify(requestMatcher).requestCreated(request);
+    }
+
+    @Test
+    void testUserNotFoundOnSubscribe() {
+        when(userRepository.findById(1L)).thenReturn(Optional.empty());
+
+        Assertions.assertThrows(NotFoundException.class, () -> requestService.subscribe(1L, null));
+        verify(requestFeed, never()).subscribe(anyLong(), any());
     }
 
     @Test
     void testRequestsIsFoundByRequestorId() throws NotFoundException {
-        when(userRepository.findById(2L)).thenReturn(Optional.of(requestor));
         when(requestRepository.findAllByRequestorId(anyLong(), any())).thenReturn(List.of(request));
-        when(itemRepository.findAllByRequestId(1L)).thenReturn(List.of(item));
+        when(itemRepository.findAllByRequestIdIn(List.of(1L))).thenReturn(List.of(item));
         final ItemRequestDtoOut requestDtoOut = ItemRequestMapper.toItemRequestDtoOut(request);
         requestDtoOut.setItems(List.of(ItemMapper.toItemDtoName(item)));
 
@@ -73,7 +93,7 @@ class ItemRequestServiceTest {
 
     @Test
     void testRequestorIsNotFound() {
-        when((userRepository).findById(3L)).thenReturn(Optional.empty());
+        when(userRepository.existsById(3L)).thenReturn(false);
 
         Assertions.assertThrows(NotFoundException.class, () ->
                 requestService.getRequestsByRequestor(3L));
@@ -102,7 +122,7 @@ class ItemRequestServiceTest {
 
     @Test
     void testNoRequestsFoundForRequestor() throws NotFoundException {
-        when(userRepository.findById(2L)).thenReturn(Optional.of(requestor));
+        when(userRepository.existsById(2L)).thenReturn(true);
         when(requestRepository.findAllByRequestorId(anyLong(), any())).thenReturn(Collections.emptyList());
 
         List<ItemRequestDtoOut> actualRequests = requestService.getRequestsByRequestor(2L);
@@ -112,10 +132,10 @@ class ItemRequestServiceTest {
 
     @Test
     void testUserNotFoundOnGetAllRequests() {
-        when(userRepository.findById(1L)).thenReturn(Optional.empty());
+        when(userRepository.existsById(1L)).thenReturn(false);
 
         Assertions.assertThrows(NotFoundException.class, () ->
-                requestService.getAllRequests(0, 10, 1L));
+                requestService.getAllRequests(10, null, 1L));
     }
 
     @Test
@@ -128,13 +148,49 @@ class ItemRequestServiceTest {
     }
 
     @Test
-    void testNoRequestsFoundInPagination() throws NotFoundException {
+    void testNoRequestsFoundInPagination() throws NotFoundException, ValidationException {
         long userId = 1L;
-        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
-        when(requestRepository.findAllByRequestorIdIsNot(eq(userId), any(Pageable.class))).thenReturn(Collections.emptyList());
+        when(userRepository.existsById(userId)).thenReturn(true);
+        when(requestRepository.findAllByRequestorIdIsNot(eq(userId), any(), any(), any(Limit.class)))
+                .thenReturn(Collections.emptyList());
+
+        ItemRequestDtoPage page = requestService.getAllRequests(10, null, userId);
+
+        Assertions.assertTrue(page.getRequests().isEmpty(), "Expected an empty list when no requests are found");
+        Assertions.assertNull(page.getNext());
+    }
+
+    @Test
+    void testNextCursorPointsAfterLastRequestOfPage() throws NotFoundException, ValidationException {
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(requestRepository.findAllByRequestorIdIsNot(1L, KeysetCursor.FIRST.getTime(),
+                KeysetCursor.FIRST.getId(), Limit.of(2))).thenReturn(List.of(request, requestSecond));
+
+        ItemRequestDtoPage page = requestService.getAllRequests(1, null, 1L);
+
+        Assertions.assertEquals(1, page.getRequests().size());
+        Assertions.assertEquals(new KeysetCursor(request.getCreated(), request.getId()), KeysetCursor.decode(page.getNext()));
+    }
+
+    @Test
+    void testInvalidCursorIsRejected() {
+        Assertions.assertThrows(ValidationException.class, () ->
+                requestService.getAllRequests(10, "not a cursor", 1L));
+        Assertions.assertThrows(ValidationException.class, () ->
+                requestService.getAllRequests(0, null, 1L));
+    }
+
+    @Test
+    void testItemsAreGroupedByRequest() throws NotFoundException, ValidationException {
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(requestRepository.findAllByRequestorIdIsNot(eq(1L), any(), any(), any(Limit.class)))
+                .thenReturn(List.of(request, requestSecond));
+        when(itemRepository.findAllByRequestIdIn(List.of(1L, 2L))).thenReturn(List.of(itemTwo, item));
 
-        List<ItemRequestDtoOut> actualRequests = requestService.getAllRequests(0, 10, userId);
+        List<ItemRequestDtoOut> actualRequests = requestService.getAllRequests(10, null, 1L).getRequests();
 
-        Assertions.assertTrue(actualRequests.isEmpty(), "Expected an empty list when no requests are found");
+        Assertions.assertEquals(List.of(ItemMapper.toItemDtoName(item)), actualRequests.get(0).getItems());
+        Assertions.assertEquals(List.of(ItemMapper.toItemDtoName(itemTwo)), actualRequests.get(1).getItems());
+        verify(itemRepository, never()).findAllByRequestId(anyLong());
     }
-}
\ No newline at end of file
+}
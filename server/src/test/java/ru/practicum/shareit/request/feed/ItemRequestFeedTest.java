@@ -0,0 +1,268 @@
+package ru.practicum.shareit.request.feed;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.request.dto.ItemRequestDtoOut;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.user.model.User;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ItemRequestFeedTest {
+    private static final LocalDateTime CREATED = LocalDateTime.of(2024, 1, 1, 12, 0);
+    private static final long WINDOW = 10000;
+    private static final LocalDateTime SINCE = CREATED.minusSeconds(10);
+
+    @Mock
+    private ItemRequestRepository requestRepository;
+
+    private final Deque<Runnable> tasks = new ArrayDeque<>();
+    private final User requestor = new User(2L, "requestor", "requestor@mail.ru");
+    private ItemRequestFeed feed;
+
+    @BeforeEach
+    void setUp() {
+        feed = new ItemRequestFeed(requestRepository, tasks::add, 2, 2, 0, WINDOW);
+    }
+
+    @Test
+    void newRequestIsDeliveredToOtherUsersOnly() {
+        RecordingEmitter emitter = new RecordingEmitter();
+        feed.register(1L, null, emitter);
+
+        feed.publish(request(5L, 2L));
+        feed.publish(request(6L, 1L));
+        runTasks();
+
+        assertThat(emitter.events).containsExactly("id:5\nevent:request\ndata:" + request(5L, 2L) + "\n\n");
+    }
+
+    @Test
+    void slowSubscriberLosesOldestRequestsAndGetsLagEvent() {
+        RecordingEmitter emitter = new RecordingEmitter();
+        feed.register(1L, null, emitter);
+        runTasks();
+
+        feed.publish(request(5L, 2L));
+        feed.publish(request(6L, 2L));
+        feed.publish(request(7L, 2L));
+        runTasks();
+
+        assertThat(emitter.events).hasSize(3);
+        assertThat(emitter.events.get(0)).isEqualTo("event:lag\ndata:1\n\n");
+        assertThat(emitter.events.get(1)).startsWith("id:6\n");
+        assertThat(emitter.events.get(2)).startsWith("id:7\n");
+    }
+
+    @Test
+    void reconnectReplaysMissedRequestsOnce() {
+        when(requestRepository.findById(4L)).thenReturn(Optional.of(new ItemRequest(4L, "description", requestor, CREATED)));
+        when(requestRepository.findAllForFeedReplay(4L, 1L, SINCE, Limit.of(3)))
+                .thenReturn(List.of(new ItemRequest(5L, "description", requestor, CREATED),
+                        new ItemRequest(6L, "description", requestor, CREATED)));
+        RecordingEmitter emitter = new RecordingEmitter();
+
+        feed.register(1L, 4L, emitter);
+        feed.publish(request(6L, 2L));
+        feed.publish(request(7L, 2L));
+        runTasks();
+
+        assertThat(emitter.events).hasSize(3);
+        assertThat(emitter.events.get(0)).startsWith("id:5\n");
+        assertThat(emitter.events.get(1)).startsWith("id:6\n");
+        assertThat(emitter.events.get(2)).startsWith("id:7\n");
+    }
+
+    @Test
+    void requestsCommittedOutOfIdOrderAreAllDelivered() {
+        RecordingEmitter emitter = new RecordingEmitter();
+        feed.register(1L, null, emitter);
+        runTasks();
+
+        feed.publish(request(6L, 2L));
+        runTasks();
+        feed.publish(request(5L, 2L));
+        runTasks();
+
+        assertThat(emitter.events).hasSize(2);
+        assertThat(emitter.events.get(0)).startsWith("id:6\n");
+        assertThat(emitter.events.get(1)).startsWith("id:5\n");
+    }
+
+    @Test
+    void reconnectDeliversLateCommitBelowReplayedId() {
+        when(requestRepository.findById(4L)).thenReturn(Optional.of(new ItemRequest(4L, "description", requestor, CREATED)));
+        when(requestRepository.findAllForFeedReplay(4L, 1L, SINCE, Limit.of(3)))
+                .thenReturn(List.of(new ItemRequest(6L, "description", requestor, CREATED)));
+        RecordingEmitter emitter = new RecordingEmitter();
+
+        feed.register(1L, 4L, emitter);
+        feed.publish(request(6L, 2L));
+        runTasks();
+        feed.publish(request(5L, 2L));
+        runTasks();
+
+        assertThat(emitter.events).hasSize(2);
+        assertThat(emitter.events.get(0)).startsWith("id:6\n");
+        assertThat(emitter.events.get(1)).startsWith("id:5\n");
+    }
+
+    @Test
+    void reconnectReplaysLowerIdCommittedAfterDisconnect() {
+        when(requestRepository.findById(6L)).thenReturn(Optional.of(new ItemRequest(6L, "description", requestor, CREATED)));
+        when(requestRepository.findAllForFeedReplay(6L, 1L, SINCE, Limit.of(3)))
+                .thenReturn(List.of(new ItemRequest(5L, "description", requestor, CREATED.minusSeconds(1))));
+        RecordingEmitter emitter = new RecordingEmitter();
+
+        feed.register(1L, 6L, emitter);
+        runTasks();
+
+        assertThat(emitter.events).hasSize(1);
+        assertThat(emitter.events.get(0)).startsWith("id:5\n");
+    }
+
+    @Test
+    void reconnectAfterTooManyRequestsSendsLagInsteadOfReplay() {
+        when(requestRepository.findById(4L)).thenReturn(Optional.of(new ItemRequest(4L, "description", requestor, CREATED)));
+        when(requestRepository.findAllForFeedReplay(4L, 1L, SINCE, Limit.of(3)))
+                .thenReturn(List.of(new ItemRequest(5L, "description", requestor, CREATED),
+                        new ItemRequest(6L, "description", requestor, CREATED),
+                        new ItemRequest(7L, "description", requestor, CREATED)));
+        when(requestRepository.countForFeedReplay(4L, 1L, SINCE)).thenReturn(10L);
+        RecordingEmitter emitter = new RecordingEmitter();
+
+        feed.register(1L, 4L, emitter);
+        runTasks();
+
+        assertThat(emitter.events).containsExactly("event:lag\ndata:10\n\n");
+    }
+
+    @Test
+    void disconnectedSubscriberIsRemoved() {
+        RecordingEmitter emitter = new RecordingEmitter();
+        feed.register(1L, null, emitter);
+        runTasks();
+        emitter.closed = true;
+
+        feed.publish(request(5L, 2L));
+        runTasks();
+
+        assertThat(feed.subscriberCount()).isZero();
+    }
+
+    @Test
+    void heartbeatPingsIdleSubscriber() {
+        RecordingEmitter emitter = new RecordingEmitter();
+        feed.register(1L, null, emitter);
+        runTasks();
+
+        feed.heartbeat();
+        runTasks();
+
+        assertThat(emitter.events).containsExactly(":ping\n\n");
+    }
+
+    @Test
+    void heartbeatRemovesHalfOpenSubscriber() {
+        RecordingEmitter emitter = new RecordingEmitter();
+        feed.register(1L, null, emitter);
+        runTasks();
+        emitter.closed = true;
+
+        feed.heartbeat();
+        runTasks();
+
+        assertThat(feed.subscriberCount()).isZero();
+    }
+
+    @Test
+    void blockedSubscribersDoNotDelayOthers() throws InterruptedException {
+        ExecutorService senders = ItemRequestFeed.newSenderExecutor();
+        ItemRequestFeed feed = new ItemRequestFeed(requestRepository, senders, 2, 2, 0, WINDOW);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            for (long userId = 10; userId < 20; userId++) {
+                feed.register(userId, null, new BlockedEmitter(release));
+            }
+            RecordingEmitter emitter = new RecordingEmitter();
+            CountDownLatch delivered = new CountDownLatch(1);
+            emitter.onSend = delivered::countDown;
+            feed.register(1L, null, emitter);
+
+            feed.publish(request(5L, 2L));
+
+            assertThat(delivered.await(5, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            release.countDown();
+            senders.shutdownNow();
+        }
+    }
+
+    private ItemRequestDtoOut request(Long id, Long requestorId) {
+        return new ItemRequestDtoOut(id, "description", requestorId, CREATED);
+    }
+
+    private void runTasks() {
+        while (!tasks.isEmpty()) {
+            tasks.poll().run();
+        }
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+        private final List<String> events = new ArrayList<>();
+        private boolean closed;
+        private Runnable onSend = () -> { };
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (closed) {
+                throw new IOException("Соединение закрыто");
+            }
+            StringBuilder event = new StringBuilder();
+            for (ResponseBodyEmitter.DataWithMediaType part : builder.build()) {
+                event.append(part.getData());
+            }
+            events.add(event.toString());
+            onSend.run();
+        }
+    }
+
+    /* Соединение, запись в которое висит, пока тест его не отпустит */
+    private static class BlockedEmitter extends SseEmitter {
+        private final CountDownLatch release;
+
+        BlockedEmitter(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Отправка прервана", e);
+            }
+        }
+    }
+}
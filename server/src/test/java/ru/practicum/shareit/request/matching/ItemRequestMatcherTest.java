@@ -0,0 +1,116 @@
+package ru.practicum.shareit.request.matching;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.model.RequestMatch;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.request.repository.RequestMatchRepository;
+import ru.practicum.shareit.user.model.User;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ItemRequestMatcherTest {
+    @Mock
+    private ItemRepository itemRepository;
+    @Mock
+    private ItemRequestRepository requestRepository;
+    @Mock
+    private RequestMatchRepository matchRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final RequestMatchIndex index = new RequestMatchIndex();
+    private final User owner = new User(20L, "owner", "owner@mail.ru");
+
+    @Test
+    void batchReplacesMatchesOfItsItems() {
+        ItemRequestMatcher matcher = new ItemRequestMatcher(index, itemRepository, requestRepository,
+                matchRepository, transactionManager, 10, 10, 0, 0.5, 20, 1000);
+        index.add(1L, 10L, "Ищу дрель");
+        index.add(2L, 10L, "Палатка на двоих");
+        Item drill = new Item(5L, "Дрель", "Ударная дрель", true, owner, null);
+        Item tent = new Item(6L, "Палатка", "Старая", false, owner, null);
+        when(itemRepository.findAllByIdIn(Set.of(5L, 6L))).thenReturn(List.of(drill, tent));
+
+        matcher.process(List.of(5L, 6L, 5L));
+
+        ArgumentCaptor<List<RequestMatch>> saved = ArgumentCaptor.captor();
+        verify(matchRepository).deleteAllByItemIdIn(Set.of(5L, 6L));
+        verify(matchRepository).saveAll(saved.capture());
+        assertThat(saved.getValue()).singleElement()
+                .satisfies(match -> {
+                    assertThat(match.getRequestId()).isEqualTo(1L);
+                    assertThat(match.getItemId()).isEqualTo(5L);
+                    assertThat(match.getScore()).isEqualTo(0.5);
+                });
+    }
+
+    @Test
+    void answeredRequestLeavesIndexAfterItemIsSaved() {
+        ItemRequestMatcher matcher = new ItemRequestMatcher(index, itemRepository, requestRepository,
+                matchRepository, transactionManager, 10, 10, 0, 0.5, 20, 1000);
+        index.add(1L, 10L, "Ищу дрель");
+        ItemRequest request = new ItemRequest(1L, "Ищу дрель", owner, null);
+
+        matcher.itemSaved(new Item(5L, "Дрель", "Ударная дрель", true, owner, request));
+
+        assertThat(index.size()).isZero();
+        verifyNoInteractions(matchRepository);
+    }
+
+    @Test
+    void batchDropsMatchesOfAnsweredRequests() {
+        ItemRequestMatcher matcher = new ItemRequestMatcher(index, itemRepository, requestRepository,
+                matchRepository, transactionManager, 10, 10, 0, 0.5, 20, 1000);
+        ItemRequest request = new ItemRequest(1L, "Ищу дрель", owner, null);
+        when(itemRepository.findAllByIdIn(Set.of(5L)))
+                .thenReturn(List.of(new Item(5L, "Дрель", "Ударная дрель", false, owner, request)));
+
+        matcher.process(List.of(5L));
+
+        verify(matchRepository).deleteAllByItemIdIn(Set.of(5L));
+        verify(matchRepository).deleteAllByRequestIdIn(Set.of(1L));
+        verify(matchRepository).saveAll(List.of());
+    }
+
+    @Test
+    void itemMissedByFullQueueIsRetriedByCatchUp() {
+        ItemRequestMatcher matcher = new ItemRequestMatcher(index, itemRepository, requestRepository,
+                matchRepository, transactionManager, 1, 10, 0, 0.5, 20, 1000);
+        when(itemRepository.findIdsAfter(5L, Limit.of(10))).thenReturn(List.of(6L, 7L));
+
+        matcher.itemSaved(new Item(5L, "Дрель", "Ударная дрель", true, owner, null));
+        matcher.itemSaved(new Item(6L, "Палатка", "Старая", true, owner, null));
+        matcher.catchUp();
+        matcher.catchUp();
+
+        verify(itemRepository, times(2)).findIdsAfter(5L, Limit.of(10));
+    }
+
+    @Test
+    void catchUpIsIdleWithoutMissedItems() {
+        ItemRequestMatcher matcher = new ItemRequestMatcher(index, itemRepository, requestRepository,
+                matchRepository, transactionManager, 10, 10, 0, 0.5, 20, 1000);
+
+        matcher.itemSaved(new Item(5L, "Дрель", "Ударная дрель", true, owner, null));
+        matcher.catchUp();
+
+        verifyNoInteractions(itemRepository);
+    }
+}
@@ -0,0 +1,64 @@
+package ru.practicum.shareit.request.matching;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestMatchIndexTest {
+    private final RequestMatchIndex index = new RequestMatchIndex();
+
+    @Test
+    void itemMatchesRequestsByShareOfRequestWords() {
+        index.add(1L, 10L, "Нужна дрель и перфоратор");
+        index.add(2L, 10L, "Ищу дрель");
+        index.add(3L, 10L, "Палатка на двоих");
+
+        assertThat(index.match("Дрель Bosch, режим перфоратора и перфоратор", 20L, 0.5, 10))
+                .containsExactly(new RequestMatchIndex.Candidate(1L, 2.0 / 3),
+                        new RequestMatchIndex.Candidate(2L, 0.5));
+    }
+
+    @Test
+    void ownerDoesNotGetOwnRequests() {
+        index.add(1L, 10L, "Ищу дрель");
+
+        assertThat(index.match("дрель", 10L, 0.1, 10)).isEmpty();
+    }
+
+    @Test
+    void removedRequestIsNotMatched() {
+        index.add(1L, 10L, "Ищу дрель");
+        index.add(2L, 10L, "Дрель ударная");
+        index.remove(1L);
+
+        assertThat(index.match("дрель", 20L, 0.1, 10)).extracting(RequestMatchIndex.Candidate::requestId)
+                .containsExactly(2L);
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    void wordsDoNotDependOnDefaultLocale() {
+        Locale defaultLocale = Locale.getDefault();
+        Locale.setDefault(Locale.forLanguageTag("tr"));
+        try {
+            index.add(1L, 10L, "DRILL WANTED");
+
+            assertThat(index.match("drill wanted", 20L, 1.0, 10)).extracting(RequestMatchIndex.Candidate::requestId)
+                    .containsExactly(1L);
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+
+    @Test
+    void resultIsLimited() {
+        for (long id = 1; id <= 5; id++) {
+            index.add(id, 10L, "дрель");
+        }
+
+        assertThat(index.match("дрель", 20L, 1.0, 3)).extracting(RequestMatchIndex.Candidate::requestId)
+                .containsExactly(1L, 2L, 3L);
+    }
+}
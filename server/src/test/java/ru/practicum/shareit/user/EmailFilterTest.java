@@ -0,0 +1,59 @@
+package ru.practicum.shareit.user;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.practicum.shareit.user.email.EmailFilter;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class EmailFilterTest {
+    private static final int USERS = 10_000;
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final EmailFilter filter = new EmailFilter(userRepository, mock(PlatformTransactionManager.class),
+            registry, USERS, 0.01);
+
+    @Test
+    void everythingIsProbableBeforeRebuild() {
+        assertThat(filter.mightContain("user@mail.ru")).isTrue();
+        assertThat(filter.expectedFalsePositiveRate()).isEqualTo(1);
+    }
+
+    @Test
+    void rebuiltFilterHasNoFalseNegativesAndFewFalsePositives() {
+        when(userRepository.streamAllEmails()).thenReturn(IntStream.range(0, USERS).mapToObj(i -> "user" + i + "@mail.ru"));
+
+        assertThat(filter.rebuild()).isEqualTo(USERS);
+
+        for (int i = 0; i < USERS; i++) {
+            assertThat(filter.mightContain("user" + i + "@mail.ru")).isTrue();
+        }
+        long falsePositives = IntStream.range(0, USERS)
+                .filter(i -> filter.mightContain("other" + i + "@mail.ru"))
+                .count();
+        assertThat(falsePositives).isLessThan(USERS / 50);
+        assertThat(filter.expectedFalsePositiveRate()).isBetween(0.005, 0.015);
+    }
+
+    @Test
+    void addedEmailsAndLookupsAreCounted() {
+        when(userRepository.streamAllEmails()).thenReturn(IntStream.range(0, 0).mapToObj(String::valueOf));
+        filter.rebuild();
+
+        assertThat(filter.mightContain("new@mail.ru")).isFalse();
+        filter.add("new@mail.ru");
+        assertThat(filter.mightContain("new@mail.ru")).isTrue();
+        filter.recordLookup(false);
+
+        assertThat(registry.get("shareit.user.email.filter.checks").tag("result", "absent").counter().count())
+                .isEqualTo(1);
+        assertThat(registry.get("shareit.user.email.filter.false_positive_rate").gauge().value()).isEqualTo(0.5);
+    }
+}
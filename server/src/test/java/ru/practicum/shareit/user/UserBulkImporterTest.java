@@ -0,0 +1,83 @@
+package ru.practicum.shareit.user;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import ru.practicum.shareit.bulk.ImportError;
+import ru.practicum.shareit.bulk.ImportReport;
+import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.user.bulk.UserBulkImporter;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+@SpringBootTest(
+        properties = "spring.datasource.username=shareit",
+        webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class UserBulkImporterTest {
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final MediaType CSV = MediaType.parseMediaType("text/csv");
+
+    @Autowired
+    private UserBulkImporter importer;
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void duplicatesInFileAndInDatabaseAreReportedByLine() throws ValidationException {
+        String prefix = UUID.randomUUID().toString();
+        userRepository.save(new User(null, "Старый", prefix + "old@mail.ru"));
+        String body = String.join("\n",
+                json("Анна", prefix + "anna@mail.ru"),
+                json("Анна ещё раз", prefix + "anna@mail.ru"),
+                json("Старый", prefix + "old@mail.ru"),
+                json("Без почты", ""),
+                json("Борис", prefix + "boris@mail.ru"),
+                json("Вера", prefix + "vera@mail.ru"),
+                json("Анна снова", prefix + "anna@mail.ru"));
+
+        ImportReport report = importer.importUsers(NDJSON, stream(body));
+
+        assertThat(report.getImported()).isEqualTo(3);
+        assertThat(report.getErrors()).extracting(ImportError::getLine).containsExactlyInAnyOrder(2L, 3L, 4L, 7L);
+        assertThat(report.getErrors()).filteredOn(error -> error.getLine() == 2)
+                .extracting(ImportError::getMessage)
+                .containsExactly(String.format("email %sanna@mail.ru уже указан в строке 1", prefix));
+        assertThat(userRepository.findByEmail(prefix + "vera@mail.ru")).isPresent();
+    }
+
+    @Test
+    void csvImportReachesBatchThroughput() throws ValidationException {
+        int rows = Integer.getInteger("shareit.bench.rows", 20_000);
+        String prefix = UUID.randomUUID().toString();
+        StringBuilder body = new StringBuilder("email,name\n");
+        for (int i = 0; i < rows; i++) {
+            body.append(prefix).append(i).append("@mail.ru,user").append(i).append('\n');
+        }
+
+        long started = System.nanoTime();
+        ImportReport report = importer.importUsers(CSV, stream(body.toString()));
+        long millis = Math.max((System.nanoTime() - started) / 1_000_000, 1);
+        log.info("Импорт {} пользователей: {} мс, {} строк/с", rows, millis, rows * 1000L / millis);
+
+        assertThat(report.getImported()).isEqualTo(rows);
+        assertThat(report.getFailed()).isZero();
+    }
+
+    private static String json(String name, String email) {
+        return String.format("{\"name\":\"%s\",\"email\":\"%s\"}", name, email);
+    }
+
+    private static InputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -8,6 +8,9 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.bulk.ImportError;
+import ru.practicum.shareit.bulk.ImportReport;
+import ru.practicum.shareit.exception.DuplicatedDataException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.user.controller.UserController;
 import ru.practicum.shareit.user.dto.UserDto;
@@ -95,6 +98,18 @@ class UserControllerTest {
                 .deleteUser(anyLong());
     }
 
+    @Test
+    void createUserWithDuplicatedEmailTest() throws Exception {
+        when(userService.create(any())).thenThrow(new DuplicatedDataException("email user@user.ru уже используется"));
+
+        mvc.perform(post("/users")
+                        .content(mapper.writeValueAsString(userDto))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isConflict());
+    }
+
     @Test
     void getUserByIdNotFoundTest() throws Exception {
         when(userService.getUserById(anyLong())).thenThrow(new NotFoundException("User  not found"));
@@ -131,4 +146,18 @@ class UserControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(0)));
     }
-}
\ No newline at end of file
+
+    @Test
+    void importUsersTest() throws Exception {
+        when(userService.importUsers(any(), any()))
+                .thenReturn(new ImportReport(1, 1, List.of(new ImportError(3, "Некорректный email"))));
+
+        mvc.perform(post("/users/bulk")
+                        .content("name,email\nuser,user@user.ru\nbad,bad\n")
+                        .contentType("text/csv"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported", is(1)))
+                .andExpect(jsonPath("$.errors[0].line", is(3)))
+                .andExpect(jsonPath("$.errors[0].message", is("Некорректный email")));
+    }
+}
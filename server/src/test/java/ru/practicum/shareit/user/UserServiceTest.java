@@ -11,11 +11,13 @@ import ru.practicum.shareit.exception.DuplicatedDataException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.email.EmailFilter;
 import ru.practicum.shareit.user.mapper.UserMapper;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 import ru.practicum.shareit.user.service.UserServiceImpl;
 
+import java.sql.SQLException;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -26,6 +28,8 @@ class UserServiceTest {
 
     @Mock
     private UserRepository userRepository;
+    @Mock
+    private EmailFilter emailFilter;
     @InjectMocks
     private UserServiceImpl userService;
 
@@ -83,7 +87,29 @@ class UserServiceTest {
 
     @Test
     void testSaveNewUserWithDuplicatedEmail() {
-        doThrow(DataIntegrityViolationException.class).when(userRepository).save(any(User.class));
+        when(userRepository.save(any())).thenReturn(user);
+        doThrow(new DataIntegrityViolationException("email", new SQLException("unique", "23505")))
+                .when(userRepository).flush();
+
+        assertThrows(DuplicatedDataException.class, () -> userService.create(userDto));
+        verify(emailFilter, never()).add(anyString());
+    }
+
+    @Test
+    void testUpdateToDuplicatedEmail() {
+        when(userRepository.findById(id)).thenReturn(Optional.of(user));
+        doThrow(new DataIntegrityViolationException("email", new SQLException("unique", "23505")))
+                .when(userRepository).flush();
+
+        assertThrows(DuplicatedDataException.class,
+                () -> userService.update(new UserDto(id, null, "taken@user.com"), id));
+    }
+
+    @Test
+    void testOtherIntegrityViolationIsNotDuplicate() {
+        when(userRepository.save(any())).thenReturn(user);
+        doThrow(new DataIntegrityViolationException("name", new SQLException("not null", "23502")))
+                .when(userRepository).flush();
 
         assertThrows(DataIntegrityViolationException.class, () -> userService.create(userDto));
     }
@@ -127,4 +153,24 @@ class UserServiceTest {
         assertEquals(user.getEmail(), actualUser.getEmail()); // Email не должен измениться
         verify(userRepository, times(1)).findById(id);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testEmailRejectedByFilterSkipsDatabase() throws DuplicatedDataException {
+        when(emailFilter.mightContain(userDto.getEmail())).thenReturn(false);
+        when(userRepository.save(any())).thenReturn(user);
+
+        userService.create(userDto);
+
+        verify(userRepository, never()).findByEmail(anyString());
+        verify(emailFilter).add(user.getEmail());
+    }
+
+    @Test
+    void testProbableEmailIsCheckedInDatabase() {
+        when(emailFilter.mightContain(userDto.getEmail())).thenReturn(true);
+        when(userRepository.findByEmail(userDto.getEmail())).thenReturn(Optional.of(user));
+
+        assertThrows(DuplicatedDataException.class, () -> userService.create(userDto));
+        verify(emailFilter).recordLookup(true);
+    }
+}